@@ -1,9 +1,13 @@
 package common;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * @Classname BaseModel
  * @Description 基类
@@ -21,6 +25,21 @@ public class BaseResponseModel {
     @JsonProperty("result")
     private String result;
 
+    /**
+     * 原始响应体，typed 接口解析后保留，getResult 时才解码
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient byte[] rawBody;
+
+    public String getResult() {
+        if (result == null && rawBody != null) {
+            result = new String(rawBody, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
     @Data
     @ToString
     public static class ErrorDto {
@@ -0,0 +1,95 @@
+package common;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname HttpClientConfig
+ * @Description http 连接池配置
+ */
+@Data
+@Builder
+public class HttpClientConfig {
+
+    /**
+     * 连接池最大连接数
+     */
+    @Builder.Default
+    private Integer maxTotal = 200;
+
+    /**
+     * 每个路由（host:port）的最大连接数
+     */
+    @Builder.Default
+    private Integer maxPerRoute = 50;
+
+    /**
+     * 服务端未返回 Keep-Alive 头时，连接保活时间（单位：毫秒）
+     */
+    @Builder.Default
+    private Long keepAliveMillis = 30000L;
+
+    /**
+     * 空闲连接最大存活时间，超过后由后台线程回收（单位：毫秒）
+     */
+    @Builder.Default
+    private Long maxIdleMillis = 60000L;
+
+    /**
+     * 连接最大生命周期，小于等于0表示不限制（单位：毫秒）
+     */
+    @Builder.Default
+    private Long connectionTimeToLiveMillis = -1L;
+
+    /**
+     * 连接空闲超过该时间后，复用前先做可用性校验（单位：毫秒）
+     */
+    @Builder.Default
+    private Integer validateAfterInactivityMillis = 2000;
+
+    /**
+     * 从连接池获取连接的最大等待时间（单位：毫秒）
+     */
+    @Builder.Default
+    private Integer connectionRequestTimeout = 10000;
+
+    /**
+     * 连接超时,默认60s（单位：毫秒）
+     */
+    @Builder.Default
+    private Integer connectTimeout = 60000;
+
+    /**
+     * 读取超时，默认60s（单位：毫秒）
+     */
+    @Builder.Default
+    private Integer socketTimeout = 60000;
+
+    /**
+     * 异步客户端 NIO 线程数，默认与 CPU 核数一致
+     */
+    @Builder.Default
+    private Integer ioThreadCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * DNS 解析结果缓存时间，后台在过期前刷新，小于等于0表示使用 JVM 默认解析（单位：毫秒）
+     */
+    @Builder.Default
+    private Long dnsCacheTtlMillis = 60000L;
+
+    /**
+     * TLS 会话缓存个数，重连时复用会话，0表示不限制
+     */
+    @Builder.Default
+    private Integer tlsSessionCacheSize = 1000;
+
+    /**
+     * TLS 会话缓存时间，0表示不限制（单位：秒）
+     */
+    @Builder.Default
+    private Integer tlsSessionTimeoutSeconds = 86400;
+
+    public static HttpClientConfig defaultConfig() {
+        return HttpClientConfig.builder().build();
+    }
+}
@@ -0,0 +1,174 @@
+package common;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import common.utils.JsonProjection;
+import common.utils.ResponseBinder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @Classname LazyJsonResponse
+ * @Description 按需解析的响应，持有原始字节与顶层字段偏移索引，字段在访问时才解析
+ */
+public class LazyJsonResponse {
+
+    private static final JsonNode ABSENT = MissingNode.getInstance();
+
+    private final byte[] body;
+
+    /**
+     * 顶层字段名 -> {起始偏移, 长度}，首次访问时通过一次跳读扫描建立
+     */
+    private volatile Map<String, int[]> index;
+
+    private final ConcurrentMap<String, JsonNode> materialized = new ConcurrentHashMap<>();
+
+    public LazyJsonResponse(byte[] body) {
+        this.body = body;
+    }
+
+    /**
+     * 原始响应体
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getResult() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    public String getRequestId() {
+        return getString("RequestId");
+    }
+
+    public boolean hasError() {
+        return index().containsKey("Error");
+    }
+
+    public String getErrorCode() {
+        return getString("Error.Code");
+    }
+
+    public String getErrorMessage() {
+        return getString("Error.Message");
+    }
+
+    /**
+     * 顶层字段名
+     */
+    public Set<String> fieldNames() {
+        return Collections.unmodifiableSet(index().keySet());
+    }
+
+    /**
+     * 顶层字段值，只解析该字段对应的字节区间
+     *
+     * @return 字段不存在时返回 null
+     */
+    public JsonNode get(String field) {
+        JsonNode value = materialized.computeIfAbsent(field, name -> {
+            int[] range = index().get(name);
+            if (range == null) {
+                return ABSENT;
+            }
+            try {
+                return ResponseBinder.mapper().readTree(parser(range));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return value.isMissingNode() ? null : value;
+    }
+
+    /**
+     * 按路径取值，如 Instances[*].InstanceId
+     */
+    public List<JsonNode> select(String path) {
+        return project(JsonProjection.compile(path)).get(path);
+    }
+
+    /**
+     * 按路径取第一个值的文本
+     *
+     * @return 不存在时返回 null
+     */
+    public String getString(String path) {
+        List<JsonNode> values = select(path);
+        if (values.isEmpty() || values.get(0).isNull()) {
+            return null;
+        }
+        return values.get(0).asText();
+    }
+
+    /**
+     * 按投影取值，只扫描投影涉及的顶层字段，其余字段跳过
+     */
+    public Map<String, List<JsonNode>> project(JsonProjection projection) {
+        Map<String, List<JsonNode>> result = new LinkedHashMap<>();
+        for (String path : projection.getPaths()) {
+            result.put(path, new ArrayList<>());
+        }
+        Map<String, int[]> fields = index();
+        try {
+            for (String field : projection.topLevelFields()) {
+                int[] range = fields.get(field);
+                if (range == null) {
+                    continue;
+                }
+                try (JsonParser parser = parser(range)) {
+                    parser.nextToken();
+                    projection.applyField(field, parser, result);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    private Map<String, int[]> index() {
+        Map<String, int[]> current = index;
+        if (current != null) {
+            return current;
+        }
+        Map<String, int[]> built = new HashMap<>();
+        try (JsonParser parser = ResponseBinder.mapper().getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("response is not a json object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                int start = (int) parser.getTokenLocation().getByteOffset();
+                parser.skipChildren();
+                //标量值可能尚未读完，先补全再取结束位置
+                parser.finishToken();
+                int end = (int) parser.getCurrentLocation().getByteOffset();
+                built.put(name, new int[]{start, end - start});
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        index = built;
+        return built;
+    }
+
+    private JsonParser parser(int[] range) throws IOException {
+        return ResponseBinder.mapper().getFactory().createParser(body, range[0], range[1]);
+    }
+}
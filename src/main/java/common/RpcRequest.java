@@ -0,0 +1,38 @@
+package common;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Classname RpcRequest
+ * @Description 单次 rpc 调用的请求内容
+ */
+@Data
+@Builder
+public class RpcRequest {
+
+    /**
+     * api地址
+     */
+    private String url;
+
+    /**
+     * 请求方法
+     */
+    private String requestMethod;
+
+    /**
+     * 请求参数
+     */
+    @Builder.Default
+    private Map<String, Object> requestParam = new HashMap<>();
+
+    /**
+     * 请求头
+     */
+    @Builder.Default
+    private Map<String, String> head = new HashMap<>();
+}
@@ -1,9 +1,22 @@
 package common;
 
+import common.cache.ResponseCache;
+import common.constant.RequestPriorityEnum;
+import common.http.Cancellation;
+import common.http.SdkHttpTransport;
+import common.policy.AdaptiveTimeoutPolicy;
+import common.policy.BulkheadConfig;
+import common.policy.CircuitBreakerConfig;
+import common.policy.ConcurrencyLimiterConfig;
+import common.policy.Deadline;
+import common.policy.HedgePolicy;
+import common.policy.LoadShedder;
+import common.policy.RateLimiterConfig;
+import common.policy.RetryPolicy;
 import lombok.Builder;
 import lombok.Data;
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class RpcRequestContentModel {
     /**
      * 服务名
@@ -49,4 +62,127 @@ public class RpcRequestContentModel {
      */
     @Builder.Default
     private Integer socketTimeout = 60000;
+
+    /**
+     * 单次调用的总时间预算（单位：毫秒），从发起调用开始计算，包括排队、签名、各次尝试与重试等待；
+     * 每次尝试的连接、读取与获取连接超时不超过剩余时间，超过时抛出 DeadlineExceededException
+     * 为空时不限制
+     */
+    private Long callTimeoutMillis;
+
+    /**
+     * 调用的截止时间，通常由 RpcRequestClient.withDeadline 为单个请求设置，与 callTimeoutMillis 同时配置时取较早者
+     * 为空时不限制
+     */
+    private Deadline deadline;
+
+    /**
+     * 取消信号，取消时中止进行中的请求、取消排队与待执行的重试，调用抛出 CallCancelledException；
+     * 通常由 RpcRequestClient.withCancellation 为单个请求设置。为空时只能通过取消异步调用返回的 future 取消
+     */
+    private Cancellation cancellation;
+
+    /**
+     * 是否请求压缩响应（Accept-Encoding: gzip, deflate），响应按 Content-Encoding 自动解压，对所有传输层生效
+     */
+    @Builder.Default
+    private Boolean acceptCompressedResponse = true;
+
+    /**
+     * 请求体超过该字节数时使用 gzip 压缩，签名基于压缩后的请求体；小于0表示不压缩
+     */
+    @Builder.Default
+    private Integer requestCompressionThreshold = -1;
+
+    /**
+     * 流式响应在内存中保存的最大字节数，超过后写入临时文件，默认8MB
+     */
+    @Builder.Default
+    private Integer maxInMemoryResponseBytes = 8 * 1024 * 1024;
+
+    /**
+     * 流式响应临时文件目录，为空时使用 java.io.tmpdir
+     */
+    private String spillDirectory;
+
+    /**
+     * 传输层实现，为空时使用 Apache HttpClient 默认共享连接池
+     * 可选 SdkHttpTransports.jdkHttp2()，同一 endpoint 的并发请求复用一条 HTTP/2 连接
+     */
+    private SdkHttpTransport transport;
+
+    /**
+     * 重试策略，可使用 RetryPolicy.defaultPolicy()：最多尝试3次，连接失败、429与限流错误码对所有请求重试，读超时与5xx只对幂等请求重试
+     * 为空时不重试
+     */
+    private RetryPolicy retryPolicy;
+
+    /**
+     * 对冲请求策略，只对幂等请求生效：超过该 action 的历史 p95 延迟未返回时再发送一次，取先返回的结果
+     * 为空时不对冲
+     */
+    private HedgePolicy hedgePolicy;
+
+    /**
+     * 自适应读取超时，只对幂等请求生效：按该 action 的历史延迟计算，不超过 socketTimeout
+     * 为空时使用 socketTimeout
+     */
+    private AdaptiveTimeoutPolicy adaptiveTimeoutPolicy;
+
+    /**
+     * 熔断配置，按 service/region/host 熔断，熔断中的请求直接抛出 CircuitBreakerOpenException，可使用 CircuitBreakerConfig.defaultConfig()
+     * 为空时不熔断
+     */
+    private CircuitBreakerConfig circuitBreakerConfig;
+
+    /**
+     * 客户端限流配置，按 service/region/action 限流，收到限流响应时自动降速，请求在本地排队
+     * 为空时不限流
+     */
+    private RateLimiterConfig rateLimiterConfig;
+
+    /**
+     * 舱壁隔离配置，按 service/region 限制并发调用数与排队数，可分配独立连接池，满时抛出 BulkheadFullException
+     * 为空时不限制
+     */
+    private BulkheadConfig bulkheadConfig;
+
+    /**
+     * 自适应并发限制配置，按 service/region/host 限制在途请求数，上限随延迟与限流响应自动调整，
+     * 达到上限时排队或抛出 ConcurrencyLimitExceededException
+     * 为空时不限制
+     */
+    private ConcurrencyLimiterConfig concurrencyLimiterConfig;
+
+    /**
+     * 客户端过载保护，排队的调用数、在途请求与响应字节数、排队时间超过预算时直接抛出 OverloadException；可在多个客户端间共享
+     * 为空时不限制
+     */
+    private LoadShedder loadShedder;
+
+    /**
+     * 调用优先级，舱壁排队时按优先级放行，过载时 BATCH 调用先被拒绝。后台任务可用 toBuilder().priority(BATCH) 创建另一个客户端，
+     * 与交互式客户端共用同一个舱壁与 loadShedder
+     */
+    @Builder.Default
+    private RequestPriorityEnum priority = RequestPriorityEnum.INTERACTIVE;
+
+    /**
+     * 创建 RpcRequestClient 时预先建立的连接数，需先在 EndpointRegistry 中登记当前 service/region 的 endpoint
+     */
+    @Builder.Default
+    private Integer prewarmConnections = 0;
+
+    /**
+     * 是否合并相同的并发只读请求：请求方法、url、参数、请求头与 ak 都相同的请求只发送一次，各调用方共享同一个解析结果，
+     * 返回的响应对象不应修改。流式响应不合并
+     */
+    @Builder.Default
+    private Boolean singleFlight = false;
+
+    /**
+     * 响应缓存，缓存 Describe/Get/List 等只读 action 的成功响应，写操作成功后失效相关条目；可在多个客户端间共享
+     * 为空时不缓存
+     */
+    private ResponseCache responseCache;
 }
@@ -0,0 +1,190 @@
+package common.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import common.LazyJsonResponse;
+import common.RpcRequest;
+import common.exception.HttpRequestException;
+import common.policy.PolicyScheduler;
+import common.utils.JsonProjection;
+import common.utils.RpcRequestClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
+
+/**
+ * @Classname BatchLoader
+ * @Description 批量加载：调用方按单个 id 查询，maxDelayMillis 内收集的 id（最多 maxBatchSize 个）合并为一次多 id 请求，
+ * 响应按 id 拆分后分别返回。同一批次内重复的 id 只查询一次
+ */
+@Slf4j
+public class BatchLoader implements Closeable {
+
+    private final RpcRequestClient rpcRequestClient;
+
+    private final BatchLoaderConfig config;
+
+    private final JsonProjection resultProjection;
+
+    /**
+     * 当前收集中的批次，id -> 等待结果的调用方
+     */
+    private Map<String, CompletableFuture<JsonNode>> pending = new LinkedHashMap<>();
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    public BatchLoader(RpcRequestClient rpcRequestClient, BatchLoaderConfig config) {
+        if (config.getMaxBatchSize() == null || config.getMaxBatchSize() <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.rpcRequestClient = rpcRequestClient;
+        this.config = config;
+        this.resultProjection = JsonProjection.compile(config.getResultPath());
+    }
+
+    /**
+     * 加载单个 id
+     *
+     * @return 响应中该 id 对应的结果元素，不存在时为 null
+     */
+    public CompletableFuture<JsonNode> load(String id) {
+        CompletableFuture<JsonNode> future;
+        Map<String, CompletableFuture<JsonNode>> full = null;
+        synchronized (this) {
+            future = pending.get(id);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pending.put(id, future);
+                if (pending.size() >= config.getMaxBatchSize()) {
+                    full = takePending();
+                } else if (pending.size() == 1) {
+                    scheduledFlush = PolicyScheduler.schedule(this::flush, config.getMaxDelayMillis());
+                }
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        //各调用方拿到独立的 future，取消其中一个不影响同批次的其他调用方
+        return future.thenApply(Function.identity());
+    }
+
+    /**
+     * 加载多个 id，结果中不包含不存在的 id
+     */
+    public CompletableFuture<Map<String, JsonNode>> loadMany(Collection<String> ids) {
+        Map<String, CompletableFuture<JsonNode>> futures = new LinkedHashMap<>();
+        for (String id : ids) {
+            futures.put(id, load(id));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<String, JsonNode> results = new LinkedHashMap<>();
+            futures.forEach((id, future) -> {
+                JsonNode node = future.join();
+                if (node != null) {
+                    results.put(id, node);
+                }
+            });
+            return results;
+        });
+    }
+
+    /**
+     * 立即发送当前收集的 id
+     */
+    public void flush() {
+        Map<String, CompletableFuture<JsonNode>> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private Map<String, CompletableFuture<JsonNode>> takePending() {
+        Map<String, CompletableFuture<JsonNode>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<String, CompletableFuture<JsonNode>> batch) {
+        RpcRequest template = config.getRequest();
+        Map<String, Object> requestParam = new HashMap<>(template.getRequestParam());
+        int index = 1;
+        for (String id : batch.keySet()) {
+            requestParam.put(config.getIdParamName() + "." + index++, id);
+        }
+        if (config.getPageSizeParamName() != null) {
+            requestParam.put(config.getPageSizeParamName(), config.getMaxBatchSize());
+        }
+        log.info("batch loader dispatch,action:{},size:{}", requestParam.get("Action"), batch.size());
+        CompletableFuture<LazyJsonResponse> response;
+        try {
+            response = rpcRequestClient.beginRpcRequestLazyAsync(template.getUrl(), template.getRequestMethod(),
+                    requestParam, template.getHead());
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+        response.whenComplete((result, ex) -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                batch.values().forEach(future -> future.completeExceptionally(cause));
+                return;
+            }
+            try {
+                split(result, batch);
+            } catch (RuntimeException e) {
+                log.info("batch loader split response failed:{}", e.getMessage());
+                batch.values().forEach(future -> future.completeExceptionally(e));
+            }
+        });
+    }
+
+    /**
+     * 按 id 字段拆分结果列表，响应中没有的 id 返回 null
+     *
+     * @throws IllegalStateException 响应带有下一页 token，结果被截断
+     */
+    private void split(LazyJsonResponse response, Map<String, CompletableFuture<JsonNode>> batch) {
+        if (response.hasError()) {
+            HttpRequestException error = new HttpRequestException(response.getErrorCode(), response.getErrorMessage());
+            batch.values().forEach(future -> future.completeExceptionally(error));
+            return;
+        }
+        String nextToken = config.getNextTokenPath() != null ? response.getString(config.getNextTokenPath()) : null;
+        if (nextToken != null && !nextToken.isEmpty()) {
+            throw new IllegalStateException("batch response is truncated,size:" + batch.size() + "," + config.getNextTokenPath() + ":" + nextToken);
+        }
+        List<JsonNode> items = response.project(resultProjection).get(config.getResultPath());
+        for (JsonNode item : items) {
+            JsonNode id = item.get(config.getResultIdField());
+            CompletableFuture<JsonNode> future = id == null ? null : batch.get(id.asText());
+            if (future != null) {
+                future.complete(item);
+            }
+        }
+        batch.values().forEach(future -> future.complete(null));
+    }
+
+    /**
+     * 发送剩余的 id
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -0,0 +1,58 @@
+package common.batch;
+
+import common.RpcRequest;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname BatchLoaderConfig
+ * @Description 批量加载配置：单个 id 的查询合并为一次多 id 请求，id 按 filter 格式编码为 Name.1、Name.2 ...
+ */
+@Data
+@Builder
+public class BatchLoaderConfig {
+
+    /**
+     * 请求模板，包含 url、请求方法、Action、Version 等公共参数，id 参数在发送时追加
+     */
+    private RpcRequest request;
+
+    /**
+     * id 参数名，如 InstanceId，编码为 InstanceId.1、InstanceId.2 ...
+     */
+    private String idParamName;
+
+    /**
+     * 响应中结果列表的路径，如 InstancesSet[*]
+     */
+    private String resultPath;
+
+    /**
+     * 结果元素中的 id 字段，如 InstanceId
+     */
+    private String resultIdField;
+
+    /**
+     * 单次请求的最大 id 数
+     */
+    @Builder.Default
+    private Integer maxBatchSize = 100;
+
+    /**
+     * 收集 id 的最长等待时间（单位：毫秒），达到 maxBatchSize 时立即发送
+     */
+    @Builder.Default
+    private Long maxDelayMillis = 10L;
+
+    /**
+     * 每页数量参数名，发送时取值 maxBatchSize，避免服务端按默认每页数量截断结果；为空时不传
+     */
+    @Builder.Default
+    private String pageSizeParamName = "MaxResults";
+
+    /**
+     * 响应中下一页 token 的路径，有值说明结果被截断，整批以异常结束而不是把缺少的 id 当作不存在；为空时不检查
+     */
+    @Builder.Default
+    private String nextTokenPath = "NextToken";
+}
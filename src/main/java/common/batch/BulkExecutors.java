@@ -0,0 +1,44 @@
+package common.batch;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Classname BulkExecutors
+ * @Description 批量执行线程池，JDK 8 下使用有界平台线程池；JDK 21+ 由 META-INF/versions/21 下的实现替换为虚拟线程
+ */
+public final class BulkExecutors {
+
+    private static final AtomicInteger POOL_SEQ = new AtomicInteger();
+
+    private BulkExecutors() {
+    }
+
+    /**
+     * 创建执行线程池
+     *
+     * @param maxConcurrency 最大并发数
+     */
+    public static ExecutorService newExecutor(int maxConcurrency) {
+        String prefix = "ksyun-bulk-" + POOL_SEQ.incrementAndGet() + "-";
+        AtomicInteger threadSeq = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, prefix + threadSeq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 是否运行在虚拟线程上
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+}
@@ -0,0 +1,40 @@
+package common.batch;
+
+import common.RpcRequest;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * @Classname BulkResult
+ * @Description 批量执行中单个请求的结果
+ */
+@Data
+@ToString
+public class BulkResult<T> {
+
+    /**
+     * 请求在提交集合中的序号
+     */
+    private int index;
+
+    private RpcRequest request;
+
+    /**
+     * 响应，失败时为空
+     */
+    private T response;
+
+    /**
+     * 异常，成功时为空
+     */
+    private Throwable exception;
+
+    /**
+     * 耗时（单位：毫秒）
+     */
+    private long latencyMillis;
+
+    public boolean isSuccess() {
+        return exception == null;
+    }
+}
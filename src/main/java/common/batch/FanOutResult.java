@@ -0,0 +1,65 @@
+package common.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import common.LazyJsonResponse;
+import common.utils.JsonProjection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * @Classname FanOutResult
+ * @Description 多机房并发请求的合并结果，按提交的机房顺序保存各机房的结果
+ */
+public class FanOutResult {
+
+    private final Map<String, RegionResult<LazyJsonResponse>> results;
+
+    FanOutResult(Map<String, RegionResult<LazyJsonResponse>> results) {
+        this.results = Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * 机房 -> 结果
+     */
+    public Map<String, RegionResult<LazyJsonResponse>> getResults() {
+        return results;
+    }
+
+    public RegionResult<LazyJsonResponse> get(String region) {
+        return results.get(region);
+    }
+
+    /**
+     * 全部机房成功
+     */
+    public boolean isComplete() {
+        return results.values().stream().allMatch(RegionResult::isSuccess);
+    }
+
+    public List<RegionResult<LazyJsonResponse>> getSuccesses() {
+        return results.values().stream().filter(RegionResult::isSuccess).collect(Collectors.toList());
+    }
+
+    /**
+     * 失败与超时的机房
+     */
+    public List<RegionResult<LazyJsonResponse>> getFailures() {
+        return results.values().stream().filter(result -> !result.isSuccess()).collect(Collectors.toList());
+    }
+
+    /**
+     * 合并各成功机房响应中 path 对应的值，如 InstancesSet[*]
+     */
+    public List<JsonNode> merge(String path) {
+        JsonProjection projection = JsonProjection.compile(path);
+        List<JsonNode> merged = new ArrayList<>();
+        for (RegionResult<LazyJsonResponse> result : getSuccesses()) {
+            merged.addAll(result.getResponse().project(projection).get(path));
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,42 @@
+package common.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import common.LazyJsonResponse;
+
+import java.util.List;
+
+/**
+ * @Classname PageTokenExtractor
+ * @Description 从当前页计算下一页的分页参数值
+ */
+@FunctionalInterface
+public interface PageTokenExtractor {
+
+    /**
+     * @param page         当前页响应
+     * @param items        当前页的结果
+     * @param currentToken 当前页请求使用的分页参数值，第一页为 null
+     * @return 下一页的分页参数值，为空表示没有下一页
+     */
+    String nextToken(LazyJsonResponse page, List<JsonNode> items, String currentToken);
+
+    /**
+     * 从响应中读取下一页 token，如 NextToken、Marker
+     */
+    static PageTokenExtractor fromResponse(String path) {
+        return (page, items, currentToken) -> page.getString(path);
+    }
+
+    /**
+     * 偏移量分页：下一页的 Marker 为当前偏移量加本页结果数，本页为空时结束
+     */
+    static PageTokenExtractor offset() {
+        return (page, items, currentToken) -> {
+            if (items.isEmpty()) {
+                return null;
+            }
+            long current = currentToken == null ? 0 : Long.parseLong(currentToken);
+            return String.valueOf(current + items.size());
+        };
+    }
+}
@@ -0,0 +1,271 @@
+package common.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import common.LazyJsonResponse;
+import common.RpcRequest;
+import common.exception.HttpRequestException;
+import common.utils.JsonProjection;
+import common.utils.RpcRequestClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @Classname Paginator
+ * @Description 分页遍历：按分页参数依次请求各页，调用方处理当前页时异步预取下一页，最多缓冲 maxBufferedPages 页。
+ * 可按页或按结果遍历，多个线程可同时取页；并行流按页拆分，各线程处理不同的页
+ */
+@Slf4j
+public class Paginator implements Iterable<JsonNode>, Closeable {
+
+    private final RpcRequestClient rpcRequestClient;
+
+    private final PaginatorConfig config;
+
+    private final JsonProjection itemsProjection;
+
+    private final PageTokenExtractor tokenExtractor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition changed = lock.newCondition();
+
+    private final Deque<List<JsonNode>> buffer = new ArrayDeque<>();
+
+    private String nextToken;
+
+    private boolean fetching;
+
+    private boolean exhausted;
+
+    private boolean closed;
+
+    private Throwable failure;
+
+    private int fetchedPages;
+
+    /**
+     * 创建后立即开始请求第一页
+     */
+    public Paginator(RpcRequestClient rpcRequestClient, PaginatorConfig config) {
+        if (config.getMaxBufferedPages() == null || config.getMaxBufferedPages() <= 0) {
+            throw new IllegalArgumentException("maxBufferedPages must be positive");
+        }
+        this.rpcRequestClient = rpcRequestClient;
+        this.config = config;
+        this.itemsProjection = JsonProjection.compile(config.getItemsPath());
+        this.tokenExtractor = config.getTokenExtractor() != null ? config.getTokenExtractor()
+                : PageTokenExtractor.fromResponse(config.getTokenParamName());
+        prefetch();
+    }
+
+    /**
+     * 取下一页的结果，阻塞直到该页到达
+     *
+     * @return 没有更多页时返回 null
+     */
+    public List<JsonNode> nextPage() {
+        List<JsonNode> page;
+        lock.lock();
+        try {
+            while (buffer.isEmpty() && failure == null && !closed && !(exhausted && !fetching)) {
+                changed.await();
+            }
+            if (failure != null) {
+                throw failure instanceof RuntimeException ? (RuntimeException) failure : new RuntimeException("rpc请求失败", failure);
+            }
+            page = buffer.poll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("rpc请求失败", e);
+        } finally {
+            lock.unlock();
+        }
+        if (page != null) {
+            prefetch();
+        }
+        return page;
+    }
+
+    /**
+     * 按结果遍历
+     */
+    @Override
+    public Iterator<JsonNode> iterator() {
+        return Spliterators.iterator(new PageSpliterator());
+    }
+
+    /**
+     * @param parallel 为 true 时按页拆分并行处理
+     */
+    public Stream<JsonNode> stream(boolean parallel) {
+        return StreamSupport.stream(new PageSpliterator(), parallel).onClose(this::close);
+    }
+
+    public Stream<JsonNode> stream() {
+        return stream(false);
+    }
+
+    /**
+     * 已请求的页数
+     */
+    public int getFetchedPages() {
+        lock.lock();
+        try {
+            return fetchedPages;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 停止预取，等待中的调用方返回 null
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            buffer.clear();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 缓冲区未满且没有请求在途时请求下一页
+     */
+    private void prefetch() {
+        String token;
+        lock.lock();
+        try {
+            if (fetching || exhausted || closed || failure != null || buffer.size() >= config.getMaxBufferedPages()) {
+                return;
+            }
+            fetching = true;
+            token = nextToken;
+        } finally {
+            lock.unlock();
+        }
+        RpcRequest template = config.getRequest();
+        Map<String, Object> requestParam = new HashMap<>(template.getRequestParam());
+        if (token != null) {
+            requestParam.put(config.getTokenParamName(), token);
+        }
+        if (config.getPageSize() != null) {
+            requestParam.put(config.getPageSizeParamName(), config.getPageSize());
+        }
+        try {
+            rpcRequestClient.beginRpcRequestLazyAsync(template.getUrl(), template.getRequestMethod(), requestParam, template.getHead())
+                    .whenComplete((page, ex) -> onPage(token, page, ex));
+        } catch (RuntimeException e) {
+            onPage(token, null, e);
+        }
+    }
+
+    private void onPage(String token, LazyJsonResponse page, Throwable ex) {
+        lock.lock();
+        try {
+            fetching = false;
+            if (ex != null) {
+                failure = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            } else if (page.hasError()) {
+                failure = new HttpRequestException(page.getErrorCode(), page.getErrorMessage());
+            } else {
+                List<JsonNode> items = page.project(itemsProjection).get(config.getItemsPath());
+                String next = tokenExtractor.nextToken(page, items, token);
+                fetchedPages++;
+                if (!closed) {
+                    buffer.add(items);
+                }
+                if (next == null || next.isEmpty()) {
+                    exhausted = true;
+                } else if (next.equals(token)) {
+                    log.warn("paginator next token is unchanged,stop,token:{}", token);
+                    exhausted = true;
+                } else {
+                    nextToken = next;
+                }
+            }
+            changed.signalAll();
+        } catch (RuntimeException e) {
+            failure = e;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        prefetch();
+    }
+
+    /**
+     * 逐页遍历结果，trySplit 把下一整页交给其他线程
+     */
+    private class PageSpliterator implements Spliterator<JsonNode> {
+
+        private Iterator<JsonNode> current = Collections.emptyIterator();
+
+        private boolean done;
+
+        @Override
+        public boolean tryAdvance(Consumer<? super JsonNode> action) {
+            while (!current.hasNext()) {
+                if (done) {
+                    return false;
+                }
+                List<JsonNode> page = nextPage();
+                if (page == null) {
+                    done = true;
+                    return false;
+                }
+                current = page.iterator();
+            }
+            action.accept(current.next());
+            return true;
+        }
+
+        @Override
+        public Spliterator<JsonNode> trySplit() {
+            if (current.hasNext()) {
+                //先拆出当前页剩余的结果，保持顺序
+                Spliterator<JsonNode> rest = Spliterators.spliteratorUnknownSize(current, ORDERED | NONNULL);
+                current = Collections.emptyIterator();
+                return rest;
+            }
+            if (done) {
+                return null;
+            }
+            List<JsonNode> page = nextPage();
+            if (page == null) {
+                done = true;
+                return null;
+            }
+            return Spliterators.spliterator(page, ORDERED | NONNULL);
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+}
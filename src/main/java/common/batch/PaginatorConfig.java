@@ -0,0 +1,52 @@
+package common.batch;
+
+import common.RpcRequest;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname PaginatorConfig
+ * @Description 分页遍历配置
+ */
+@Data
+@Builder
+public class PaginatorConfig {
+
+    /**
+     * 请求模板，包含 url、请求方法、Action、Version 等公共参数，分页参数在发送时追加
+     */
+    private RpcRequest request;
+
+    /**
+     * 响应中结果列表的路径，如 InstancesSet[*]
+     */
+    private String itemsPath;
+
+    /**
+     * 分页参数名，如 Marker、NextToken
+     */
+    @Builder.Default
+    private String tokenParamName = "NextToken";
+
+    /**
+     * 下一页分页参数值的计算方式，为空时读取响应中与 tokenParamName 同名的字段
+     */
+    private PageTokenExtractor tokenExtractor;
+
+    /**
+     * 每页数量参数名
+     */
+    @Builder.Default
+    private String pageSizeParamName = "MaxResults";
+
+    /**
+     * 每页数量，为空时不传
+     */
+    private Integer pageSize;
+
+    /**
+     * 预取的最大页数，缓冲区满时暂停预取，直到调用方取走一页
+     */
+    @Builder.Default
+    private Integer maxBufferedPages = 2;
+}
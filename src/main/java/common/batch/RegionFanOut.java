@@ -0,0 +1,155 @@
+package common.batch;
+
+import common.LazyJsonResponse;
+import common.RpcRequest;
+import common.RpcRequestContentModel;
+import common.exception.HttpRequestException;
+import common.http.SdkHttpTransport;
+import common.http.SdkHttpTransports;
+import common.policy.PolicyScheduler;
+import common.utils.RpcRequestClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Classname RegionFanOut
+ * @Description 多机房并发请求：同一请求在各机房并发执行，各机房使用自己的 region 签名，结果按机房合并。
+ * 超过整体截止时间仍未返回的机房标记为超时，不阻塞其他机房的结果
+ */
+@Slf4j
+public class RegionFanOut {
+
+    /**
+     * url 中的机房占位符，如 http://kec.{region}.api.ksyun.com
+     */
+    public static final String REGION_PLACEHOLDER = "{region}";
+
+    private final RpcRequestContentModel template;
+
+    private final SdkHttpTransport transport;
+
+    private final Map<String, RpcRequestClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * @param template 各机房共用的配置，region 按机房替换
+     */
+    public RegionFanOut(RpcRequestContentModel template) {
+        this(template, SdkHttpTransports.apache());
+    }
+
+    public RegionFanOut(RpcRequestContentModel template, SdkHttpTransport transport) {
+        this.template = template;
+        this.transport = transport;
+    }
+
+    /**
+     * 机房对应的客户端，按机房缓存
+     */
+    public RpcRequestClient client(String region) {
+        return clients.computeIfAbsent(region, r -> new RpcRequestClient(template.toBuilder().region(r).build(), transport));
+    }
+
+    /**
+     * 并发请求各机房并等待，最多等待到截止时间
+     *
+     * @param request        请求，url 可包含 {region} 占位符，为空时使用 EndpointRegistry 中各机房登记的 endpoint
+     * @param deadlineMillis 整体截止时间（单位：毫秒），小于等于0表示等待全部机房返回
+     */
+    public FanOutResult execute(RpcRequest request, Collection<String> regions, long deadlineMillis) {
+        return executeAsync(request, regions, deadlineMillis).join();
+    }
+
+    /**
+     * 并发请求各机房，全部返回或到达截止时间时完成，返回的 future 不会异常完成
+     */
+    public CompletableFuture<FanOutResult> executeAsync(RpcRequest request, Collection<String> regions, long deadlineMillis) {
+        long start = System.nanoTime();
+        Map<String, CompletableFuture<LazyJsonResponse>> pending = new LinkedHashMap<>();
+        Map<String, Long> latencies = new ConcurrentHashMap<>();
+        CompletableFuture<FanOutResult> result = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(regions.size());
+        AtomicBoolean finished = new AtomicBoolean();
+        if (regions.isEmpty()) {
+            result.complete(new FanOutResult(new LinkedHashMap<>()));
+            return result;
+        }
+        for (String region : regions) {
+            pending.put(region, send(region, request));
+        }
+        ScheduledFuture<?> deadline = deadlineMillis > 0
+                ? PolicyScheduler.schedule(() -> finish(pending, latencies, start, finished, result), deadlineMillis)
+                : null;
+        pending.forEach((region, future) -> future.whenComplete((response, ex) -> {
+            latencies.put(region, elapsedMillis(start));
+            if (remaining.decrementAndGet() == 0) {
+                if (deadline != null) {
+                    deadline.cancel(false);
+                }
+                finish(pending, latencies, start, finished, result);
+            }
+        }));
+        return result;
+    }
+
+    private CompletableFuture<LazyJsonResponse> send(String region, RpcRequest request) {
+        String url = request.getUrl() == null ? null : request.getUrl().replace(REGION_PLACEHOLDER, region);
+        try {
+            return client(region).beginRpcRequestLazyAsync(url, request.getRequestMethod(), request.getRequestParam(), request.getHead());
+        } catch (RuntimeException e) {
+            CompletableFuture<LazyJsonResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private static void finish(Map<String, CompletableFuture<LazyJsonResponse>> pending, Map<String, Long> latencies, long start,
+                               AtomicBoolean finished, CompletableFuture<FanOutResult> result) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        Map<String, RegionResult<LazyJsonResponse>> results = new LinkedHashMap<>();
+        List<CompletableFuture<LazyJsonResponse>> timedOut = new ArrayList<>();
+        pending.forEach((region, future) -> {
+            RegionResult<LazyJsonResponse> regionResult = new RegionResult<>();
+            regionResult.setRegion(region);
+            regionResult.setLatencyMillis(latencies.getOrDefault(region, elapsedMillis(start)));
+            if (!future.isDone()) {
+                regionResult.setTimedOut(true);
+                timedOut.add(future);
+                log.info("fan out region timed out,region:{}", region);
+            } else {
+                try {
+                    LazyJsonResponse response = future.join();
+                    if (response.hasError()) {
+                        regionResult.setException(new HttpRequestException(response.getErrorCode(), response.getErrorMessage()));
+                    } else {
+                        regionResult.setResponse(response);
+                    }
+                } catch (CompletionException e) {
+                    regionResult.setException(e.getCause() != null ? e.getCause() : e);
+                } catch (RuntimeException e) {
+                    regionResult.setException(e);
+                }
+            }
+            results.put(region, regionResult);
+        });
+        result.complete(new FanOutResult(results));
+        timedOut.forEach(future -> future.cancel(true));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,39 @@
+package common.batch;
+
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * @Classname RegionResult
+ * @Description 多机房并发请求中单个机房的结果
+ */
+@Data
+@ToString
+public class RegionResult<T> {
+
+    private String region;
+
+    /**
+     * 响应，失败或超时时为空
+     */
+    private T response;
+
+    /**
+     * 异常，成功或超时时为空
+     */
+    private Throwable exception;
+
+    /**
+     * 超过整体截止时间仍未返回
+     */
+    private boolean timedOut;
+
+    /**
+     * 耗时（单位：毫秒），超时时为截止前等待的时间
+     */
+    private long latencyMillis;
+
+    public boolean isSuccess() {
+        return exception == null && !timedOut;
+    }
+}
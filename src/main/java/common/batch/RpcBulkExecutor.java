@@ -0,0 +1,155 @@
+package common.batch;
+
+import common.RpcRequest;
+import common.utils.RpcRequestClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * @Classname RpcBulkExecutor
+ * @Description 批量执行 rpc 请求，结果按完成顺序返回。
+ * JDK 21+ 每个请求运行在虚拟线程上，JDK 8 使用有界平台线程池，两者并发数均由 maxConcurrency 限制。
+ * 并发数不超过传输层对同一 endpoint 的上限（Apache 连接池为 maxPerRoute），超出的请求在信号量上等待：
+ * httpcore 4.4 连接池在对象监视器内等待空闲连接，虚拟线程在其中等待会占住载体线程
+ */
+@Slf4j
+public class RpcBulkExecutor implements Closeable {
+
+    private final RpcRequestClient rpcRequestClient;
+
+    private final int maxConcurrency;
+
+    private final Semaphore permits;
+
+    private final ExecutorService executor;
+
+    public RpcBulkExecutor(RpcRequestClient rpcRequestClient, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.rpcRequestClient = rpcRequestClient;
+        this.maxConcurrency = Math.min(maxConcurrency, rpcRequestClient.maxConcurrentRequests());
+        if (this.maxConcurrency < maxConcurrency) {
+            log.info("bulk max concurrency limited by transport,maxConcurrency:{},limit:{}", maxConcurrency, this.maxConcurrency);
+        }
+        this.permits = new Semaphore(this.maxConcurrency);
+        this.executor = BulkExecutors.newExecutor(this.maxConcurrency);
+    }
+
+    /**
+     * 实际生效的最大并发数
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * 批量执行，结果按完成顺序返回
+     *
+     * @param requests 请求集合
+     * @return 结果迭代器，next 阻塞直到下一个请求完成
+     */
+    public Iterator<BulkResult<String>> execute(Collection<RpcRequest> requests) {
+        return execute(requests, request -> rpcRequestClient.beginRpcRequest(request.getUrl(),
+                request.getRequestMethod(), request.getRequestParam(), request.getHead()));
+    }
+
+    /**
+     * 批量执行，结果按完成顺序返回
+     *
+     * @param requests 请求集合
+     * @param call     单个请求的执行方式
+     * @return 结果迭代器，next 阻塞直到下一个请求完成
+     */
+    public <T> Iterator<BulkResult<T>> execute(Collection<RpcRequest> requests, Function<RpcRequest, T> call) {
+        BlockingQueue<BulkResult<T>> completed = new LinkedBlockingQueue<>();
+        int index = 0;
+        for (RpcRequest request : requests) {
+            final int current = index++;
+            executor.execute(() -> completed.add(run(current, request, call)));
+        }
+        return new CompletionIterator<>(completed, index);
+    }
+
+    /**
+     * 批量执行并等待全部完成，结果按完成顺序排列
+     */
+    public List<BulkResult<String>> executeAll(Collection<RpcRequest> requests) {
+        List<BulkResult<String>> results = new ArrayList<>(requests.size());
+        execute(requests).forEachRemaining(results::add);
+        return results;
+    }
+
+    private <T> BulkResult<T> run(int index, RpcRequest request, Function<RpcRequest, T> call) {
+        BulkResult<T> result = new BulkResult<>();
+        result.setIndex(index);
+        result.setRequest(request);
+        long start = System.nanoTime();
+        try {
+            permits.acquire();
+            try {
+                start = System.nanoTime();
+                result.setResponse(call.apply(request));
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.setException(e);
+        } catch (Throwable e) {
+            //Error 也要产生结果，否则迭代器会一直等待
+            log.info("bulk rpc request occur exception:{}", e.getMessage());
+            result.setException(e);
+        }
+        result.setLatencyMillis((System.nanoTime() - start) / 1000000L);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static class CompletionIterator<T> implements Iterator<BulkResult<T>> {
+
+        private final BlockingQueue<BulkResult<T>> completed;
+
+        private int remaining;
+
+        CompletionIterator(BlockingQueue<BulkResult<T>> completed, int total) {
+            this.completed = completed;
+            this.remaining = total;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public BulkResult<T> next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            try {
+                BulkResult<T> result = completed.take();
+                remaining--;
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for bulk result", e);
+            }
+        }
+    }
+}
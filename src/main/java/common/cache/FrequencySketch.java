@@ -0,0 +1,74 @@
+package common.cache;
+
+/**
+ * @Classname FrequencySketch
+ * @Description Count-Min Sketch 估算 key 的近期访问频率，计数上限15；累计增加次数达到 10 倍宽度时全部减半，使频率随时间衰减。
+ * 非线程安全，由调用方加锁
+ */
+final class FrequencySketch {
+
+    private static final int[] SEEDS = {0x97cb3127, 0xc2b2ae35, 0x85ebca6b, 0x27d4eb2f};
+
+    private static final int MAX_COUNT = 15;
+
+    private final int[][] table;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    /**
+     * @param expectedEntries 预计条目数，决定每行计数器个数
+     */
+    FrequencySketch(long expectedEntries) {
+        int width = Integer.highestOneBit((int) Math.max(256, Math.min(1 << 20, expectedEntries)) * 2 - 1);
+        this.table = new int[SEEDS.length][width];
+        this.mask = width - 1;
+        this.sampleSize = width * 10;
+    }
+
+    void increment(String key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hash, i);
+            if (table[i][index] < MAX_COUNT) {
+                table[i][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            frequency = Math.min(frequency, table[i][indexOf(hash, i)]);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (int[] row : table) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash + SEEDS[row]) * SEEDS[row];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
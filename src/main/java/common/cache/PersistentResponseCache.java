@@ -0,0 +1,595 @@
+package common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * @Classname PersistentResponseCache
+ * @Description 持久化响应缓存，作为 ResponseCache 的二级缓存，进程重启后仍可命中。
+ * 响应追加写入内存映射文件，按请求 key 的 SHA-256 建立内存索引，记录带过期时间；失效通过追加删除记录实现。
+ * 同一主机上的多个进程共享同一组文件：写入与压缩持有文件锁，读取时先追上其他进程追加的记录。
+ * 压缩把有效记录写入新一代文件并切换，由后台线程按垃圾比例触发。任何 IO 异常只记录日志并视为未命中。
+ * 目录与文件只允许当前用户访问，目录不属于当前用户时拒绝打开
+ */
+@Slf4j
+public class PersistentResponseCache implements Closeable {
+
+    private static final ScheduledExecutorService COMPACTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ksyun-cache-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 同一 JVM 内同一组文件只打开一次，文件锁只能在进程间互斥
+     */
+    private static final Map<String, PersistentResponseCache> OPENED = new ConcurrentHashMap<>();
+
+    private static final int MAGIC = 0x4b535243;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = 64;
+
+    private static final int VERSION_OFFSET = 4;
+
+    private static final int WRITE_POSITION_OFFSET = 8;
+
+    private static final int HASH_BYTES = 32;
+
+    /**
+     * 记录：长度(4) crc(4) 类型(1) 过期时间(8) key 摘要(32) scope 摘要(32) action 长度(2) action 响应体长度(4) 响应体
+     */
+    private static final int RECORD_FIXED_BYTES = 4 + 4 + 1 + 8 + HASH_BYTES + HASH_BYTES + 2 + 4;
+
+    private static final byte PUT = 1;
+
+    private static final byte REMOVE = 2;
+
+    private static final byte REMOVE_SCOPE = 3;
+
+    private static final byte[] EMPTY_HASH = new byte[HASH_BYTES];
+
+    /**
+     * 切换到新一代文件时，旧文件已被其他进程删除的重试次数
+     */
+    private static final int MAX_SYNC_ATTEMPTS = 3;
+
+    private final String path;
+
+    private final Path directory;
+
+    private final String name;
+
+    private final int capacity;
+
+    private final double garbageRatio;
+
+    private final FileChannel metaChannel;
+
+    /**
+     * 保护索引与映射，持有期间会读写文件、等待文件锁；不使用对象监视器，虚拟线程等待时不会占住载体线程
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 新建文件的权限，仅当前用户可读写；不支持 POSIX 权限的文件系统为空
+     */
+    private final FileAttribute<?>[] fileAttributes;
+
+    private final ScheduledFuture<?> compactionTask;
+
+    private long generation = -1;
+
+    private MappedByteBuffer data;
+
+    /**
+     * 索引已覆盖到的文件位置
+     */
+    private int scanned;
+
+    private final Map<String, Location> index = new HashMap<>();
+
+    /**
+     * 打开或复用缓存文件
+     *
+     * @throws IOException 目录无法创建或不属于当前用户
+     */
+    public static PersistentResponseCache open(PersistentResponseCacheConfig config) throws IOException {
+        String directory = config.getDirectory() != null ? config.getDirectory()
+                : System.getProperty("user.home") + File.separator + ".ksyun" + File.separator + "response-cache";
+        String path = new File(directory, config.getName()).getCanonicalPath();
+        synchronized (OPENED) {
+            PersistentResponseCache opened = OPENED.get(path);
+            if (opened == null) {
+                opened = new PersistentResponseCache(path, Paths.get(directory), config);
+                OPENED.put(path, opened);
+            }
+            return opened;
+        }
+    }
+
+    private PersistentResponseCache(String path, Path directory, PersistentResponseCacheConfig config) throws IOException {
+        this.path = path;
+        this.directory = directory;
+        this.name = config.getName();
+        this.capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(HEADER_BYTES * 16L, config.getMaxFileBytes()));
+        this.garbageRatio = config.getCompactionGarbageRatio();
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        this.fileAttributes = posix ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))}
+                : new FileAttribute<?>[0];
+        prepareDirectory(directory, posix);
+        this.metaChannel = openFile(directory.resolve(name + ".meta"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long interval = config.getCompactionIntervalMillis();
+        this.compactionTask = COMPACTOR.scheduleWithFixedDelay(this::compactIfNeeded, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 不存在时创建仅当前用户可访问的目录；已存在时须属于当前用户，避免读取或写入他人可控的缓存文件
+     */
+    private static void prepareDirectory(Path directory, boolean posix) throws IOException {
+        if (!posix) {
+            Files.createDirectories(directory);
+            return;
+        }
+        if (Files.notExists(directory)) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        }
+        UserPrincipal owner = Files.getOwner(directory);
+        UserPrincipal current = directory.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(current)) {
+            throw new IOException("persistent cache directory is not owned by current user:" + directory + ",owner:" + owner.getName());
+        }
+    }
+
+    /**
+     * @return 未命中或已过期时返回 null
+     */
+    public CachedBody get(String key) {
+        lock.lock();
+        try {
+            //不持有文件锁，其他进程尚未创建文件时视为未命中
+            if (!sync(false)) {
+                return null;
+            }
+            Location location = index.get(digestHex(key));
+            if (location == null || location.expiresAt <= System.currentTimeMillis()) {
+                return null;
+            }
+            byte[] body = new byte[location.bodyLength];
+            ByteBuffer buffer = data.duplicate();
+            buffer.position(location.bodyOffset);
+            buffer.get(body);
+            return new CachedBody(body, location.expiresAt);
+        } catch (IOException e) {
+            log.warn("persistent cache read failed,path:{}", path, e);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写入响应，超过文件容量四分之一的响应不写入
+     */
+    public void put(String key, String scope, String action, byte[] body, long expiresAt) {
+        if (body.length > capacity / 4) {
+            return;
+        }
+        append(record(PUT, expiresAt, digest(key), digest(scope), action, body));
+    }
+
+    public void invalidate(String key) {
+        append(record(REMOVE, 0, digest(key), EMPTY_HASH, "", new byte[0]));
+    }
+
+    /**
+     * 失效范围内的记录
+     *
+     * @param actions 为空时失效范围内全部记录
+     */
+    public void invalidate(String scope, Collection<String> actions) {
+        byte[] scopeDigest = digest(scope);
+        if (actions == null) {
+            append(record(REMOVE_SCOPE, 0, EMPTY_HASH, scopeDigest, "", new byte[0]));
+            return;
+        }
+        for (String action : actions) {
+            append(record(REMOVE_SCOPE, 0, EMPTY_HASH, scopeDigest, action, new byte[0]));
+        }
+    }
+
+    /**
+     * 清空缓存，切换到新的空文件
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            FileLock fileLock = metaChannel.lock();
+            try {
+                sync(true);
+                rewrite(false);
+            } finally {
+                fileLock.release();
+            }
+        } catch (IOException e) {
+            log.warn("persistent cache clear failed,path:{}", path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(ByteBuffer record) {
+        lock.lock();
+        try {
+            FileLock fileLock = metaChannel.lock();
+            try {
+                sync(true);
+                int position = writePosition();
+                if (position + record.remaining() > capacity) {
+                    rewrite(true);
+                    position = writePosition();
+                    if (position + record.remaining() > capacity) {
+                        log.info("persistent cache is full,path:{}", path);
+                        return;
+                    }
+                }
+                if (data.getInt(0) != MAGIC) {
+                    data.putInt(0, MAGIC);
+                    data.putInt(VERSION_OFFSET, FORMAT_VERSION);
+                }
+                ByteBuffer target = data.duplicate();
+                target.position(position);
+                target.put(record);
+                //记录写完后再推进写入位置，其他进程只读取写入位置之前的记录
+                data.putInt(WRITE_POSITION_OFFSET, position + record.limit());
+                catchUp();
+            } finally {
+                fileLock.release();
+            }
+        } catch (IOException e) {
+            log.warn("persistent cache write failed,path:{}", path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 切换到其他进程压缩后的新文件，并读取其他进程追加的记录
+     *
+     * @param locked 是否持有文件锁，只有持有时才创建尚不存在的文件；未持有时当前代文件可能刚被压缩删除，重新读取代数后重试
+     * @return 未持有文件锁且当前代文件不存在时返回 false
+     */
+    private boolean sync(boolean locked) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            long current = readGeneration();
+            if (current == generation && data != null) {
+                break;
+            }
+            MappedByteBuffer mapped;
+            try {
+                mapped = map(dataPath(current), locked);
+            } catch (NoSuchFileException e) {
+                if (attempt < MAX_SYNC_ATTEMPTS && readGeneration() != current) {
+                    continue;
+                }
+                return false;
+            }
+            data = mapped;
+            generation = current;
+            index.clear();
+            scanned = HEADER_BYTES;
+            break;
+        }
+        catchUp();
+        return true;
+    }
+
+    private MappedByteBuffer map(Path file, boolean create) throws IOException {
+        OpenOption[] options = create
+                ? new OpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new OpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = openFile(file, options)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    private FileChannel openFile(Path file, OpenOption... options) throws IOException {
+        return FileChannel.open(file, new HashSet<>(Arrays.asList(options)), fileAttributes);
+    }
+
+    private void catchUp() {
+        int end = writePosition();
+        while (scanned < end) {
+            int length = data.getInt(scanned);
+            if (length < RECORD_FIXED_BYTES - 4 || scanned + 4 + length > end || !verify(scanned, length)) {
+                log.warn("persistent cache record is corrupted,path:{},offset:{}", path, scanned);
+                scanned = end;
+                return;
+            }
+            apply(scanned, length);
+            scanned += 4 + length;
+        }
+    }
+
+    private boolean verify(int offset, int length) {
+        ByteBuffer buffer = data.duplicate();
+        buffer.position(offset + 8);
+        buffer.limit(offset + 4 + length);
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return (int) crc.getValue() == data.getInt(offset + 4);
+    }
+
+    private void apply(int offset, int length) {
+        int position = offset + 8;
+        byte type = data.get(position);
+        long expiresAt = data.getLong(position + 1);
+        String keyHex = hex(position + 9);
+        String scopeHex = hex(position + 9 + HASH_BYTES);
+        int actionOffset = position + 9 + 2 * HASH_BYTES;
+        int actionLength = data.getShort(actionOffset);
+        byte[] action = new byte[actionLength];
+        ByteBuffer buffer = data.duplicate();
+        buffer.position(actionOffset + 2);
+        buffer.get(action);
+        String actionName = new String(action, StandardCharsets.UTF_8);
+        int bodyLengthOffset = actionOffset + 2 + actionLength;
+        switch (type) {
+            case PUT:
+                index.put(keyHex, new Location(offset, 4 + length, expiresAt, scopeHex, actionName,
+                        bodyLengthOffset + 4, data.getInt(bodyLengthOffset)));
+                break;
+            case REMOVE:
+                index.remove(keyHex);
+                break;
+            case REMOVE_SCOPE:
+                index.values().removeIf(location -> location.scopeHex.equals(scopeHex)
+                        && (actionName.isEmpty() || actionName.equals(location.action)));
+                break;
+            default:
+                log.warn("persistent cache record type is unknown,path:{},offset:{}", path, offset);
+        }
+    }
+
+    private void compactIfNeeded() {
+        lock.lock();
+        try {
+            if (!sync(false)) {
+                return;
+            }
+            long used = writePosition() - HEADER_BYTES;
+            long now = System.currentTimeMillis();
+            long live = 0;
+            for (Location location : index.values()) {
+                if (location.expiresAt > now) {
+                    live += location.length;
+                }
+            }
+            if (used == 0 || used - live < used * garbageRatio) {
+                return;
+            }
+            FileLock fileLock = metaChannel.lock();
+            try {
+                sync(true);
+                rewrite(true);
+            } finally {
+                fileLock.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("persistent cache compaction failed,path:{}", path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写入新一代文件并切换，调用方持有文件锁
+     *
+     * @param keepLive 是否保留未过期的记录
+     */
+    private void rewrite(boolean keepLive) throws IOException {
+        long next = generation + 1;
+        Path nextPath = dataPath(next);
+        Files.deleteIfExists(nextPath);
+        int position = HEADER_BYTES;
+        try (FileChannel channel = openFile(nextPath,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            target.putInt(0, MAGIC);
+            target.putInt(VERSION_OFFSET, FORMAT_VERSION);
+            if (keepLive) {
+                long now = System.currentTimeMillis();
+                for (Location location : index.values()) {
+                    if (location.expiresAt <= now) {
+                        continue;
+                    }
+                    ByteBuffer source = data.duplicate();
+                    source.position(location.offset);
+                    source.limit(location.offset + location.length);
+                    target.position(position);
+                    target.put(source);
+                    position += location.length;
+                }
+            }
+            target.putInt(WRITE_POSITION_OFFSET, position);
+        }
+        int before = writePosition();
+        Path previous = dataPath(generation);
+        writeGeneration(next);
+        sync(true);
+        Files.deleteIfExists(previous);
+        log.info("persistent cache compacted,path:{},bytes:{}->{}", path, before, position);
+    }
+
+    private int writePosition() {
+        return data.getInt(0) == MAGIC ? data.getInt(WRITE_POSITION_OFFSET) : HEADER_BYTES;
+    }
+
+    private long readGeneration() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        while (buffer.hasRemaining()) {
+            if (metaChannel.read(buffer, buffer.position()) < 0) {
+                return 0;
+            }
+        }
+        buffer.flip();
+        return buffer.getLong();
+    }
+
+    private void writeGeneration(long next) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putLong(next).flip();
+        while (buffer.hasRemaining()) {
+            metaChannel.write(buffer, buffer.position());
+        }
+    }
+
+    private Path dataPath(long generation) {
+        return directory.resolve(name + "." + generation + ".data");
+    }
+
+    private String hex(int offset) {
+        StringBuilder builder = new StringBuilder(HASH_BYTES * 2);
+        for (int i = 0; i < HASH_BYTES; i++) {
+            int b = data.get(offset + i) & 0xff;
+            builder.append(Character.forDigit(b >>> 4, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+
+    private static ByteBuffer record(byte type, long expiresAt, byte[] keyDigest, byte[] scopeDigest, String action, byte[] body) {
+        byte[] actionBytes = action == null ? new byte[0] : action.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_FIXED_BYTES + actionBytes.length + body.length);
+        buffer.putInt(buffer.capacity() - 4)
+                .putInt(0)
+                .put(type)
+                .putLong(expiresAt)
+                .put(keyDigest)
+                .put(scopeDigest)
+                .putShort((short) actionBytes.length)
+                .put(actionBytes)
+                .putInt(body.length)
+                .put(body);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 8, buffer.capacity() - 8);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] digest(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String digestHex(String value) {
+        StringBuilder builder = new StringBuilder(HASH_BYTES * 2);
+        for (byte b : digest(value)) {
+            builder.append(Character.forDigit((b >>> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactionTask.cancel(false);
+        OPENED.remove(path, this);
+        lock.lock();
+        try {
+            metaChannel.close();
+            data = null;
+            index.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 命中的响应体与过期时间
+     */
+    public static class CachedBody {
+
+        private final byte[] body;
+
+        private final long expiresAt;
+
+        CachedBody(byte[] body, long expiresAt) {
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    private static class Location {
+        private final int offset;
+        private final int length;
+        private final long expiresAt;
+        private final String scopeHex;
+        private final String action;
+        private final int bodyOffset;
+        private final int bodyLength;
+
+        Location(int offset, int length, long expiresAt, String scopeHex, String action, int bodyOffset, int bodyLength) {
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+            this.scopeHex = scopeHex;
+            this.action = action;
+            this.bodyOffset = bodyOffset;
+            this.bodyLength = bodyLength;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package common.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname PersistentResponseCacheConfig
+ * @Description 持久化响应缓存配置，同一目录与名称的缓存文件可被同一主机上的多个进程共享
+ */
+@Data
+@Builder
+public class PersistentResponseCacheConfig {
+
+    /**
+     * 缓存文件目录，为空时使用当前用户的 user.home/.ksyun/response-cache。目录须属于当前用户，新建的目录与文件仅当前用户可访问
+     */
+    private String directory;
+
+    /**
+     * 缓存文件名前缀
+     */
+    @Builder.Default
+    private String name = "responses";
+
+    /**
+     * 单个缓存文件的映射大小（单位：字节），写满时先压缩，压缩后仍不足则放弃写入
+     */
+    @Builder.Default
+    private Long maxFileBytes = 256L * 1024 * 1024;
+
+    /**
+     * 后台检查是否需要压缩的间隔（单位：毫秒）
+     */
+    @Builder.Default
+    private Long compactionIntervalMillis = 60000L;
+
+    /**
+     * 已过期、已失效或被覆盖的记录占已用空间的比例达到该值时压缩
+     */
+    @Builder.Default
+    private Double compactionGarbageRatio = 0.5;
+
+    public static PersistentResponseCacheConfig defaultConfig() {
+        return PersistentResponseCacheConfig.builder().build();
+    }
+}
@@ -0,0 +1,485 @@
+package common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * @Classname ResponseCache
+ * @Description 只读请求的响应缓存，缓存成功响应的响应体字节，命中时各调用方各自解析。
+ * 按字节数限制容量，淘汰采用 W-TinyLFU：新条目先进入占容量1%的 LRU 窗口，被挤出窗口时与主区的 LRU 淘汰候选比较近期访问频率，频率更高者留下。
+ * 热点条目在过期前由后台提前刷新，调用方不必等待重新加载。
+ * 每次失效递增对应范围的代数，加载开始前读取代数、写回时比较，加载期间发生过失效的结果不写入，避免旧响应覆盖失效。
+ * 可选的二级缓存 PersistentResponseCache 在一级缓存未命中时查询，命中后放回一级缓存；写入与失效同时作用于两级，
+ * 失效时先失效二级缓存再失效一级缓存，读取二级缓存期间发生过失效的结果不放回一级缓存
+ */
+@Slf4j
+public class ResponseCache {
+
+    /**
+     * 估算每个条目 key 与元数据的额外开销
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /**
+     * 估算 sketch 宽度时使用的平均条目大小
+     */
+    private static final int AVERAGE_ENTRY_BYTES = 4096;
+
+    private final ResponseCacheConfig config;
+
+    private final long maxWindowBytes;
+
+    private final long maxMainBytes;
+
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final FrequencySketch sketch;
+
+    private long windowBytes;
+
+    private long mainBytes;
+
+    /**
+     * 失效计数，每次失效递增
+     */
+    private long generation;
+
+    /**
+     * 最近一次按 key 失效或全部失效时的代数
+     */
+    private long clearedGeneration;
+
+    /**
+     * 范围最近一次失效时的代数
+     */
+    private final Map<String, Long> scopeGenerations = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private final LongAdder refreshes = new LongAdder();
+
+    private final LongAdder secondLevelHits = new LongAdder();
+
+    /**
+     * 二级缓存，为空时只使用内存
+     */
+    private final PersistentResponseCache secondLevel;
+
+    /**
+     * 写入与失效两级缓存时持有，避免写入二级缓存的旧响应落在失效之后
+     */
+    private final ReentrantLock secondLevelLock = new ReentrantLock();
+
+    public ResponseCache() {
+        this(ResponseCacheConfig.defaultConfig());
+    }
+
+    public ResponseCache(ResponseCacheConfig config) {
+        this(config, null);
+    }
+
+    public ResponseCache(ResponseCacheConfig config, PersistentResponseCache secondLevel) {
+        this.config = config;
+        this.secondLevel = secondLevel;
+        this.maxWindowBytes = Math.max(1L, config.getMaxBytes() / 100);
+        this.maxMainBytes = Math.max(1L, config.getMaxBytes() - maxWindowBytes);
+        this.sketch = new FrequencySketch(config.getMaxBytes() / AVERAGE_ENTRY_BYTES);
+    }
+
+    public ResponseCacheConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * action 是否可缓存
+     */
+    public boolean isCacheable(String action) {
+        return config.isCacheable(action);
+    }
+
+    /**
+     * 查询缓存，命中的热点条目接近过期时调用 refresher 在后台重新加载，加载结果由调用方通过 put 写回
+     *
+     * @param scope     与 action 一起用于二级缓存命中后放回一级缓存
+     * @param refresher 重新加载，返回的 future 完成表示本次刷新结束
+     * @return 未命中或已过期时返回 null
+     */
+    public byte[] get(String key, String scope, String action, Supplier<? extends CompletableFuture<?>> refresher) {
+        Entry entry;
+        boolean refresh = false;
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            sketch.increment(key);
+            entry = window.get(key);
+            if (entry == null) {
+                entry = main.get(key);
+            }
+            if (entry != null && now >= entry.expiresAt) {
+                remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+            } else {
+                hits.increment();
+                entry.hits++;
+                if (refresher != null && !entry.refreshing && shouldRefresh(entry, now)) {
+                    entry.refreshing = true;
+                    refresh = true;
+                }
+            }
+        }
+        if (entry == null) {
+            return getSecondLevel(key, scope, action);
+        }
+        if (refresh) {
+            refresh(entry, refresher);
+        }
+        return entry.body;
+    }
+
+    /**
+     * 查询二级缓存，命中时按剩余时间放回一级缓存
+     */
+    private byte[] getSecondLevel(String key, String scope, String action) {
+        if (secondLevel == null) {
+            return null;
+        }
+        long generation = generation(scope);
+        PersistentResponseCache.CachedBody cached = secondLevel.get(key);
+        if (cached == null) {
+            return null;
+        }
+        secondLevelHits.increment();
+        store(key, scope, action, cached.getBody(), System.currentTimeMillis(), cached.getExpiresAt(), generation);
+        return cached.getBody();
+    }
+
+    private boolean shouldRefresh(Entry entry, long now) {
+        Double ratio = config.getRefreshAheadRatio();
+        if (ratio == null || ratio <= 0 || ratio >= 1 || entry.hits < config.getRefreshAheadMinHits()) {
+            return false;
+        }
+        return now >= entry.loadedAt + (long) ((entry.expiresAt - entry.loadedAt) * ratio);
+    }
+
+    private void refresh(Entry entry, Supplier<? extends CompletableFuture<?>> refresher) {
+        refreshes.increment();
+        log.info("response cache refresh ahead,key:{}", entry.key);
+        CompletableFuture<?> future;
+        try {
+            future = refresher.get();
+        } catch (RuntimeException e) {
+            log.warn("response cache refresh failed,key:{}", entry.key, e);
+            entry.refreshing = false;
+            return;
+        }
+        future.whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.info("response cache refresh failed,key:{},cause:{}", entry.key, ex.getMessage());
+            }
+            //刷新成功时旧条目已被替换，失败时允许下次访问再次刷新
+            entry.refreshing = false;
+        });
+    }
+
+    /**
+     * 范围当前的失效代数，加载前读取并在写回时传给 put
+     *
+     * @param scope 失效范围，如 service/region/ak
+     */
+    public synchronized long generation(String scope) {
+        Long scopeGeneration = scopeGenerations.get(scope);
+        return scopeGeneration == null ? clearedGeneration : Math.max(clearedGeneration, scopeGeneration);
+    }
+
+    /**
+     * 写入成功响应的响应体，不检查失效代数
+     *
+     * @param scope  失效范围，如 service/region/ak
+     * @param action 决定缓存时间
+     */
+    public void put(String key, String scope, String action, byte[] body) {
+        put(key, scope, action, body, generation(scope));
+    }
+
+    /**
+     * 写入成功响应的响应体，加载期间范围被失效过时不写入
+     *
+     * @param scope      失效范围，如 service/region/ak
+     * @param action     决定缓存时间
+     * @param generation 加载开始前 generation(scope) 的返回值
+     */
+    public void put(String key, String scope, String action, byte[] body, long generation) {
+        long ttl = config.ttlMillis(action);
+        if (ttl <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lockSecondLevel();
+        try {
+            if (store(key, scope, action, body, now, now + ttl, generation) && secondLevel != null) {
+                secondLevel.put(key, scope, action, body, now + ttl);
+            }
+        } finally {
+            unlockSecondLevel();
+        }
+    }
+
+    /**
+     * @return 加载期间范围被失效过、未写入时返回 false
+     */
+    private boolean store(String key, String scope, String action, byte[] body, long now, long expiresAt, long generation) {
+        long weight = weigh(key, body);
+        Entry entry = new Entry(key, scope, action, body, weight, now, expiresAt);
+        synchronized (this) {
+            if (generation(scope) != generation) {
+                log.info("response cache skip stale response,key:{}", key);
+                return false;
+            }
+            if (weight > maxMainBytes) {
+                return true;
+            }
+            Entry existing = main.get(key);
+            if (existing != null) {
+                //已在主区的条目原地替换，保留其位置
+                mainBytes += weight - existing.weight;
+                main.put(key, entry);
+                evictMain();
+                return true;
+            }
+            remove(key);
+            window.put(key, entry);
+            windowBytes += weight;
+            while (windowBytes > maxWindowBytes && !window.isEmpty()) {
+                Iterator<Entry> iterator = window.values().iterator();
+                Entry candidate = iterator.next();
+                iterator.remove();
+                windowBytes -= candidate.weight;
+                admit(candidate, now);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 窗口挤出的条目进入主区，主区空间不足时与主区的 LRU 条目比较访问频率，频率不高于被淘汰者时放弃写入
+     */
+    private void admit(Entry candidate, long now) {
+        Iterator<Entry> victims = main.values().iterator();
+        while (mainBytes + candidate.weight > maxMainBytes && victims.hasNext()) {
+            Entry victim = victims.next();
+            boolean expired = now >= victim.expiresAt;
+            if (!expired && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                evictions.increment();
+                return;
+            }
+            victims.remove();
+            mainBytes -= victim.weight;
+            if (expired) {
+                expirations.increment();
+            } else {
+                evictions.increment();
+            }
+        }
+        if (mainBytes + candidate.weight > maxMainBytes) {
+            evictions.increment();
+            return;
+        }
+        main.put(candidate.key, candidate);
+        mainBytes += candidate.weight;
+    }
+
+    private void evictMain() {
+        Iterator<Entry> iterator = main.values().iterator();
+        while (mainBytes > maxMainBytes && iterator.hasNext()) {
+            Entry victim = iterator.next();
+            iterator.remove();
+            mainBytes -= victim.weight;
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 写操作成功后失效相关条目：匹配 invalidationRules 时失效同一范围内列出的 action，否则按 invalidateScopeOnMutation 失效整个范围
+     */
+    public void onMutation(String scope, String action) {
+        Set<String> related = action == null ? null : config.getInvalidationRules().get(action);
+        if (related != null) {
+            invalidate(scope, related);
+        } else if (Boolean.TRUE.equals(config.getInvalidateScopeOnMutation())) {
+            invalidate(scope, null);
+        }
+    }
+
+    /**
+     * 失效范围内的条目，范围内进行中的加载都不再写回
+     *
+     * @param actions 为空时失效范围内全部条目
+     */
+    public void invalidate(String scope, Collection<String> actions) {
+        lockSecondLevel();
+        try {
+            if (secondLevel != null) {
+                secondLevel.invalidate(scope, actions);
+            }
+            synchronized (this) {
+                scopeGenerations.put(scope, ++generation);
+                invalidate(window, scope, actions);
+                invalidate(main, scope, actions);
+            }
+        } finally {
+            unlockSecondLevel();
+        }
+    }
+
+    private void invalidate(Map<String, Entry> region, String scope, Collection<String> actions) {
+        Iterator<Entry> iterator = region.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.scope.equals(scope) && (actions == null || actions.contains(entry.action))) {
+                iterator.remove();
+                release(region, entry);
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * 失效单个条目，无法确定范围，进行中的加载都不再写回
+     */
+    public void invalidate(String key) {
+        lockSecondLevel();
+        try {
+            if (secondLevel != null) {
+                secondLevel.invalidate(key);
+            }
+            synchronized (this) {
+                clearGenerations();
+                if (remove(key) != null) {
+                    invalidations.increment();
+                }
+            }
+        } finally {
+            unlockSecondLevel();
+        }
+    }
+
+    public void invalidateAll() {
+        lockSecondLevel();
+        try {
+            if (secondLevel != null) {
+                secondLevel.invalidateAll();
+            }
+            synchronized (this) {
+                clearGenerations();
+                invalidations.add(window.size() + main.size());
+                window.clear();
+                main.clear();
+                windowBytes = 0;
+                mainBytes = 0;
+            }
+        } finally {
+            unlockSecondLevel();
+        }
+    }
+
+    private void lockSecondLevel() {
+        if (secondLevel != null) {
+            secondLevelLock.lock();
+        }
+    }
+
+    private void unlockSecondLevel() {
+        if (secondLevel != null) {
+            secondLevelLock.unlock();
+        }
+    }
+
+    public synchronized ResponseCacheStats getStats() {
+        return ResponseCacheStats.builder()
+                .hitCount(hits.sum())
+                .missCount(misses.sum())
+                .evictionCount(evictions.sum())
+                .expirationCount(expirations.sum())
+                .invalidationCount(invalidations.sum())
+                .refreshCount(refreshes.sum())
+                .secondLevelHitCount(secondLevelHits.sum())
+                .entryCount(window.size() + main.size())
+                .weightedBytes(windowBytes + mainBytes)
+                .build();
+    }
+
+    private void clearGenerations() {
+        clearedGeneration = ++generation;
+        scopeGenerations.clear();
+    }
+
+    private Entry remove(String key) {
+        Entry entry = window.remove(key);
+        if (entry != null) {
+            windowBytes -= entry.weight;
+            return entry;
+        }
+        entry = main.remove(key);
+        if (entry != null) {
+            mainBytes -= entry.weight;
+        }
+        return entry;
+    }
+
+    private void release(Map<String, Entry> region, Entry entry) {
+        if (region == window) {
+            windowBytes -= entry.weight;
+        } else {
+            mainBytes -= entry.weight;
+        }
+    }
+
+    private static long weigh(String key, byte[] body) {
+        return body.length + 2L * key.length() + ENTRY_OVERHEAD;
+    }
+
+    private static class Entry {
+        private final String key;
+        private final String scope;
+        private final String action;
+        private final byte[] body;
+        private final long weight;
+        private final long loadedAt;
+        private final long expiresAt;
+        private int hits;
+        private volatile boolean refreshing;
+
+        Entry(String key, String scope, String action, byte[] body, long weight, long loadedAt, long expiresAt) {
+            this.key = key;
+            this.scope = scope;
+            this.action = action;
+            this.body = body;
+            this.weight = weight;
+            this.loadedAt = loadedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package common.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Classname ResponseCacheConfig
+ * @Description 响应缓存配置，按响应体字节数限制容量，按 action 设置 TTL
+ */
+@Data
+@Builder
+public class ResponseCacheConfig {
+
+    /**
+     * 缓存容量（单位：字节），按响应体与 key 的大小估算
+     */
+    @Builder.Default
+    private Long maxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 默认缓存时间（单位：毫秒）
+     */
+    @Builder.Default
+    private Long ttlMillis = 10000L;
+
+    /**
+     * 按 action 覆盖 ttlMillis，小于等于0表示该 action 不缓存
+     */
+    @Builder.Default
+    private Map<String, Long> actionTtlMillis = new HashMap<>();
+
+    /**
+     * 可缓存的 action 前缀
+     */
+    @Builder.Default
+    private Set<String> cacheableActionPrefixes = new HashSet<>(Arrays.asList("Describe", "Get", "List"));
+
+    /**
+     * 缓存时间过去该比例后，被再次访问的热点条目在后台提前刷新；小于等于0或大于等于1时不提前刷新
+     */
+    @Builder.Default
+    private Double refreshAheadRatio = 0.8;
+
+    /**
+     * 条目加载后被访问达到该次数才视为热点，提前刷新
+     */
+    @Builder.Default
+    private Integer refreshAheadMinHits = 2;
+
+    /**
+     * 写操作成功后失效的 action：写操作 action -> 需要失效的读操作 action
+     */
+    @Builder.Default
+    private Map<String, Set<String>> invalidationRules = new HashMap<>();
+
+    /**
+     * 写操作没有匹配的 invalidationRules 时，是否失效同一 service/region/ak 下的全部条目
+     */
+    @Builder.Default
+    private Boolean invalidateScopeOnMutation = true;
+
+    public static ResponseCacheConfig defaultConfig() {
+        return ResponseCacheConfig.builder().build();
+    }
+
+    /**
+     * action 对应的缓存时间
+     */
+    public long ttlMillis(String action) {
+        Long ttl = action == null ? null : actionTtlMillis.get(action);
+        return ttl != null ? ttl : ttlMillis;
+    }
+
+    /**
+     * action 是否可缓存
+     */
+    public boolean isCacheable(String action) {
+        if (action == null || ttlMillis(action) <= 0) {
+            return false;
+        }
+        for (String prefix : cacheableActionPrefixes) {
+            if (action.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+package common.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname ResponseCacheStats
+ * @Description 响应缓存统计快照
+ */
+@Data
+@Builder
+public class ResponseCacheStats {
+
+    private long hitCount;
+
+    /**
+     * 一级缓存未命中次数，其中二级缓存命中的次数见 secondLevelHitCount
+     */
+    private long missCount;
+
+    private long secondLevelHitCount;
+
+    /**
+     * 容量不足时淘汰或拒绝写入的条目数
+     */
+    private long evictionCount;
+
+    private long expirationCount;
+
+    private long invalidationCount;
+
+    /**
+     * 后台提前刷新次数
+     */
+    private long refreshCount;
+
+    private long entryCount;
+
+    /**
+     * 当前占用的估算字节数
+     */
+    private long weightedBytes;
+
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+}
@@ -0,0 +1,16 @@
+package common.constant;
+
+/**
+ * @Classname RequestPriorityEnum
+ * @Description 调用优先级，舱壁排队时优先放行高优先级的调用，过载时优先拒绝低优先级的调用。按优先级从高到低排列
+ */
+public enum RequestPriorityEnum {
+    /**
+     * 面向用户的交互式调用
+     */
+    INTERACTIVE,
+    /**
+     * 后台批量任务，如对账、巡检
+     */
+    BATCH
+}
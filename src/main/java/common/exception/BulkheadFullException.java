@@ -0,0 +1,19 @@
+package common.exception;
+
+/**
+ * @Classname BulkheadFullException
+ * @Description 舱壁并发与排队已满，或排队超时，请求未发送
+ */
+public class BulkheadFullException extends HttpRequestException {
+
+    private final String bulkheadKey;
+
+    public BulkheadFullException(String bulkheadKey, String errorMsg) {
+        super("BulkheadFull", errorMsg);
+        this.bulkheadKey = bulkheadKey;
+    }
+
+    public String getBulkheadKey() {
+        return bulkheadKey;
+    }
+}
@@ -0,0 +1,12 @@
+package common.exception;
+
+/**
+ * @Classname CallCancelledException
+ * @Description 调用已被取消，进行中的请求已中止，不再重试
+ */
+public class CallCancelledException extends HttpRequestException {
+
+    public CallCancelledException(String errorMsg) {
+        super("CallCancelled", errorMsg);
+    }
+}
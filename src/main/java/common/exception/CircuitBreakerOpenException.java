@@ -0,0 +1,19 @@
+package common.exception;
+
+/**
+ * @Classname CircuitBreakerOpenException
+ * @Description 熔断器打开，请求未发送直接失败
+ */
+public class CircuitBreakerOpenException extends HttpRequestException {
+
+    private final String circuitBreakerKey;
+
+    public CircuitBreakerOpenException(String circuitBreakerKey) {
+        super("CircuitBreakerOpen", "circuit breaker is open:" + circuitBreakerKey);
+        this.circuitBreakerKey = circuitBreakerKey;
+    }
+
+    public String getCircuitBreakerKey() {
+        return circuitBreakerKey;
+    }
+}
@@ -0,0 +1,29 @@
+package common.exception;
+
+/**
+ * @Classname ConcurrencyLimitExceededException
+ * @Description 在途请求达到自适应并发上限，排队已满或排队超时，请求未发送
+ */
+public class ConcurrencyLimitExceededException extends HttpRequestException {
+
+    private final String limiterKey;
+
+    private final int limit;
+
+    public ConcurrencyLimitExceededException(String limiterKey, int limit, String errorMsg) {
+        super("ConcurrencyLimitExceeded", errorMsg);
+        this.limiterKey = limiterKey;
+        this.limit = limit;
+    }
+
+    public String getLimiterKey() {
+        return limiterKey;
+    }
+
+    /**
+     * 拒绝时的并发上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
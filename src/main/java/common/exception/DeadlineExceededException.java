@@ -0,0 +1,12 @@
+package common.exception;
+
+/**
+ * @Classname DeadlineExceededException
+ * @Description 调用超过截止时间，在排队、签名、重试前或发送过程中放弃
+ */
+public class DeadlineExceededException extends HttpRequestException {
+
+    public DeadlineExceededException(String errorMsg) {
+        super("DeadlineExceeded", errorMsg);
+    }
+}
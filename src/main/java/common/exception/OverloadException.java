@@ -0,0 +1,34 @@
+package common.exception;
+
+/**
+ * @Classname OverloadException
+ * @Description 客户端过载，超过排队数、在途字节数或排队时间预算，请求未发送
+ */
+public class OverloadException extends HttpRequestException {
+
+    public enum Reason {
+        /**
+         * 排队的调用数超过预算
+         */
+        QUEUED_CALLS,
+        /**
+         * 在途请求与响应字节数超过预算
+         */
+        IN_FLIGHT_BYTES,
+        /**
+         * 排队时间超过预算
+         */
+        QUEUE_TIME
+    }
+
+    private final Reason reason;
+
+    public OverloadException(Reason reason, String errorMsg) {
+        super("ClientOverloaded", errorMsg);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
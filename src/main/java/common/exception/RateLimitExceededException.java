@@ -0,0 +1,29 @@
+package common.exception;
+
+/**
+ * @Classname RateLimitExceededException
+ * @Description 客户端限流排队时间超过上限，请求未发送
+ */
+public class RateLimitExceededException extends HttpRequestException {
+
+    private final String rateLimiterKey;
+
+    private final long waitMillis;
+
+    public RateLimitExceededException(String rateLimiterKey, long waitMillis) {
+        super("ClientRateLimitExceeded", "rate limit exceeded:" + rateLimiterKey + ",required wait " + waitMillis + "ms");
+        this.rateLimiterKey = rateLimiterKey;
+        this.waitMillis = waitMillis;
+    }
+
+    public String getRateLimiterKey() {
+        return rateLimiterKey;
+    }
+
+    /**
+     * 需要等待的时间（单位：毫秒）
+     */
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+}
@@ -0,0 +1,295 @@
+package common.http;
+
+import common.HttpClientConfig;
+import common.utils.HttpClientUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.*;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import software.amazon.awssdk.http.ContentStreamProvider;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
+import software.amazon.awssdk.utils.IoUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * @Classname ApacheHttpTransport
+ * @Description 基于 Apache HttpClient 4.x 的传输层实现，同步请求使用 PooledHttpClient，异步请求使用 PooledHttpAsyncClient
+ */
+@Slf4j
+public class ApacheHttpTransport implements SdkHttpTransport {
+
+    /**
+     * 为空时使用默认共享实例
+     */
+    private final PooledHttpClient pooledHttpClient;
+
+    /**
+     * 为空时使用默认共享实例
+     */
+    private final PooledHttpAsyncClient pooledHttpAsyncClient;
+
+    /**
+     * 独立连接池配置，不为空时按该配置创建本实例专用的连接池，close 时关闭
+     */
+    private final HttpClientConfig poolConfig;
+
+    private volatile PooledHttpClient ownedHttpClient;
+
+    private volatile PooledHttpAsyncClient ownedHttpAsyncClient;
+
+    public ApacheHttpTransport() {
+        this(null, null);
+    }
+
+    public ApacheHttpTransport(PooledHttpClient pooledHttpClient, PooledHttpAsyncClient pooledHttpAsyncClient) {
+        this.pooledHttpClient = pooledHttpClient;
+        this.pooledHttpAsyncClient = pooledHttpAsyncClient;
+        this.poolConfig = null;
+    }
+
+    /**
+     * 使用独立连接池，同步与异步连接池在首次使用时创建
+     *
+     * @param poolConfig 连接池配置
+     */
+    public ApacheHttpTransport(HttpClientConfig poolConfig) {
+        this.pooledHttpClient = null;
+        this.pooledHttpAsyncClient = null;
+        this.poolConfig = poolConfig;
+    }
+
+    @Override
+    public RpcHttpResponse execute(SdkHttpFullRequest signedRequest, HttpRequestOptions options) throws IOException {
+        PooledHttpClient client = syncClient();
+        HttpRequestBase httpRequest = toHttpRequest(signedRequest);
+        //压缩由 RpcRequestClient 按配置处理，关闭 HttpClient 自动添加 Accept-Encoding 与解压
+        httpRequest.setConfig(requestConfig(client.requestConfigBuilder(), client.getConfig(), options)
+                .setContentCompressionEnabled(false)
+                .build());
+        logCurl(httpRequest);
+        if (options.getCancellation() != null) {
+            //中止时关闭连接，阻塞在连接、读取上的线程立即抛出 RequestAbortedException
+            options.getCancellation().onCancel(httpRequest::abort);
+        }
+
+        CloseableHttpResponse response = client.getHttpClient().execute(httpRequest);
+        InputStream content = response.getEntity() != null ? response.getEntity().getContent() : null;
+        return new RpcHttpResponse(response.getStatusLine().getStatusCode(), toHeaderMap(response), content, response);
+    }
+
+    @Override
+    public CompletableFuture<RpcHttpResponse> executeAsync(SdkHttpFullRequest signedRequest, HttpRequestOptions options) {
+        CompletableFuture<RpcHttpResponse> future = new CompletableFuture<>();
+        HttpRequestBase httpRequest;
+        PooledHttpAsyncClient client;
+        try {
+            client = asyncClient();
+            httpRequest = toHttpRequest(signedRequest);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        httpRequest.setConfig(requestConfig(client.requestConfigBuilder(), client.getConfig(), options).build());
+        logCurl(httpRequest);
+
+        Future<HttpResponse> pending = client.getHttpAsyncClient().execute(httpRequest, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    //异步响应体已由 NIO 线程读入内存
+                    InputStream content = response.getEntity() != null ? response.getEntity().getContent() : null;
+                    future.complete(new RpcHttpResponse(response.getStatusLine().getStatusCode(), toHeaderMap(response), content, null));
+                } catch (Exception e) {
+                    failed(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        //取消返回的 future 或取消信号时中止请求，连接随即释放
+        future.whenComplete((response, ex) -> {
+            if (future.isCancelled()) {
+                pending.cancel(true);
+            }
+        });
+        if (options.getCancellation() != null) {
+            options.getCancellation().onCancel(() -> pending.cancel(true));
+        }
+        return future;
+    }
+
+    /**
+     * 预热同步连接池；异步连接池只在显式传入时预热，避免只用同步请求时创建 NIO 线程
+     */
+    @Override
+    public int prewarm(URI endpoint, int connections) {
+        int opened = syncClient().prewarm(endpoint, connections);
+        if (pooledHttpAsyncClient != null) {
+            opened += pooledHttpAsyncClient.prewarm(endpoint, connections);
+        }
+        return opened;
+    }
+
+    /**
+     * 关闭独立连接池，外部传入的连接池与默认共享实例不关闭
+     */
+    @Override
+    public synchronized void close() {
+        if (ownedHttpClient != null) {
+            ownedHttpClient.close();
+        }
+        if (ownedHttpAsyncClient != null) {
+            ownedHttpAsyncClient.close();
+        }
+    }
+
+    /**
+     * 连接池的 maxPerRoute
+     */
+    @Override
+    public int maxConcurrentRequests() {
+        return poolConfig != null ? poolConfig.getMaxPerRoute() : syncClient().getConfig().getMaxPerRoute();
+    }
+
+    private PooledHttpClient syncClient() {
+        if (pooledHttpClient != null) {
+            return pooledHttpClient;
+        }
+        if (poolConfig == null) {
+            return PooledHttpClient.getDefault();
+        }
+        PooledHttpClient owned = ownedHttpClient;
+        if (owned == null) {
+            synchronized (this) {
+                if (ownedHttpClient == null) {
+                    ownedHttpClient = new PooledHttpClient(poolConfig);
+                }
+                owned = ownedHttpClient;
+            }
+        }
+        return owned;
+    }
+
+    private PooledHttpAsyncClient asyncClient() {
+        if (pooledHttpAsyncClient != null) {
+            return pooledHttpAsyncClient;
+        }
+        if (poolConfig == null) {
+            return PooledHttpAsyncClient.getDefault();
+        }
+        PooledHttpAsyncClient owned = ownedHttpAsyncClient;
+        if (owned == null) {
+            synchronized (this) {
+                if (ownedHttpAsyncClient == null) {
+                    ownedHttpAsyncClient = new PooledHttpAsyncClient(poolConfig);
+                }
+                owned = ownedHttpAsyncClient;
+            }
+        }
+        return owned;
+    }
+
+    /**
+     * 将已签名请求转换为 Apache HttpClient 请求，请求体使用签名时的原始字节
+     */
+    public static HttpRequestBase toHttpRequest(SdkHttpFullRequest signedRequest) throws IOException {
+        HttpRequestBase httpRequest = createRequest(signedRequest);
+        if (httpRequest instanceof HttpEntityEnclosingRequestBase && signedRequest.contentStreamProvider().isPresent()) {
+            ContentStreamProvider provider = signedRequest.contentStreamProvider().get();
+            try (InputStream body = provider.newStream()) {
+                ((HttpEntityEnclosingRequestBase) httpRequest).setEntity(new ByteArrayEntity(IoUtils.toByteArray(body)));
+            }
+        }
+        return httpRequest;
+    }
+
+    /**
+     * 根据请求方法创建请求对象并复制请求头，不含请求体
+     */
+    public static HttpRequestBase createRequest(SdkHttpFullRequest signedRequest) {
+        HttpRequestBase httpRequest;
+        switch (signedRequest.method()) {
+            case POST:
+                httpRequest = new HttpPost(signedRequest.getUri());
+                break;
+            case GET:
+                httpRequest = new HttpGet(signedRequest.getUri());
+                break;
+            case PUT:
+                httpRequest = new HttpPut(signedRequest.getUri());
+                break;
+            case DELETE:
+                httpRequest = new HttpDelete(signedRequest.getUri());
+                break;
+            case PATCH:
+                httpRequest = new HttpPatch(signedRequest.getUri());
+                break;
+            case HEAD:
+                httpRequest = new HttpHead(signedRequest.getUri());
+                break;
+            case OPTIONS:
+                httpRequest = new HttpOptions(signedRequest.getUri());
+                break;
+            default:
+                throw new UnsupportedOperationException(
+                        "Method not supported: " + signedRequest.method());
+        }
+        signedRequest.headers().forEach((name, values) -> {
+            // 跳过 Content-Length 头，由 HttpClient 自动处理
+            if (!"Content-Length".equalsIgnoreCase(name)) {
+                values.forEach(value -> httpRequest.addHeader(name, value));
+            }
+        });
+        return httpRequest;
+    }
+
+    private static RequestConfig.Builder requestConfig(RequestConfig.Builder builder, HttpClientConfig poolConfig,
+                                                       HttpRequestOptions options) {
+        builder.setConnectTimeout(options.getConnectTimeout())
+                .setSocketTimeout(options.getSocketTimeout());
+        Integer connectionRequestTimeout = options.getConnectionRequestTimeout();
+        if (connectionRequestTimeout != null) {
+            Integer configured = poolConfig.getConnectionRequestTimeout();
+            builder.setConnectionRequestTimeout(configured != null && configured > 0
+                    ? Math.min(configured, connectionRequestTimeout) : connectionRequestTimeout);
+        }
+        return builder;
+    }
+
+    private static Map<String, List<String>> toHeaderMap(HttpResponse response) {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Header header : response.getAllHeaders()) {
+            headers.computeIfAbsent(header.getName(), k -> new ArrayList<>()).add(header.getValue());
+        }
+        return headers;
+    }
+
+    private static void logCurl(HttpRequestBase httpRequest) {
+        try {
+            String curl = HttpClientUtils.convertHttpClientToCurl(httpRequest);
+            log.info("begin rpc request curl:{}", curl);
+        } catch (IOException e) {
+            log.warn("to curl occur error", e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package common.http;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.conn.DnsResolver;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * @Classname CachingDnsResolver
+ * @Description 带 TTL 的 DNS 缓存。后台线程在过期前刷新最近使用过的域名，请求线程通常不需要等待解析；
+ * 刷新失败时继续使用旧结果，长时间未使用的域名移出缓存
+ */
+@Slf4j
+public class CachingDnsResolver implements DnsResolver, Closeable {
+
+    private static final ScheduledExecutorService REFRESHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ksyun-dns-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 超过 TTL 的该倍数未使用的域名不再刷新
+     */
+    private static final int IDLE_TTL_MULTIPLE = 10;
+
+    private final long ttlMillis;
+
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    private final ScheduledFuture<?> refreshTask;
+
+    /**
+     * @param ttlMillis 解析结果缓存时间（单位：毫秒）
+     */
+    public CachingDnsResolver(long ttlMillis) {
+        this(ttlMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock 毫秒时钟，测试时可替换
+     */
+    CachingDnsResolver(long ttlMillis, LongSupplier clock) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be positive");
+        }
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        long interval = Math.max(1000L, ttlMillis / 2);
+        this.refreshTask = REFRESHER.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        long now = clock.getAsLong();
+        Entry entry = cache.get(host);
+        if (entry != null) {
+            entry.lastAccess = now;
+            if (now < entry.expiresAt) {
+                return entry.addresses.clone();
+            }
+        }
+        try {
+            return lookup(host, now).addresses.clone();
+        } catch (UnknownHostException e) {
+            if (entry != null) {
+                log.warn("dns resolve failed,use stale result,host:{}", host);
+                return entry.addresses.clone();
+            }
+            throw e;
+        }
+    }
+
+    private Entry lookup(String host, long now) throws UnknownHostException {
+        Entry entry = new Entry(lookupAll(host), now + ttlMillis, now);
+        cache.put(host, entry);
+        return entry;
+    }
+
+    /**
+     * 向系统解析，测试时可覆盖
+     */
+    InetAddress[] lookupAll(String host) throws UnknownHostException {
+        return InetAddress.getAllByName(host);
+    }
+
+    void refresh() {
+        long now = clock.getAsLong();
+        cache.forEach((host, entry) -> {
+            if (now - entry.lastAccess > ttlMillis * IDLE_TTL_MULTIPLE) {
+                cache.remove(host, entry);
+                return;
+            }
+            if (entry.expiresAt - now > ttlMillis / 2) {
+                return;
+            }
+            try {
+                Entry refreshed = lookup(host, now);
+                refreshed.lastAccess = entry.lastAccess;
+            } catch (UnknownHostException e) {
+                log.warn("dns refresh failed,host:{}", host);
+            }
+        });
+    }
+
+    /**
+     * 预先解析域名
+     */
+    public void prefetch(String host) {
+        try {
+            resolve(host);
+        } catch (UnknownHostException e) {
+            log.warn("dns prefetch failed,host:{}", host);
+        }
+    }
+
+    @Override
+    public void close() {
+        refreshTask.cancel(false);
+        cache.clear();
+    }
+
+    private static class Entry {
+        private final InetAddress[] addresses;
+        private final long expiresAt;
+        private volatile long lastAccess;
+
+        Entry(InetAddress[] addresses, long expiresAt, long lastAccess) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package common.http;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @Classname Cancellation
+ * @Description 调用的取消信号。取消时执行登记的回调，如中止进行中的 http 请求、取消排队与待执行的重试，连接随即归还连接池或丢弃；
+ * 取消后登记的回调立即执行。不使用对象监视器，虚拟线程等待时不会占住载体线程
+ */
+@Slf4j
+public final class Cancellation {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final List<Runnable> listeners = new ArrayList<>();
+
+    private final CountDownLatch signal = new CountDownLatch(1);
+
+    private volatile boolean cancelled;
+
+    /**
+     * 取消，重复调用无效
+     *
+     * @return false 表示此前已取消
+     */
+    public boolean cancel() {
+        List<Runnable> current;
+        lock.lock();
+        try {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            current = new ArrayList<>(listeners);
+            listeners.clear();
+        } finally {
+            lock.unlock();
+        }
+        signal.countDown();
+        current.forEach(Cancellation::runQuietly);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 登记取消时执行的回调，已取消时立即执行
+     *
+     * @return 注销该回调
+     */
+    public Runnable onCancel(Runnable listener) {
+        lock.lock();
+        try {
+            if (!cancelled) {
+                listeners.add(listener);
+                return () -> remove(listener);
+            }
+        } finally {
+            lock.unlock();
+        }
+        runQuietly(listener);
+        return () -> {
+        };
+    }
+
+    /**
+     * 等待至多 millis 毫秒，期间取消时提前返回
+     *
+     * @return 是否已取消
+     */
+    public boolean await(long millis) throws InterruptedException {
+        return signal.await(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private void remove(Runnable listener) {
+        lock.lock();
+        try {
+            listeners.remove(listener);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void runQuietly(Runnable listener) {
+        try {
+            listener.run();
+        } catch (RuntimeException e) {
+            log.warn("cancellation listener failed", e);
+        }
+    }
+}
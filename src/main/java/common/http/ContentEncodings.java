@@ -0,0 +1,61 @@
+package common.http;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * @Classname ContentEncodings
+ * @Description gzip/deflate 请求体压缩与响应体解压
+ */
+public final class ContentEncodings {
+
+    public static final String GZIP = "gzip";
+
+    public static final String DEFLATE = "deflate";
+
+    /**
+     * 请求压缩响应时使用的 Accept-Encoding
+     */
+    public static final String ACCEPT_ENCODING = GZIP + ", " + DEFLATE;
+
+    private ContentEncodings() {
+    }
+
+    public static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 按 Content-Encoding 解压响应体，不支持的编码原样返回
+     */
+    public static InputStream decode(InputStream content, String contentEncoding) throws IOException {
+        if (contentEncoding == null) {
+            return content;
+        }
+        String encoding = contentEncoding.trim().toLowerCase();
+        if (GZIP.equals(encoding) || "x-gzip".equals(encoding)) {
+            return new GZIPInputStream(content);
+        }
+        if (DEFLATE.equals(encoding)) {
+            //deflate 可能带 zlib 头，也可能是裸 deflate 数据
+            BufferedInputStream buffered = new BufferedInputStream(content);
+            buffered.mark(2);
+            int first = buffered.read();
+            int second = buffered.read();
+            buffered.reset();
+            boolean zlib = first != -1 && second != -1 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+            return new InflaterInputStream(buffered, new Inflater(!zlib));
+        }
+        return content;
+    }
+}
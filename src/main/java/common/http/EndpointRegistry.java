@@ -0,0 +1,75 @@
+package common.http;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Classname EndpointRegistry
+ * @Description endpoint 注册表：按 service/region 登记 endpoint，并缓存 url 的解析结果，避免每次请求重新解析
+ */
+public class EndpointRegistry {
+
+    private static final EndpointRegistry DEFAULT = new EndpointRegistry();
+
+    /**
+     * 解析缓存上限，url 中带有可变部分时不会无限增长
+     */
+    private static final int MAX_PARSED = 1024;
+
+    private final Map<String, URI> endpoints = new ConcurrentHashMap<>();
+
+    private final Map<String, URI> parsed = new ConcurrentHashMap<>();
+
+    /**
+     * 进程内共享实例
+     */
+    public static EndpointRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 登记 service/region 的 endpoint
+     *
+     * @param endpoint 如 https://kec.api.ksyun.com，没有协议时使用 http
+     */
+    public URI register(String service, String region, String endpoint) throws URISyntaxException {
+        URI uri = new URI(endpoint.contains("://") ? endpoint : "http://" + endpoint);
+        if (uri.getHost() == null) {
+            throw new URISyntaxException(endpoint, "endpoint host is empty");
+        }
+        endpoints.put(key(service, region), uri);
+        return uri;
+    }
+
+    /**
+     * @return 未登记时返回 null
+     */
+    public URI resolve(String service, String region) {
+        return endpoints.get(key(service, region));
+    }
+
+    public Map<String, URI> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * 解析 url，结果缓存
+     */
+    public URI parse(String url) throws URISyntaxException {
+        URI uri = parsed.get(url);
+        if (uri != null) {
+            return uri;
+        }
+        uri = new URI(url);
+        if (parsed.size() < MAX_PARSED) {
+            parsed.put(url, uri);
+        }
+        return uri;
+    }
+
+    private static String key(String service, String region) {
+        return service + "/" + region;
+    }
+}
@@ -0,0 +1,35 @@
+package common.http;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname HttpRequestOptions
+ * @Description 单次请求的传输参数
+ */
+@Data
+@Builder
+public class HttpRequestOptions {
+
+    /**
+     * 连接超时（单位：毫秒）
+     */
+    @Builder.Default
+    private Integer connectTimeout = 60000;
+
+    /**
+     * 读取超时（单位：毫秒）
+     */
+    @Builder.Default
+    private Integer socketTimeout = 60000;
+
+    /**
+     * 从连接池获取连接的超时上限（单位：毫秒），不超过连接池配置；为空时使用连接池配置
+     */
+    private Integer connectionRequestTimeout;
+
+    /**
+     * 取消信号，取消时中止请求，为空时不可取消
+     */
+    private Cancellation cancellation;
+}
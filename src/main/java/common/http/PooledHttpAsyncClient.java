@@ -0,0 +1,218 @@
+package common.http;
+
+import common.HttpClientConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @Classname PooledHttpAsyncClient
+ * @Description 基于 NIO 的长连接异步 http 客户端，少量 IO 线程即可承载大量并发请求
+ */
+@Slf4j
+public class PooledHttpAsyncClient implements Closeable {
+
+    private static final AtomicReference<PooledHttpAsyncClient> DEFAULT = new AtomicReference<>();
+
+    private final HttpClientConfig config;
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpAsyncClient httpAsyncClient;
+
+    private final RequestConfig defaultRequestConfig;
+
+    private final ScheduledExecutorService evictor;
+
+    private final DnsResolver dnsResolver;
+
+    private volatile boolean closed;
+
+    public PooledHttpAsyncClient() {
+        this(HttpClientConfig.defaultConfig());
+    }
+
+    public PooledHttpAsyncClient(HttpClientConfig config) {
+        this.config = config;
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(config.getIoThreadCount())
+                .setConnectTimeout(config.getConnectTimeout())
+                .setSoTimeout(config.getSocketTimeout())
+                .setSoKeepAlive(true)
+                .build();
+        this.dnsResolver = PooledHttpClient.dnsResolver(config);
+        Registry<SchemeIOSessionStrategy> sessionStrategyRegistry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", new SSLIOSessionStrategy(TlsContexts.create(config), SSLIOSessionStrategy.getDefaultHostnameVerifier()))
+                .build();
+        try {
+            this.connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig),
+                    ManagedNHttpClientConnectionFactory.INSTANCE, sessionStrategyRegistry, dnsResolver);
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("create io reactor failed", e);
+        }
+        this.connectionManager.setMaxTotal(config.getMaxTotal());
+        this.connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+
+        this.defaultRequestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectTimeout())
+                .setSocketTimeout(config.getSocketTimeout())
+                .setConnectionRequestTimeout(config.getConnectionRequestTimeout())
+                .build();
+
+        this.httpAsyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(defaultRequestConfig)
+                .setKeepAliveStrategy(PooledHttpClient.keepAliveStrategy(config.getKeepAliveMillis()))
+                .build();
+        this.httpAsyncClient.start();
+
+        //异步连接池没有内置回收线程，定期关闭过期与空闲连接
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ksyun-async-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000L, config.getMaxIdleMillis() / 2);
+        this.evictor.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(config.getMaxIdleMillis(), TimeUnit.MILLISECONDS);
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 默认共享实例，首次使用时创建；被 close 后再次获取会重新创建
+     */
+    public static PooledHttpAsyncClient getDefault() {
+        while (true) {
+            PooledHttpAsyncClient current = DEFAULT.get();
+            if (current != null && !current.isClosed()) {
+                return current;
+            }
+            PooledHttpAsyncClient created = new PooledHttpAsyncClient();
+            if (DEFAULT.compareAndSet(current, created)) {
+                return created;
+            }
+            created.close();
+        }
+    }
+
+    /**
+     * 替换默认共享实例，旧实例由调用方决定是否关闭
+     *
+     * @param pooledHttpAsyncClient 新实例
+     * @return 旧实例
+     */
+    public static PooledHttpAsyncClient setDefault(PooledHttpAsyncClient pooledHttpAsyncClient) {
+        return DEFAULT.getAndSet(pooledHttpAsyncClient);
+    }
+
+    public CloseableHttpAsyncClient getHttpAsyncClient() {
+        if (closed) {
+            throw new IllegalStateException("http async client is closed");
+        }
+        return httpAsyncClient;
+    }
+
+    /**
+     * 以连接池默认配置为基础的请求配置，用于按请求覆盖超时
+     */
+    public RequestConfig.Builder requestConfigBuilder() {
+        return RequestConfig.copy(defaultRequestConfig);
+    }
+
+    public HttpClientConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 连接池状态：租用、空闲、等待数
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 预先建立到 endpoint 的连接（https 包含 TLS 握手）并放回连接池
+     *
+     * @param endpoint    如 https://kec.api.ksyun.com
+     * @param connections 连接数，不超过 maxPerRoute
+     * @return 新建立的连接数
+     */
+    public int prewarm(URI endpoint, int connections) {
+        HttpRoute route = PooledHttpClient.route(endpoint);
+        List<NHttpClientConnection> leased = new ArrayList<>();
+        int opened = 0;
+        try {
+            for (int i = 0; i < Math.min(connections, config.getMaxPerRoute()); i++) {
+                Future<NHttpClientConnection> request = connectionManager.requestConnection(route, null,
+                        config.getConnectTimeout(), config.getConnectionRequestTimeout(), TimeUnit.MILLISECONDS, null);
+                NHttpClientConnection connection = request.get(
+                        (long) config.getConnectTimeout() + config.getConnectionRequestTimeout(), TimeUnit.MILLISECONDS);
+                leased.add(connection);
+                if (!connectionManager.isRouteComplete(connection)) {
+                    HttpClientContext context = HttpClientContext.create();
+                    connectionManager.startRoute(connection, route, context);
+                    connectionManager.routeComplete(connection, route, context);
+                    opened++;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("prewarm async connection occur exception,endpoint:{},opened:{}", endpoint, opened, e);
+        } finally {
+            for (NHttpClientConnection connection : leased) {
+                connectionManager.releaseConnection(connection, null, config.getKeepAliveMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        log.info("prewarm async connection end,endpoint:{},opened:{}", endpoint, opened);
+        return opened;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        evictor.shutdownNow();
+        try {
+            httpAsyncClient.close();
+        } catch (IOException e) {
+            log.warn("close http async client occur error", e);
+        }
+        if (dnsResolver instanceof CachingDnsResolver) {
+            ((CachingDnsResolver) dnsResolver).close();
+        }
+    }
+}
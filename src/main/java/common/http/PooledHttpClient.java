@@ -0,0 +1,234 @@
+package common.http;
+
+import common.HttpClientConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @Classname PooledHttpClient
+ * @Description 长连接 http 客户端，HttpClientUtils 与 RpcRequestClient 共用
+ */
+@Slf4j
+public class PooledHttpClient implements Closeable {
+
+    private static final AtomicReference<PooledHttpClient> DEFAULT = new AtomicReference<>();
+
+    private final HttpClientConfig config;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    private final RequestConfig defaultRequestConfig;
+
+    private final DnsResolver dnsResolver;
+
+    private volatile boolean closed;
+
+    public PooledHttpClient() {
+        this(HttpClientConfig.defaultConfig());
+    }
+
+    public PooledHttpClient(HttpClientConfig config) {
+        this.config = config;
+        this.dnsResolver = dnsResolver(config);
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(TlsContexts.create(config)))
+                .build();
+        this.connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry, null, null,
+                dnsResolver, config.getConnectionTimeToLiveMillis(), TimeUnit.MILLISECONDS);
+        this.connectionManager.setMaxTotal(config.getMaxTotal());
+        this.connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+        this.connectionManager.setValidateAfterInactivity(config.getValidateAfterInactivityMillis());
+
+        this.defaultRequestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectTimeout())
+                .setSocketTimeout(config.getSocketTimeout())
+                .setConnectionRequestTimeout(config.getConnectionRequestTimeout())
+                .build();
+
+        //过期连接与空闲连接由 HttpClient 内部的后台线程定期回收，close 时一并停止；
+        //关闭自带的 IOException 重试，重试统一由 RetryPolicy 决定，避免绕过重试预算、限流、熔断与重新签名
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(defaultRequestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy(config.getKeepAliveMillis()))
+                .evictExpiredConnections()
+                .evictIdleConnections(config.getMaxIdleMillis().longValue(), TimeUnit.MILLISECONDS)
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /**
+     * 默认共享实例，首次使用时创建；被 close 后再次获取会重新创建
+     */
+    public static PooledHttpClient getDefault() {
+        while (true) {
+            PooledHttpClient current = DEFAULT.get();
+            if (current != null && !current.isClosed()) {
+                return current;
+            }
+            PooledHttpClient created = new PooledHttpClient();
+            if (DEFAULT.compareAndSet(current, created)) {
+                return created;
+            }
+            created.close();
+        }
+    }
+
+    /**
+     * 替换默认共享实例，旧实例由调用方决定是否关闭
+     *
+     * @param pooledHttpClient 新实例
+     * @return 旧实例
+     */
+    public static PooledHttpClient setDefault(PooledHttpClient pooledHttpClient) {
+        return DEFAULT.getAndSet(pooledHttpClient);
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        if (closed) {
+            throw new IllegalStateException("http client is closed");
+        }
+        return httpClient;
+    }
+
+    /**
+     * 以连接池默认配置为基础的请求配置，用于按请求覆盖超时
+     */
+    public RequestConfig.Builder requestConfigBuilder() {
+        return RequestConfig.copy(defaultRequestConfig);
+    }
+
+    public HttpClientConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 连接池状态：租用、空闲、等待数
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 预先建立到 endpoint 的连接（https 包含 TLS 握手）并放回连接池，避免首批请求承担 DNS 解析与握手耗时
+     *
+     * @param endpoint    如 https://kec.api.ksyun.com
+     * @param connections 连接数，不超过 maxPerRoute
+     * @return 新建立的连接数
+     */
+    public int prewarm(URI endpoint, int connections) {
+        HttpRoute route = route(endpoint);
+        List<HttpClientConnection> leased = new ArrayList<>();
+        int opened = 0;
+        try {
+            for (int i = 0; i < Math.min(connections, config.getMaxPerRoute()); i++) {
+                ConnectionRequest request = connectionManager.requestConnection(route, null);
+                HttpClientConnection connection = request.get(config.getConnectionRequestTimeout(), TimeUnit.MILLISECONDS);
+                leased.add(connection);
+                if (!connection.isOpen()) {
+                    HttpClientContext context = HttpClientContext.create();
+                    connectionManager.connect(connection, route, config.getConnectTimeout(), context);
+                    connectionManager.routeComplete(connection, route, context);
+                    opened++;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("prewarm connection occur exception,endpoint:{},opened:{}", endpoint, opened, e);
+        } finally {
+            for (HttpClientConnection connection : leased) {
+                connectionManager.releaseConnection(connection, null, config.getKeepAliveMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        log.info("prewarm connection end,endpoint:{},opened:{}", endpoint, opened);
+        return opened;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.warn("close http client occur error", e);
+        }
+        if (dnsResolver instanceof CachingDnsResolver) {
+            ((CachingDnsResolver) dnsResolver).close();
+        }
+    }
+
+    /**
+     * 与 HttpClient 默认路由规划一致的直连路由，预热的连接才能被后续请求复用
+     */
+    static HttpRoute route(URI endpoint) {
+        String scheme = endpoint.getScheme() != null ? endpoint.getScheme() : "http";
+        boolean secure = "https".equalsIgnoreCase(scheme);
+        int port = endpoint.getPort() > 0 ? endpoint.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(endpoint.getHost(), port, scheme), null, secure);
+    }
+
+    static DnsResolver dnsResolver(HttpClientConfig config) {
+        Long ttl = config.getDnsCacheTtlMillis();
+        return ttl != null && ttl > 0 ? new CachingDnsResolver(ttl) : SystemDefaultDnsResolver.INSTANCE;
+    }
+
+    /**
+     * 优先使用服务端返回的 Keep-Alive timeout，否则使用默认保活时间
+     */
+    static ConnectionKeepAliveStrategy keepAliveStrategy(long defaultKeepAliveMillis) {
+        return (HttpResponse response, HttpContext context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Long.parseLong(element.getValue()) * 1000;
+                    } catch (NumberFormatException ignore) {
+                        //使用默认值
+                    }
+                }
+            }
+            return defaultKeepAliveMillis;
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package common.http;
+
+import software.amazon.awssdk.utils.IoUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @Classname RpcHttpResponse
+ * @Description 传输层返回的 http 响应，使用完毕需 close 以归还连接
+ */
+public class RpcHttpResponse implements Closeable {
+
+    private static final InputStream EMPTY = new ByteArrayInputStream(new byte[0]);
+
+    private final int statusCode;
+
+    private final Map<String, List<String>> headers;
+
+    private final InputStream content;
+
+    private final Closeable releaser;
+
+    public RpcHttpResponse(int statusCode, Map<String, List<String>> headers, InputStream content, Closeable releaser) {
+        this.statusCode = statusCode;
+        Map<String, List<String>> caseInsensitive = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (headers != null) {
+            caseInsensitive.putAll(headers);
+        }
+        this.headers = Collections.unmodifiableMap(caseInsensitive);
+        this.content = content != null ? content : EMPTY;
+        this.releaser = releaser;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * 响应头，名称不区分大小写
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * 第一个同名响应头，不存在时返回 null
+     */
+    public String firstHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * 响应体，只能读取一次
+     */
+    public InputStream getContent() {
+        return content;
+    }
+
+    /**
+     * 按 Content-Encoding 解压后的响应，关闭返回的响应即关闭当前响应
+     */
+    public RpcHttpResponse decoded() throws IOException {
+        String contentEncoding = firstHeader("Content-Encoding");
+        if (contentEncoding == null || content == EMPTY) {
+            return this;
+        }
+        return new RpcHttpResponse(statusCode, headers, ContentEncodings.decode(content, contentEncoding), releaser);
+    }
+
+    /**
+     * 读取全部响应体
+     */
+    public byte[] readBytes() throws IOException {
+        return IoUtils.toByteArray(content);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            content.close();
+        } finally {
+            if (releaser != null) {
+                releaser.close();
+            }
+        }
+    }
+}
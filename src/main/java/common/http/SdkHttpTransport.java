@@ -0,0 +1,57 @@
+package common.http;
+
+import software.amazon.awssdk.http.SdkHttpFullRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @Classname SdkHttpTransport
+ * @Description http 传输层 SPI，发送已签名的请求。
+ * 内置 Apache HttpClient 实现与 JDK 11+ java.net.http（HTTP/2 多路复用）实现，见 SdkHttpTransports
+ */
+public interface SdkHttpTransport extends Closeable {
+
+    /**
+     * 同步发送已签名请求，调用方负责关闭返回的响应
+     *
+     * @param signedRequest 已签名请求，请求体取自 contentStreamProvider
+     * @param options       超时等传输参数
+     */
+    RpcHttpResponse execute(SdkHttpFullRequest signedRequest, HttpRequestOptions options) throws IOException;
+
+    /**
+     * 异步发送已签名请求，调用方负责关闭返回的响应
+     *
+     * @param signedRequest 已签名请求，请求体取自 contentStreamProvider
+     * @param options       超时等传输参数
+     */
+    CompletableFuture<RpcHttpResponse> executeAsync(SdkHttpFullRequest signedRequest, HttpRequestOptions options);
+
+    /**
+     * 预先建立到 endpoint 的连接，不支持预热的实现返回0
+     *
+     * @param endpoint    如 https://kec.api.ksyun.com
+     * @param connections 连接数
+     * @return 新建立的连接数
+     */
+    default int prewarm(URI endpoint, int connections) {
+        return 0;
+    }
+
+    /**
+     * 对同一 endpoint 可同时进行的请求数，超出的请求在连接池中阻塞等待；不限制的实现返回 Integer.MAX_VALUE
+     */
+    default int maxConcurrentRequests() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * 释放传输层资源，共享的默认实例不需要关闭
+     */
+    @Override
+    default void close() {
+    }
+}
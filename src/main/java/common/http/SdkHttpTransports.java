@@ -0,0 +1,80 @@
+package common.http;
+
+import common.HttpClientConfig;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @Classname SdkHttpTransports
+ * @Description 内置传输层实现，通过 RpcRequestContentModel.transport 指定
+ */
+public final class SdkHttpTransports {
+
+    private static final String JDK_TRANSPORT_CLASS = "common.http.JdkHttpTransport";
+
+    private static final SdkHttpTransport APACHE = new ApacheHttpTransport();
+
+    private static final AtomicReference<SdkHttpTransport> JDK_HTTP2 = new AtomicReference<>();
+
+    private SdkHttpTransports() {
+    }
+
+    /**
+     * Apache HttpClient 实现，使用默认共享连接池
+     */
+    public static SdkHttpTransport apache() {
+        return APACHE;
+    }
+
+    /**
+     * 使用独立连接池的 Apache HttpClient 实现，不与其他请求争用连接，不再使用时需 close
+     *
+     * @param config 连接池配置
+     */
+    public static SdkHttpTransport apache(HttpClientConfig config) {
+        return new ApacheHttpTransport(config);
+    }
+
+    /**
+     * java.net.http HTTP/2 实现的共享实例，需要 JDK 11+
+     */
+    public static SdkHttpTransport jdkHttp2() {
+        SdkHttpTransport current = JDK_HTTP2.get();
+        if (current != null) {
+            return current;
+        }
+        JDK_HTTP2.compareAndSet(null, jdkHttp2(HttpClientConfig.defaultConfig()));
+        return JDK_HTTP2.get();
+    }
+
+    /**
+     * 创建 java.net.http HTTP/2 实现，需要 JDK 11+
+     *
+     * @param config 连接配置，使用其中的连接超时
+     */
+    public static SdkHttpTransport jdkHttp2(HttpClientConfig config) {
+        try {
+            Class<?> transportClass = Class.forName(JDK_TRANSPORT_CLASS);
+            return (SdkHttpTransport) transportClass.getConstructor(HttpClientConfig.class).newInstance(config);
+        } catch (ClassNotFoundException e) {
+            throw new UnsupportedOperationException("java.net.http transport requires JDK 11+ and the multi-release jar", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("create java.net.http transport failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("create java.net.http transport failed", e);
+        }
+    }
+
+    /**
+     * 当前运行环境是否可以使用 java.net.http 实现
+     */
+    public static boolean isJdkHttp2Available() {
+        try {
+            Class.forName(JDK_TRANSPORT_CLASS, false, SdkHttpTransports.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
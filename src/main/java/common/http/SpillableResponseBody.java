@@ -0,0 +1,264 @@
+package common.http;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import common.utils.ResponseBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @Classname SpillableResponseBody
+ * @Description 大响应体，不超过内存上限时保存在内存中，超过后写入临时文件并通过内存映射读取。
+ * 使用完毕需 close 以删除临时文件
+ */
+@Slf4j
+public class SpillableResponseBody implements Closeable {
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private final byte[] memory;
+
+    private final Path file;
+
+    private final long size;
+
+    private MappedByteBuffer mapped;
+
+    private SpillableResponseBody(byte[] memory, Path file, long size) {
+        this.memory = memory;
+        this.file = file;
+        this.size = size;
+    }
+
+    /**
+     * 读取响应体，超过 maxInMemoryBytes 时转存到临时文件
+     *
+     * @param content          响应体输入流，读取完毕后由调用方关闭
+     * @param maxInMemoryBytes 内存中保存的最大字节数
+     * @param spillDirectory   临时文件目录，为空时使用 java.io.tmpdir
+     */
+    public static SpillableResponseBody read(InputStream content, int maxInMemoryBytes, String spillDirectory) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(maxInMemoryBytes, COPY_BUFFER_SIZE));
+        byte[] chunk = new byte[COPY_BUFFER_SIZE];
+        int read;
+        while ((read = content.read(chunk)) != -1) {
+            if (buffer.size() + read > maxInMemoryBytes) {
+                return spill(buffer, chunk, read, content, spillDirectory);
+            }
+            buffer.write(chunk, 0, read);
+        }
+        byte[] bytes = buffer.toByteArray();
+        return new SpillableResponseBody(bytes, null, bytes.length);
+    }
+
+    private static SpillableResponseBody spill(ByteArrayOutputStream buffer, byte[] chunk, int read, InputStream content,
+                                               String spillDirectory) throws IOException {
+        Path file = spillDirectory == null
+                ? Files.createTempFile("ksyun-rpc-", ".body")
+                : Files.createTempFile(new File(spillDirectory).toPath(), "ksyun-rpc-", ".body");
+        long size = buffer.size();
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.WRITE)) {
+            buffer.writeTo(out);
+            do {
+                out.write(chunk, 0, read);
+                size += read;
+            } while ((read = content.read(chunk)) != -1);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        log.info("rpc response spilled to disk,size:{},file:{}", size, file);
+        return new SpillableResponseBody(null, file, size);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 是否已转存到磁盘
+     */
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * 打开响应体输入流，可多次打开
+     */
+    public InputStream openStream() throws IOException {
+        if (memory != null) {
+            return new ByteArrayInputStream(memory);
+        }
+        if (size > Integer.MAX_VALUE) {
+            //超过单个映射区上限，退化为普通文件流
+            return Files.newInputStream(file);
+        }
+        return new ByteBufferInputStream(mapped().duplicate());
+    }
+
+    /**
+     * 按 token 增量解析响应体
+     */
+    public JsonParser tokens() throws IOException {
+        if (memory != null) {
+            return ResponseBinder.mapper().getFactory().createParser(memory);
+        }
+        return ResponseBinder.mapper().getFactory().createParser(openStream());
+    }
+
+    /**
+     * 逐个读取指定数组中的元素，同一时刻只有一个元素在内存中
+     *
+     * @param arrayPath    数组字段路径，如 Instances 或 Data.Items
+     * @param elementClass 元素类型，可以是 JsonNode
+     */
+    public <T> Iterator<T> elements(String arrayPath, Class<T> elementClass) throws IOException {
+        JsonParser parser = tokens();
+        if (!moveTo(parser, arrayPath.split("\\."))) {
+            parser.close();
+            return new ElementIterator<>(null, null);
+        }
+        return new ElementIterator<>(parser, ResponseBinder.reader(elementClass));
+    }
+
+    private static boolean moveTo(JsonParser parser, String[] fields) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        for (int i = 0; i < fields.length; i++) {
+            boolean found = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (name.equals(fields[i])) {
+                    JsonToken expected = i == fields.length - 1 ? JsonToken.START_ARRAY : JsonToken.START_OBJECT;
+                    if (value != expected) {
+                        return false;
+                    }
+                    found = true;
+                    break;
+                }
+                parser.skipChildren();
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MappedByteBuffer mapped() throws IOException {
+        if (mapped == null) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+        return mapped;
+    }
+
+    @Override
+    public void close() {
+        if (file == null) {
+            return;
+        }
+        mapped = null;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            //映射未释放时部分系统无法删除，退出时再删
+            log.warn("delete spilled response file failed:{}", file);
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private static class ElementIterator<T> implements Iterator<T> {
+
+        private final JsonParser parser;
+
+        private final ObjectReader reader;
+
+        private JsonToken next;
+
+        ElementIterator(JsonParser parser, ObjectReader reader) {
+            this.parser = parser;
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (parser == null) {
+                return false;
+            }
+            if (next == null) {
+                try {
+                    next = parser.nextToken();
+                    if (next == JsonToken.END_ARRAY || next == null) {
+                        parser.close();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != JsonToken.END_ARRAY && next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            next = null;
+            try {
+                return reader.readValue(parser);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package common.http;
+
+import common.HttpClientConfig;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.security.GeneralSecurityException;
+
+/**
+ * @Classname TlsContexts
+ * @Description 创建开启会话缓存的 SSLContext，同一连接池重连同一 host:port 时复用 TLS 会话，省去完整握手
+ */
+final class TlsContexts {
+
+    private TlsContexts() {
+    }
+
+    static SSLContext create(HttpClientConfig config) {
+        try {
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, null, null);
+            SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+            sessionContext.setSessionCacheSize(config.getTlsSessionCacheSize());
+            sessionContext.setSessionTimeout(config.getTlsSessionTimeoutSeconds());
+            return sslContext;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("create ssl context failed", e);
+        }
+    }
+}
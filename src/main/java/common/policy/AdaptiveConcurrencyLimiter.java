@@ -0,0 +1,326 @@
+package common.policy;
+
+import common.exception.ConcurrencyLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @Classname AdaptiveConcurrencyLimiter
+ * @Description 单个 endpoint 的自适应并发限制（TCP Vegas）。按 limit * (1 - minRtt / rtt) 估算服务端排队的请求数，
+ * 排队少时增大上限，排队多时减小上限；限流响应与超时使上限乘性下降。
+ * 在途请求达到上限时按先后顺序排队，上限增大或请求结束时放行
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final String key;
+
+    private final ConcurrencyLimiterConfig config;
+
+    private final Deque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+    private double limit;
+
+    private int inFlight;
+
+    private long minRttNanos;
+
+    private long minRttMeasuredAt;
+
+    /**
+     * 上次降低上限的时间，之前发出的请求再收到限流响应时不再重复降低
+     */
+    private long lastBackoffNanos;
+
+    private long rejectedCount;
+
+    AdaptiveConcurrencyLimiter(String key, ConcurrencyLimiterConfig config) {
+        this.key = key;
+        this.config = config;
+        this.limit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), config.getInitialLimit()));
+        this.lastBackoffNanos = System.nanoTime();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * 在途请求数
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 排队中的请求数
+     */
+    public synchronized int getQueueDepth() {
+        return waiters.size();
+    }
+
+    /**
+     * 当前测得的最小 RTT（单位：毫秒），尚无样本时为0
+     */
+    public synchronized long getMinRttMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(minRttNanos);
+    }
+
+    /**
+     * 累计拒绝的请求数，含排队超时
+     */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * 获取许可，达到上限时阻塞排队，最多等待 maxWaitMillis
+     *
+     * @return 请求结束后需调用 onSuccess、onDropped 或 onIgnored 之一
+     * @throws ConcurrencyLimitExceededException 排队已满或排队超时
+     */
+    public Permit acquire() {
+        CompletableFuture<Permit> waiter;
+        synchronized (this) {
+            if (inFlight < (int) limit && waiters.isEmpty()) {
+                return newPermit();
+            }
+            waiter = enqueue();
+        }
+        try {
+            return waiter.get(config.getMaxWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (abandon(waiter)) {
+                throw waitTimeout(config.getMaxWaitMillis());
+            }
+            //超时的同时拿到了许可
+            return waiter.join();
+        } catch (InterruptedException e) {
+            if (!abandon(waiter)) {
+                waiter.join().onIgnored();
+            }
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("rpc请求失败", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 未达到上限且无人排队时获取许可，否则立即返回，不排队也不计入拒绝数
+     *
+     * @return 未拿到许可时返回 null
+     */
+    public synchronized Permit tryAcquire() {
+        if (inFlight < (int) limit && waiters.isEmpty()) {
+            return newPermit();
+        }
+        return null;
+    }
+
+    /**
+     * 异步获取许可，达到上限时排队，最多等待 maxWaitMillis，不占用线程
+     *
+     * @return 拿到许可时完成；排队已满或排队超时时以 ConcurrencyLimitExceededException 异常完成。排队时可取消，已拿到许可时取消无效
+     */
+    public CompletableFuture<Permit> acquireAsync() {
+        return acquireAsync(config.getMaxWaitMillis());
+    }
+
+    /**
+     * 异步获取许可，达到上限时排队，不占用线程。配置的 maxWaitMillis 小于等于0时不排队
+     *
+     * @param maxWaitMillis 最长排队时间，调用方剩余时间少于配置的 maxWaitMillis 时传入剩余时间
+     */
+    public CompletableFuture<Permit> acquireAsync(long maxWaitMillis) {
+        CompletableFuture<Permit> waiter;
+        synchronized (this) {
+            if (inFlight < (int) limit && waiters.isEmpty()) {
+                return CompletableFuture.completedFuture(newPermit());
+            }
+            try {
+                waiter = enqueue();
+            } catch (ConcurrencyLimitExceededException e) {
+                CompletableFuture<Permit> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(e);
+                return rejected;
+            }
+        }
+        ScheduledFuture<?> timeout = PolicyScheduler.schedule(() -> {
+            if (abandon(waiter)) {
+                waiter.completeExceptionally(waitTimeout(maxWaitMillis));
+            }
+        }, maxWaitMillis);
+        waiter.whenComplete((permit, ex) -> {
+            timeout.cancel(false);
+            //调用方取消时离开队列
+            if (waiter.isCancelled()) {
+                abandon(waiter);
+            }
+        });
+        return waiter;
+    }
+
+    private Permit newPermit() {
+        inFlight++;
+        return new Permit(System.nanoTime(), inFlight);
+    }
+
+    private CompletableFuture<Permit> enqueue() {
+        if (config.getMaxWaitMillis() <= 0 || waiters.size() >= config.getMaxQueueDepth()) {
+            rejectedCount++;
+            log.info("rpc request rejected by concurrency limiter,key:{},limit:{},inFlight:{},queued:{}",
+                    key, (int) limit, inFlight, waiters.size());
+            throw new ConcurrencyLimitExceededException(key, (int) limit, "concurrency limit exceeded:" + key
+                    + ",limit " + (int) limit + ",inFlight " + inFlight + ",queued " + waiters.size());
+        }
+        CompletableFuture<Permit> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        return waiter;
+    }
+
+    /**
+     * 放弃排队
+     *
+     * @return false 表示许可已经交给该调用方
+     */
+    private synchronized boolean abandon(CompletableFuture<Permit> waiter) {
+        if (!waiters.remove(waiter)) {
+            return false;
+        }
+        rejectedCount++;
+        return true;
+    }
+
+    private ConcurrencyLimitExceededException waitTimeout(long waitedMillis) {
+        int current = getLimit();
+        log.info("rpc request rejected by concurrency limiter,wait timeout,key:{},limit:{}", key, current);
+        return new ConcurrencyLimitExceededException(key, current, "concurrency limit wait timeout:" + key
+                + ",limit " + current + ",waited " + waitedMillis + "ms");
+    }
+
+    /**
+     * 请求结束：按结果调整上限，放行排队中的请求
+     */
+    private void release(Permit permit, long rttNanos, boolean dropped, boolean ignored) {
+        List<CompletableFuture<Permit>> granted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            long now = System.nanoTime();
+            if (dropped) {
+                backoff(permit, now);
+            } else if (!ignored) {
+                sample(permit, rttNanos, now);
+            }
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                inFlight++;
+                granted.add(waiters.poll());
+            }
+        }
+        for (CompletableFuture<Permit> waiter : granted) {
+            Permit next = new Permit(System.nanoTime(), getInFlight());
+            //排队的调用方已取消时归还许可
+            if (!waiter.complete(next)) {
+                next.onIgnored();
+            }
+        }
+    }
+
+    private void sample(Permit permit, long rttNanos, long now) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (minRttNanos == 0 || rttNanos < minRttNanos
+                || now - minRttMeasuredAt > TimeUnit.MILLISECONDS.toNanos(config.getMinRttWindowMillis())) {
+            minRttNanos = rttNanos;
+            minRttMeasuredAt = now;
+        }
+        double step = Math.max(1, Math.log10(limit));
+        double queued = limit * (1 - (double) minRttNanos / rttNanos);
+        double previous = limit;
+        if (queued <= config.getAlpha() * step) {
+            //在途请求远低于上限时延迟不反映上限是否合适，不增大
+            if (permit.inFlightAtStart * 2 >= limit) {
+                limit = Math.min(config.getMaxLimit(), limit + step);
+            }
+        } else if (queued >= config.getBeta() * step) {
+            limit = Math.max(config.getMinLimit(), limit - step);
+        }
+        if ((int) previous != (int) limit) {
+            log.debug("concurrency limit change,key:{},limit:{}->{},rtt:{}ms,minRtt:{}ms", key, (int) previous, (int) limit,
+                    TimeUnit.NANOSECONDS.toMillis(rttNanos), TimeUnit.NANOSECONDS.toMillis(minRttNanos));
+        }
+    }
+
+    private void backoff(Permit permit, long now) {
+        //同一批在途请求只降低一次
+        if (permit.startNanos < lastBackoffNanos) {
+            return;
+        }
+        double previous = limit;
+        limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+        lastBackoffNanos = now;
+        log.warn("concurrency limit decrease,key:{},limit:{}->{}", key, (int) previous, (int) limit);
+    }
+
+    /**
+     * 一次请求占用的许可，结束时调用其中一个方法，重复调用无效
+     */
+    public final class Permit {
+
+        private final long startNanos;
+
+        private final int inFlightAtStart;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * 收到响应，以本次延迟作为样本
+         */
+        public void onSuccess() {
+            if (released.compareAndSet(false, true)) {
+                release(this, System.nanoTime() - startNanos, false, false);
+            }
+        }
+
+        /**
+         * 限流响应或超时，降低上限
+         */
+        public void onDropped() {
+            if (released.compareAndSet(false, true)) {
+                release(this, 0, true, false);
+            }
+        }
+
+        /**
+         * 结果不反映服务端负载，如连接失败或请求未发送，只归还许可
+         */
+        public void onIgnored() {
+            if (released.compareAndSet(false, true)) {
+                release(this, 0, false, true);
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package common.policy;
+
+import common.exception.RateLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * @Classname AdaptiveRateLimiter
+ * @Description 自适应令牌桶。请求按预约顺序排队，令牌不足时返回需等待的时间而不是拒绝；
+ * 限流响应使速率乘性下降并按 Retry-After 暂停发放，成功响应使速率加性恢复到上限
+ */
+@Slf4j
+public class AdaptiveRateLimiter {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final String key;
+
+    private final RateLimiterConfig config;
+
+    private final double maxRate;
+
+    private final double burst;
+
+    /**
+     * 令牌计算使用的时钟（单位：纳秒）
+     */
+    private final LongSupplier nanoClock;
+
+    private double rate;
+
+    /**
+     * 当前令牌数，为负表示已预约的排队请求
+     */
+    private double tokens;
+
+    /**
+     * 令牌计算的起点，Retry-After 暂停期间位于未来
+     */
+    private long lastNanos;
+
+    private long lastDecreaseNanos;
+
+    AdaptiveRateLimiter(String key, RateLimiterConfig config, double maxRate) {
+        this(key, config, maxRate, System::nanoTime);
+    }
+
+    AdaptiveRateLimiter(String key, RateLimiterConfig config, double maxRate, LongSupplier nanoClock) {
+        this.key = key;
+        this.nanoClock = nanoClock;
+        this.config = config;
+        this.maxRate = maxRate;
+        this.burst = config.getMaxBurstPermits() != null ? config.getMaxBurstPermits() : Math.max(1, maxRate);
+        this.rate = maxRate;
+        this.tokens = burst;
+        this.lastNanos = nanoClock.getAsLong();
+        this.lastDecreaseNanos = lastNanos - TimeUnit.MILLISECONDS.toNanos(config.getDecreaseCooldownMillis());
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 当前速率（每秒请求数）
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * 预约一个令牌
+     *
+     * @return 需要等待的时间（单位：毫秒），0表示可立即发送
+     * @throws RateLimitExceededException 等待时间超过 maxWaitMillis，此时不占用令牌
+     */
+    public synchronized long reserve() {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        long availableAt = Math.max(now, lastNanos);
+        if (tokens < 1) {
+            availableAt += (long) ((1 - tokens) / rate * NANOS_PER_SECOND);
+        }
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(availableAt - now);
+        if (waitMillis > config.getMaxWaitMillis()) {
+            throw new RateLimitExceededException(key, waitMillis);
+        }
+        tokens -= 1;
+        return waitMillis;
+    }
+
+    /**
+     * 取消一次预约并归还令牌，预约后因截止、取消或未拿到其他许可而没有发送时调用
+     */
+    public synchronized void cancel() {
+        refill(nanoClock.getAsLong());
+        tokens = Math.min(burst, tokens + 1);
+    }
+
+    /**
+     * 有可立即使用的令牌时取走一个，否则不预约
+     *
+     * @return 是否拿到令牌
+     */
+    public synchronized boolean tryAcquire() {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        if (tokens < 1 || lastNanos > now) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * 请求成功，速率加性恢复
+     */
+    public synchronized void onSuccess() {
+        if (rate < maxRate) {
+            refill(nanoClock.getAsLong());
+            rate = Math.min(maxRate, rate + config.getAdditiveIncrease() / rate);
+        }
+    }
+
+    /**
+     * 收到限流响应，速率乘性下降
+     *
+     * @param retryAfterMillis Retry-After 指定的等待时间，小于0表示没有
+     */
+    public synchronized void onThrottled(long retryAfterMillis) {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        if (now - lastDecreaseNanos >= TimeUnit.MILLISECONDS.toNanos(config.getDecreaseCooldownMillis())) {
+            double previous = rate;
+            rate = Math.max(config.getMinPermitsPerSecond(), rate * config.getDecreaseFactor());
+            //已积累的令牌按旧速率计算，降速后不再允许突发
+            tokens = Math.min(tokens, 0);
+            lastDecreaseNanos = now;
+            log.warn("rate limiter decrease,key:{},rate:{}->{}", key, previous, rate);
+        }
+        if (retryAfterMillis > 0) {
+            lastNanos = Math.max(lastNanos, now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+        }
+    }
+
+    private void refill(long now) {
+        if (now > lastNanos) {
+            tokens = Math.min(burst, tokens + (now - lastNanos) / NANOS_PER_SECOND * rate);
+            lastNanos = now;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package common.policy;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname AdaptiveTimeoutPolicy
+ * @Description 自适应读取超时：按该 action 的历史分位延迟乘以系数计算，不超过 RpcRequestContentModel 中配置的 socketTimeout
+ */
+@Data
+@Builder
+public class AdaptiveTimeoutPolicy {
+
+    /**
+     * 参考的延迟分位数
+     */
+    @Builder.Default
+    private Double percentile = 0.99;
+
+    /**
+     * 超时 = 分位延迟 * multiplier
+     */
+    @Builder.Default
+    private Double multiplier = 3.0;
+
+    /**
+     * 样本数不足时使用静态超时
+     */
+    @Builder.Default
+    private Integer minSamples = 50;
+
+    /**
+     * 超时下限（单位：毫秒）
+     */
+    @Builder.Default
+    private Integer minTimeoutMillis = 1000;
+
+    public static AdaptiveTimeoutPolicy defaultPolicy() {
+        return AdaptiveTimeoutPolicy.builder().build();
+    }
+
+    /**
+     * 计算读取超时
+     *
+     * @param staticTimeoutMillis 静态配置的超时，作为上限与样本不足时的取值
+     */
+    public int socketTimeoutMillis(LatencyHistogram histogram, int staticTimeoutMillis) {
+        if (histogram.count() < minSamples) {
+            return staticTimeoutMillis;
+        }
+        long observed = histogram.percentile(percentile);
+        if (observed < 0) {
+            return staticTimeoutMillis;
+        }
+        long timeout = (long) (observed * multiplier);
+        return (int) Math.min(staticTimeoutMillis, Math.max(minTimeoutMillis, timeout));
+    }
+}
@@ -0,0 +1,432 @@
+package common.policy;
+
+import common.constant.RequestPriorityEnum;
+import common.exception.BulkheadFullException;
+import common.http.SdkHttpTransport;
+import common.http.SdkHttpTransports;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * @Classname Bulkhead
+ * @Description 单个 service/region 的舱壁。并发未满时直接放行，已满时按优先级分道排队，释放的许可按 schedulingPolicy 交给其中一个队首的调用方，
+ * 排队超过 agingMillis 的调用先行放行；排队已满时高优先级调用挤出最新排队的低优先级调用，否则立即拒绝，排队超时同样拒绝。
+ * 异步调用排队时不占用线程
+ */
+@Slf4j
+public class Bulkhead {
+
+    private static final RequestPriorityEnum[] PRIORITIES = RequestPriorityEnum.values();
+
+    private final String key;
+
+    private final BulkheadConfig config;
+
+    /**
+     * 独立连接池的传输层，未配置 connectionPool 时为 null
+     */
+    private final SdkHttpTransport transport;
+
+    /**
+     * 排队计时使用的时钟（单位：纳秒）
+     */
+    private final LongSupplier nanoClock;
+
+    private final Map<RequestPriorityEnum, Lane> lanes = new EnumMap<>(RequestPriorityEnum.class);
+
+    private int inFlight;
+
+    private int queued;
+
+    Bulkhead(String key, BulkheadConfig config) {
+        this(key, config, System::nanoTime);
+    }
+
+    Bulkhead(String key, BulkheadConfig config, LongSupplier nanoClock) {
+        if (config.getMaxConcurrentCalls() == null || config.getMaxConcurrentCalls() <= 0) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be positive");
+        }
+        this.key = key;
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.transport = config.getConnectionPool() != null ? SdkHttpTransports.apache(config.getConnectionPool()) : null;
+        for (RequestPriorityEnum priority : PRIORITIES) {
+            lanes.put(priority, new Lane());
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public BulkheadConfig getConfig() {
+        return config;
+    }
+
+    public SdkHttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * 正在执行的调用数
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 排队中的调用数
+     */
+    public synchronized int getQueueDepth() {
+        return queued;
+    }
+
+    /**
+     * 累计拒绝的调用数，含排队超时
+     */
+    public synchronized long getRejectedCount() {
+        long rejected = 0;
+        for (Lane lane : lanes.values()) {
+            rejected += lane.rejectedCount;
+        }
+        return rejected;
+    }
+
+    /**
+     * 优先级的排队统计
+     */
+    public synchronized BulkheadLaneStats getLaneStats(RequestPriorityEnum priority) {
+        Lane lane = lanes.get(priority);
+        return BulkheadLaneStats.builder()
+                .priority(priority)
+                .queueDepth(lane.waiters.size())
+                .acquiredCount(lane.acquiredCount)
+                .rejectedCount(lane.rejectedCount)
+                .averageQueueTimeMillis(lane.acquiredCount == 0 ? 0
+                        : TimeUnit.NANOSECONDS.toMicros(lane.totalQueueNanos) / 1000.0 / lane.acquiredCount)
+                .queueTimeP50Millis(lane.queueTime.percentile(0.5))
+                .queueTimeP99Millis(lane.queueTime.percentile(0.99))
+                .build();
+    }
+
+    /**
+     * 以 INTERACTIVE 优先级获取许可
+     */
+    public void acquire() {
+        acquire(RequestPriorityEnum.INTERACTIVE);
+    }
+
+    /**
+     * 获取许可，并发已满时阻塞排队，最长等待 maxWaitMillis，使用完毕需 release
+     */
+    public void acquire(RequestPriorityEnum priority) {
+        acquire(priority, config.getMaxWaitMillis());
+    }
+
+    /**
+     * 获取许可，并发已满时阻塞排队，使用完毕需 release
+     *
+     * @param maxWaitMillis 最长排队时间，调用方剩余时间少于 maxWaitMillis 时传入剩余时间
+     * @throws BulkheadFullException 排队已满、排队超时或被高优先级调用挤出队列
+     */
+    public void acquire(RequestPriorityEnum priority, long maxWaitMillis) {
+        Waiter waiter;
+        List<Waiter> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (tryAcquire(priority)) {
+                return;
+            }
+            waiter = enqueue(priority, evicted);
+        }
+        reject(evicted);
+        try {
+            waiter.future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (abandon(waiter)) {
+                throw waitTimeout(maxWaitMillis);
+            }
+            //超时的同时拿到了许可或被挤出队列
+            try {
+                waiter.future.join();
+            } catch (RuntimeException ex) {
+                throw ex.getCause() instanceof BulkheadFullException ? (BulkheadFullException) ex.getCause() : ex;
+            }
+        } catch (InterruptedException e) {
+            if (!abandon(waiter)) {
+                //已出队，许可交接或挤出的通知马上完成
+                try {
+                    waiter.future.join();
+                    release();
+                } catch (RuntimeException ignored) {
+                    //已被挤出队列，没有占用许可
+                }
+            }
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("rpc请求失败", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BulkheadFullException) {
+                throw (BulkheadFullException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 以 INTERACTIVE 优先级异步获取许可
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        return acquireAsync(RequestPriorityEnum.INTERACTIVE);
+    }
+
+    /**
+     * 异步获取许可，并发已满时排队，最长等待 maxWaitMillis，使用完毕需 release
+     */
+    public CompletableFuture<Void> acquireAsync(RequestPriorityEnum priority) {
+        return acquireAsync(priority, config.getMaxWaitMillis());
+    }
+
+    /**
+     * 异步获取许可，并发已满时排队，使用完毕需 release
+     *
+     * @param maxWaitMillis 最长排队时间
+     * @return 拿到许可时完成；排队已满、排队超时或被挤出队列时以 BulkheadFullException 异常完成。排队时可取消，已拿到许可时取消无效
+     */
+    public CompletableFuture<Void> acquireAsync(RequestPriorityEnum priority, long maxWaitMillis) {
+        Waiter waiter;
+        List<Waiter> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (tryAcquire(priority)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            try {
+                waiter = enqueue(priority, evicted);
+            } catch (BulkheadFullException e) {
+                CompletableFuture<Void> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(e);
+                return rejected;
+            }
+        }
+        reject(evicted);
+        ScheduledFuture<?> timeout = PolicyScheduler.schedule(() -> {
+            if (abandon(waiter)) {
+                waiter.future.completeExceptionally(waitTimeout(maxWaitMillis));
+            }
+        }, maxWaitMillis);
+        waiter.future.whenComplete((ignored, ex) -> {
+            timeout.cancel(false);
+            //调用方取消时离开队列
+            if (waiter.future.isCancelled()) {
+                abandon(waiter);
+            }
+        });
+        return waiter.future;
+    }
+
+    /**
+     * 释放许可，有排队的调用方时按优先级交给其中一个
+     */
+    public void release() {
+        while (true) {
+            Waiter next;
+            synchronized (this) {
+                next = poll();
+                if (next == null) {
+                    inFlight--;
+                    return;
+                }
+            }
+            //排队的调用方已取消时继续交给下一个
+            if (next.future.complete(null)) {
+                return;
+            }
+        }
+    }
+
+    private boolean tryAcquire(RequestPriorityEnum priority) {
+        if (inFlight < config.getMaxConcurrentCalls() && queued == 0) {
+            inFlight++;
+            Lane lane = lanes.get(priority);
+            lane.acquiredCount++;
+            lane.queueTime.record(0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 排队，排队已满时挤出优先级最低队列中最新的调用，没有更低优先级的调用时拒绝
+     *
+     * @param evicted 被挤出的调用，由调用方在锁外通知
+     */
+    private Waiter enqueue(RequestPriorityEnum priority, List<Waiter> evicted) {
+        if (queued >= config.getMaxQueueDepth()) {
+            Waiter victim = null;
+            for (int i = PRIORITIES.length - 1; i > priority.ordinal() && victim == null; i--) {
+                Lane lower = lanes.get(PRIORITIES[i]);
+                victim = lower.waiters.pollLast();
+                if (victim != null) {
+                    lower.rejectedCount++;
+                    queued--;
+                }
+            }
+            if (victim == null) {
+                lanes.get(priority).rejectedCount++;
+                log.info("rpc request rejected by bulkhead,key:{},priority:{},inFlight:{},queued:{}", key, priority, inFlight, queued);
+                throw new BulkheadFullException(key, "bulkhead is full:" + key + ",inFlight " + inFlight + ",queued " + queued);
+            }
+            evicted.add(victim);
+        }
+        Waiter waiter = new Waiter(priority, nanoClock.getAsLong());
+        lanes.get(priority).waiters.add(waiter);
+        queued++;
+        return waiter;
+    }
+
+    private void reject(List<Waiter> evicted) {
+        for (Waiter victim : evicted) {
+            log.info("rpc request evicted from bulkhead by higher priority,key:{},priority:{}", key, victim.priority);
+            victim.future.completeExceptionally(new BulkheadFullException(key, "bulkhead is full:" + key
+                    + ",evicted by higher priority call"));
+        }
+    }
+
+    /**
+     * 选出下一个放行的调用：先放行排队超过 agingMillis 中最早的，再按 schedulingPolicy 选择
+     */
+    private Waiter poll() {
+        if (queued == 0) {
+            return null;
+        }
+        long now = nanoClock.getAsLong();
+        Lane selected = null;
+        if (config.getAgingMillis() > 0) {
+            long threshold = now - TimeUnit.MILLISECONDS.toNanos(config.getAgingMillis());
+            for (Lane lane : lanes.values()) {
+                Waiter head = lane.waiters.peekFirst();
+                if (head != null && head.enqueuedNanos - threshold <= 0
+                        && (selected == null || head.enqueuedNanos - selected.waiters.peekFirst().enqueuedNanos < 0)) {
+                    selected = lane;
+                }
+            }
+        }
+        if (selected == null) {
+            selected = config.getSchedulingPolicy() == BulkheadConfig.SchedulingPolicy.WEIGHTED ? weighted() : strict();
+        }
+        Waiter next = selected.waiters.pollFirst();
+        queued--;
+        inFlightHandOff(selected, next, now);
+        return next;
+    }
+
+    private Lane strict() {
+        for (RequestPriorityEnum priority : PRIORITIES) {
+            Lane lane = lanes.get(priority);
+            if (!lane.waiters.isEmpty()) {
+                return lane;
+            }
+        }
+        throw new IllegalStateException("no waiter");
+    }
+
+    /**
+     * 平滑加权轮询：各非空队列累加权重，选出累计值最大的队列，再减去本轮总权重
+     */
+    private Lane weighted() {
+        Lane selected = null;
+        int total = 0;
+        for (RequestPriorityEnum priority : PRIORITIES) {
+            Lane lane = lanes.get(priority);
+            if (lane.waiters.isEmpty()) {
+                continue;
+            }
+            int weight = config.laneWeight(priority);
+            lane.currentWeight += weight;
+            total += weight;
+            if (selected == null || lane.currentWeight > selected.currentWeight) {
+                selected = lane;
+            }
+        }
+        if (selected == null) {
+            throw new IllegalStateException("no waiter");
+        }
+        selected.currentWeight -= total;
+        return selected;
+    }
+
+    /**
+     * 许可直接交给排队的调用方，inFlight 不变
+     */
+    private static void inFlightHandOff(Lane lane, Waiter next, long now) {
+        long waited = now - next.enqueuedNanos;
+        lane.acquiredCount++;
+        lane.totalQueueNanos += waited;
+        lane.queueTime.record(TimeUnit.NANOSECONDS.toMillis(waited));
+    }
+
+    /**
+     * 放弃排队
+     *
+     * @return false 表示许可已经交给该调用方，或已被挤出队列
+     */
+    private synchronized boolean abandon(Waiter waiter) {
+        Lane lane = lanes.get(waiter.priority);
+        if (!lane.waiters.remove(waiter)) {
+            return false;
+        }
+        queued--;
+        lane.rejectedCount++;
+        return true;
+    }
+
+    private BulkheadFullException waitTimeout(long waitedMillis) {
+        log.info("rpc request rejected by bulkhead,wait timeout,key:{}", key);
+        return new BulkheadFullException(key, "bulkhead wait timeout:" + key + ",waited " + waitedMillis + "ms");
+    }
+
+    /**
+     * 单个优先级的队列与统计
+     */
+    private static class Lane {
+
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+        private final LatencyHistogram queueTime = new LatencyHistogram();
+
+        private long acquiredCount;
+
+        private long rejectedCount;
+
+        private long totalQueueNanos;
+
+        /**
+         * 加权轮询的累计权重
+         */
+        private int currentWeight;
+    }
+
+    private static class Waiter {
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private final RequestPriorityEnum priority;
+
+        private final long enqueuedNanos;
+
+        Waiter(RequestPriorityEnum priority, long enqueuedNanos) {
+            this.priority = priority;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
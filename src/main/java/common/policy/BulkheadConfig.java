@@ -0,0 +1,91 @@
+package common.policy;
+
+import common.HttpClientConfig;
+import common.constant.RequestPriorityEnum;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * @Classname BulkheadConfig
+ * @Description 舱壁隔离配置，按 service/region 限制并发调用数与排队数，可为其分配独立连接池，
+ * 某个服务变慢时只占满自己的并发与连接，不影响其他服务的请求。排队的调用按优先级分道，见 RequestPriorityEnum
+ */
+@Data
+@Builder
+public class BulkheadConfig {
+
+    /**
+     * 最大并发调用数，一次调用（含重试）占用一个许可
+     */
+    @Builder.Default
+    private Integer maxConcurrentCalls = 50;
+
+    /**
+     * 并发已满时最多排队的调用数，排队已满的调用直接抛出 BulkheadFullException；0表示不排队
+     */
+    @Builder.Default
+    private Integer maxQueueDepth = 100;
+
+    /**
+     * 排队的最长等待时间（单位：毫秒），超过时抛出 BulkheadFullException
+     */
+    @Builder.Default
+    private Long maxWaitMillis = 1000L;
+
+    /**
+     * 独立连接池配置，maxPerRoute 不应小于 maxConcurrentCalls；
+     * 为空时使用 RpcRequestClient 的传输层。RpcRequestContentModel 指定了 transport 时以其为准
+     */
+    private HttpClientConfig connectionPool;
+
+    /**
+     * 各优先级排队调用的放行方式
+     */
+    @Builder.Default
+    private SchedulingPolicy schedulingPolicy = SchedulingPolicy.STRICT;
+
+    /**
+     * WEIGHTED 方式下各优先级的权重，未配置的优先级权重为1
+     */
+    @Builder.Default
+    private Map<RequestPriorityEnum, Integer> laneWeights = defaultLaneWeights();
+
+    /**
+     * 排队超过该时间（单位：毫秒）的调用不论优先级先行放行，避免低优先级调用饿死；小于等于0表示不启用
+     */
+    @Builder.Default
+    private Long agingMillis = 2000L;
+
+    public enum SchedulingPolicy {
+        /**
+         * 严格优先级：高优先级队列为空时才放行低优先级调用
+         */
+        STRICT,
+        /**
+         * 加权公平：按 laneWeights 的比例轮流放行各优先级的调用
+         */
+        WEIGHTED
+    }
+
+    public static BulkheadConfig defaultConfig() {
+        return BulkheadConfig.builder().build();
+    }
+
+    /**
+     * 优先级对应的权重
+     */
+    public int laneWeight(RequestPriorityEnum priority) {
+        Integer weight = laneWeights == null ? null : laneWeights.get(priority);
+        return weight != null && weight > 0 ? weight : 1;
+    }
+
+    private static Map<RequestPriorityEnum, Integer> defaultLaneWeights() {
+        Map<RequestPriorityEnum, Integer> weights = new EnumMap<>(RequestPriorityEnum.class);
+        weights.put(RequestPriorityEnum.INTERACTIVE, 4);
+        weights.put(RequestPriorityEnum.BATCH, 1);
+        return weights;
+    }
+}
@@ -0,0 +1,46 @@
+package common.policy;
+
+import common.constant.RequestPriorityEnum;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname BulkheadLaneStats
+ * @Description 舱壁单个优先级的统计快照
+ */
+@Data
+@Builder
+public class BulkheadLaneStats {
+
+    private RequestPriorityEnum priority;
+
+    /**
+     * 当前排队的调用数
+     */
+    private int queueDepth;
+
+    /**
+     * 累计获得许可的调用数，含无需排队的调用
+     */
+    private long acquiredCount;
+
+    /**
+     * 累计拒绝的调用数，含排队超时与被高优先级调用挤出队列
+     */
+    private long rejectedCount;
+
+    /**
+     * 累计平均排队时间（单位：毫秒）
+     */
+    private double averageQueueTimeMillis;
+
+    /**
+     * 最近一分钟排队时间的 p50（单位：毫秒），无样本时为 -1
+     */
+    private long queueTimeP50Millis;
+
+    /**
+     * 最近一分钟排队时间的 p99（单位：毫秒），无样本时为 -1
+     */
+    private long queueTimeP99Millis;
+}
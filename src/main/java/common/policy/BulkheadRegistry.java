@@ -0,0 +1,35 @@
+package common.policy;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Classname BulkheadRegistry
+ * @Description 舱壁注册表，按 service/region 维护舱壁，同一 key 以首次创建时的配置为准
+ */
+public class BulkheadRegistry {
+
+    private static final BulkheadRegistry DEFAULT = new BulkheadRegistry();
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 进程内共享实例
+     */
+    public static BulkheadRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public static String key(String service, String region) {
+        return service + "/" + region;
+    }
+
+    public Bulkhead bulkhead(String key, BulkheadConfig config) {
+        return bulkheads.computeIfAbsent(key, k -> new Bulkhead(k, config));
+    }
+
+    public Map<String, Bulkhead> getBulkheads() {
+        return Collections.unmodifiableMap(bulkheads);
+    }
+}
@@ -0,0 +1,205 @@
+package common.policy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * @Classname CircuitBreaker
+ * @Description 单个 endpoint 的熔断器。关闭状态按滑动窗口统计失败率与慢调用率，超过阈值后打开；
+ * 打开状态直接拒绝请求，等待 waitDurationInOpenMillis 后进入半开状态，放行少量探测请求，根据探测结果关闭或重新打开
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String key;
+
+    private final CircuitBreakerConfig config;
+
+    private final List<CircuitBreakerListener> listeners;
+
+    /**
+     * 滑动窗口，环形记录最近的调用结果
+     */
+    private final boolean[] failures;
+
+    private final boolean[] slowCalls;
+
+    private int position;
+
+    private int size;
+
+    private int failureCount;
+
+    private int slowCallCount;
+
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    /**
+     * 半开状态剩余的探测名额
+     */
+    private int halfOpenPermits;
+
+    CircuitBreaker(String key, CircuitBreakerConfig config, List<CircuitBreakerListener> listeners) {
+        this.key = key;
+        this.config = config;
+        this.listeners = listeners;
+        this.failures = new boolean[config.getSlidingWindowSize()];
+        this.slowCalls = new boolean[config.getSlidingWindowSize()];
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public CircuitBreakerConfig getConfig() {
+        return config;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 窗口内失败率（百分比），调用次数不足时返回 -1
+     */
+    public synchronized float getFailureRate() {
+        return size < minimumCalls() ? -1 : failureCount * 100f / size;
+    }
+
+    /**
+     * 窗口内慢调用率（百分比），调用次数不足时返回 -1
+     */
+    public synchronized float getSlowCallRate() {
+        return size < minimumCalls() ? -1 : slowCallCount * 100f / size;
+    }
+
+    /**
+     * 请求发送前获取许可，获取成功后必须调用 onSuccess、onError 或 onIgnored
+     *
+     * @return false 表示熔断中，不应发送请求
+     */
+    public boolean tryAcquirePermission() {
+        State from;
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.HALF_OPEN) {
+                return takeHalfOpenPermit();
+            }
+            if (System.currentTimeMillis() - openedAt < config.getWaitDurationInOpenMillis()) {
+                return false;
+            }
+            from = transitionTo(State.HALF_OPEN);
+            takeHalfOpenPermit();
+        }
+        fireStateChange(from, State.HALF_OPEN);
+        return true;
+    }
+
+    public void onSuccess(long durationMillis) {
+        record(false, durationMillis);
+    }
+
+    public void onError(long durationMillis) {
+        record(true, durationMillis);
+    }
+
+    /**
+     * 请求被调用方取消或中断，结果不反映服务端状态：不计入统计，半开状态归还探测名额
+     */
+    public synchronized void onIgnored() {
+        //名额只能归还给尚未出结果的探测请求
+        if (state == State.HALF_OPEN && halfOpenPermits + size < config.getPermittedCallsInHalfOpen()) {
+            halfOpenPermits++;
+        }
+    }
+
+    private void record(boolean failure, long durationMillis) {
+        State from;
+        State to;
+        synchronized (this) {
+            if (state == State.OPEN) {
+                //打开前放行的请求，结果不再计入
+                return;
+            }
+            boolean slow = durationMillis >= config.getSlowCallDurationMillis();
+            if (size == failures.length) {
+                failureCount -= failures[position] ? 1 : 0;
+                slowCallCount -= slowCalls[position] ? 1 : 0;
+            } else {
+                size++;
+            }
+            failures[position] = failure;
+            slowCalls[position] = slow;
+            failureCount += failure ? 1 : 0;
+            slowCallCount += slow ? 1 : 0;
+            position = (position + 1) % failures.length;
+
+            if (size < minimumCalls()) {
+                return;
+            }
+            boolean exceeded = failureCount * 100 >= config.getFailureRateThreshold() * size
+                    || slowCallCount * 100 >= config.getSlowCallRateThreshold() * size;
+            if (exceeded) {
+                to = State.OPEN;
+            } else if (state == State.HALF_OPEN) {
+                to = State.CLOSED;
+            } else {
+                return;
+            }
+            from = transitionTo(to);
+        }
+        fireStateChange(from, to);
+    }
+
+    /**
+     * 半开状态只统计探测请求，窗口大小即探测数
+     */
+    private int minimumCalls() {
+        return state == State.HALF_OPEN
+                ? config.getPermittedCallsInHalfOpen()
+                : Math.min(config.getMinimumNumberOfCalls(), failures.length);
+    }
+
+    private boolean takeHalfOpenPermit() {
+        if (halfOpenPermits <= 0) {
+            return false;
+        }
+        halfOpenPermits--;
+        return true;
+    }
+
+    private State transitionTo(State to) {
+        State from = state;
+        state = to;
+        position = 0;
+        size = 0;
+        failureCount = 0;
+        slowCallCount = 0;
+        if (to == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        } else if (to == State.HALF_OPEN) {
+            halfOpenPermits = config.getPermittedCallsInHalfOpen();
+        }
+        return from;
+    }
+
+    private void fireStateChange(State from, State to) {
+        log.warn("circuit breaker state change,key:{},from:{},to:{}", key, from, to);
+        for (CircuitBreakerListener listener : listeners) {
+            try {
+                listener.onStateChange(this, from, to);
+            } catch (RuntimeException e) {
+                log.warn("circuit breaker listener occur exception", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package common.policy;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname CircuitBreakerConfig
+ * @Description 熔断配置，按最近 slidingWindowSize 次调用的失败率与慢调用率判断是否熔断
+ */
+@Data
+@Builder
+public class CircuitBreakerConfig {
+
+    /**
+     * 失败率阈值（百分比），达到后熔断
+     */
+    @Builder.Default
+    private Integer failureRateThreshold = 50;
+
+    /**
+     * 慢调用率阈值（百分比），达到后熔断
+     */
+    @Builder.Default
+    private Integer slowCallRateThreshold = 80;
+
+    /**
+     * 超过该耗时视为慢调用（单位：毫秒）
+     */
+    @Builder.Default
+    private Long slowCallDurationMillis = 10000L;
+
+    /**
+     * 滑动窗口大小（调用次数）
+     */
+    @Builder.Default
+    private Integer slidingWindowSize = 100;
+
+    /**
+     * 窗口内调用次数达到该值后才计算失败率
+     */
+    @Builder.Default
+    private Integer minimumNumberOfCalls = 20;
+
+    /**
+     * 熔断持续时间（单位：毫秒），之后进入半开状态
+     */
+    @Builder.Default
+    private Long waitDurationInOpenMillis = 30000L;
+
+    /**
+     * 半开状态允许通过的探测调用数
+     */
+    @Builder.Default
+    private Integer permittedCallsInHalfOpen = 5;
+
+    public static CircuitBreakerConfig defaultConfig() {
+        return CircuitBreakerConfig.builder().build();
+    }
+}
@@ -0,0 +1,10 @@
+package common.policy;
+
+/**
+ * @Classname CircuitBreakerListener
+ * @Description 熔断状态变化监听，在触发状态变化的调用线程中同步执行，应尽快返回
+ */
+public interface CircuitBreakerListener {
+
+    void onStateChange(CircuitBreaker circuitBreaker, CircuitBreaker.State from, CircuitBreaker.State to);
+}
@@ -0,0 +1,50 @@
+package common.policy;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @Classname CircuitBreakerRegistry
+ * @Description 熔断器注册表，按 service/region/host 维护熔断器，同一 key 以首次创建时的配置为准
+ */
+public class CircuitBreakerRegistry {
+
+    private static final CircuitBreakerRegistry DEFAULT = new CircuitBreakerRegistry();
+
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    private final List<CircuitBreakerListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 进程内共享实例
+     */
+    public static CircuitBreakerRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public static String key(String service, String region, String host) {
+        return service + "/" + region + "/" + host;
+    }
+
+    public CircuitBreaker circuitBreaker(String key, CircuitBreakerConfig config) {
+        return circuitBreakers.computeIfAbsent(key, k -> new CircuitBreaker(k, config, listeners));
+    }
+
+    /**
+     * 监听本注册表下所有熔断器的状态变化
+     */
+    public void addListener(CircuitBreakerListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CircuitBreakerListener listener) {
+        listeners.remove(listener);
+    }
+
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableMap(circuitBreakers);
+    }
+}
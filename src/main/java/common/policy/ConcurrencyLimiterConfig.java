@@ -0,0 +1,72 @@
+package common.policy;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname ConcurrencyLimiterConfig
+ * @Description 自适应并发限制配置，按 service/region/host 限制同时在途的请求数。
+ * 延迟接近最小 RTT 时上限增长，出现排队延迟、限流响应或超时时上限下降（TCP Vegas）
+ */
+@Data
+@Builder
+public class ConcurrencyLimiterConfig {
+
+    /**
+     * 初始并发上限
+     */
+    @Builder.Default
+    private Integer initialLimit = 20;
+
+    /**
+     * 并发上限的下限
+     */
+    @Builder.Default
+    private Integer minLimit = 1;
+
+    /**
+     * 并发上限的上限
+     */
+    @Builder.Default
+    private Integer maxLimit = 200;
+
+    /**
+     * 估算的排队请求数低于 alpha * log10(limit) 时增大上限
+     */
+    @Builder.Default
+    private Double alpha = 3.0;
+
+    /**
+     * 估算的排队请求数高于 beta * log10(limit) 时减小上限
+     */
+    @Builder.Default
+    private Double beta = 6.0;
+
+    /**
+     * 收到限流响应或超时时上限乘以该系数
+     */
+    @Builder.Default
+    private Double backoffRatio = 0.9;
+
+    /**
+     * 最小 RTT 的有效期（单位：毫秒），过期后以新的样本重新测量，适应服务端延迟基线的变化
+     */
+    @Builder.Default
+    private Long minRttWindowMillis = 30000L;
+
+    /**
+     * 在途请求达到上限时的排队数上限，排队已满的请求直接抛出 ConcurrencyLimitExceededException
+     */
+    @Builder.Default
+    private Integer maxQueueDepth = 100;
+
+    /**
+     * 排队的最长等待时间（单位：毫秒），超过时抛出 ConcurrencyLimitExceededException；0表示不排队，直接拒绝
+     */
+    @Builder.Default
+    private Long maxWaitMillis = 0L;
+
+    public static ConcurrencyLimiterConfig defaultConfig() {
+        return ConcurrencyLimiterConfig.builder().build();
+    }
+}
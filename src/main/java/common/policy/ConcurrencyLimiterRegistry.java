@@ -0,0 +1,31 @@
+package common.policy;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Classname ConcurrencyLimiterRegistry
+ * @Description 并发限制注册表，按 service/region/host 维护并发限制，同一 key 以首次创建时的配置为准
+ */
+public class ConcurrencyLimiterRegistry {
+
+    private static final ConcurrencyLimiterRegistry DEFAULT = new ConcurrencyLimiterRegistry();
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * 进程内共享实例
+     */
+    public static ConcurrencyLimiterRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public AdaptiveConcurrencyLimiter limiter(String key, ConcurrencyLimiterConfig config) {
+        return limiters.computeIfAbsent(key, k -> new AdaptiveConcurrencyLimiter(k, config));
+    }
+
+    public Map<String, AdaptiveConcurrencyLimiter> getLimiters() {
+        return Collections.unmodifiableMap(limiters);
+    }
+}
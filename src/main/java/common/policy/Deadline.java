@@ -0,0 +1,88 @@
+package common.policy;
+
+import common.exception.DeadlineExceededException;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Classname Deadline
+ * @Description 一次调用的截止时间，由绝对时间或剩余预算创建，基于 System.nanoTime 计时，不受系统时钟调整影响
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * 从现在起 budgetMillis 毫秒后截止
+     */
+    public static Deadline after(long budgetMillis) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis));
+    }
+
+    /**
+     * 在指定时刻截止，如上游请求携带的截止时间
+     */
+    public static Deadline at(Instant instant) {
+        return after(instant.toEpochMilli() - System.currentTimeMillis());
+    }
+
+    /**
+     * 两个截止时间中较早的一个，参数可为 null
+     */
+    public static Deadline earliest(Deadline first, Deadline second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return first.deadlineNanos - second.deadlineNanos <= 0 ? first : second;
+    }
+
+    /**
+     * 剩余时间（单位：毫秒），向上取整，按此等待后一定已截止；已截止时为0
+     */
+    public long remainingMillis() {
+        long remaining = deadlineNanos - System.nanoTime();
+        return remaining <= 0 ? 0L : (remaining + 999_999L) / 1_000_000L;
+    }
+
+    public boolean isExpired() {
+        return expiresWithin(0);
+    }
+
+    /**
+     * 剩余时间不超过 millis 毫秒，即等待 millis 毫秒后已截止
+     */
+    public boolean expiresWithin(long millis) {
+        return deadlineNanos - System.nanoTime() <= TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * 超时取值不超过剩余时间，至少为1毫秒；timeoutMillis 小于等于0表示不限制，此时取剩余时间
+     */
+    public int cap(int timeoutMillis) {
+        long remaining = Math.max(1L, Math.min(Integer.MAX_VALUE, remainingMillis()));
+        return timeoutMillis <= 0 ? (int) remaining : (int) Math.min(timeoutMillis, remaining);
+    }
+
+    /**
+     * @param stage 放弃时所处的阶段，如 queue、sign、retry
+     */
+    public DeadlineExceededException exceeded(String stage) {
+        long overdue = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - deadlineNanos);
+        return new DeadlineExceededException(overdue >= 0
+                ? "deadline exceeded before " + stage + ",overdue " + overdue + "ms"
+                : "deadline exceeded before " + stage + ",remaining " + (-overdue) + "ms is not enough");
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline(remaining " + remainingMillis() + "ms)";
+    }
+}
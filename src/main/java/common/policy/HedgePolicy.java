@@ -0,0 +1,57 @@
+package common.policy;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname HedgePolicy
+ * @Description 对冲请求策略：幂等请求超过该 action 的历史分位延迟仍未返回时，重新签名再发送一次，取先返回的结果
+ */
+@Data
+@Builder
+public class HedgePolicy {
+
+    /**
+     * 触发对冲的延迟分位数
+     */
+    @Builder.Default
+    private Double percentile = 0.95;
+
+    /**
+     * 样本数不足时不对冲
+     */
+    @Builder.Default
+    private Integer minSamples = 20;
+
+    /**
+     * 对冲等待下限（单位：毫秒），避免极快的接口频繁对冲
+     */
+    @Builder.Default
+    private Long minDelayMillis = 10L;
+
+    /**
+     * 对冲等待上限（单位：毫秒）
+     */
+    @Builder.Default
+    private Long maxDelayMillis = 10000L;
+
+    public static HedgePolicy defaultPolicy() {
+        return HedgePolicy.builder().build();
+    }
+
+    /**
+     * 对冲等待时间
+     *
+     * @return 小于0表示不对冲
+     */
+    public long hedgeDelayMillis(LatencyHistogram histogram) {
+        if (histogram.count() < minSamples) {
+            return -1;
+        }
+        long delay = histogram.percentile(percentile);
+        if (delay < 0) {
+            return -1;
+        }
+        return Math.min(maxDelayMillis, Math.max(minDelayMillis, delay));
+    }
+}
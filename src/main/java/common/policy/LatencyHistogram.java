@@ -0,0 +1,147 @@
+package common.policy;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @Classname LatencyHistogram
+ * @Description 滚动时间窗口内的延迟直方图，桶按指数划分（相对误差约12%），记录与查询均无锁。
+ * 窗口由若干时间片组成，过期的时间片在下次写入时清零
+ */
+public class LatencyHistogram {
+
+    private static final double BUCKET_GROWTH = 1.25;
+
+    /**
+     * 各桶上界（单位：毫秒），从1ms到约10分钟
+     */
+    private static final long[] BOUNDS = buildBounds();
+
+    private final long sliceMillis;
+
+    private final Slice[] slices;
+
+    public LatencyHistogram() {
+        this(6, 10000L);
+    }
+
+    /**
+     * @param sliceCount  时间片个数
+     * @param sliceMillis 每个时间片的长度（单位：毫秒），窗口长度为 sliceCount * sliceMillis
+     */
+    public LatencyHistogram(int sliceCount, long sliceMillis) {
+        if (sliceCount <= 0 || sliceMillis <= 0) {
+            throw new IllegalArgumentException("sliceCount and sliceMillis must be positive");
+        }
+        this.sliceMillis = sliceMillis;
+        this.slices = new Slice[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new Slice();
+        }
+    }
+
+    private static long[] buildBounds() {
+        long[] bounds = new long[64];
+        double bound = 1;
+        int count = 0;
+        while (count < bounds.length && bound <= 600000) {
+            long value = (long) Math.ceil(bound);
+            if (count == 0 || value > bounds[count - 1]) {
+                bounds[count++] = value;
+            }
+            bound *= BUCKET_GROWTH;
+        }
+        long[] result = new long[count + 1];
+        System.arraycopy(bounds, 0, result, 0, count);
+        result[count] = Long.MAX_VALUE;
+        return result;
+    }
+
+    public void record(long latencyMillis) {
+        long epoch = System.currentTimeMillis() / sliceMillis;
+        Slice slice = slices[(int) (epoch % slices.length)];
+        if (slice.epoch != epoch) {
+            synchronized (slice) {
+                if (slice.epoch != epoch) {
+                    for (int i = 0; i < slice.counts.length(); i++) {
+                        slice.counts.set(i, 0);
+                    }
+                    slice.epoch = epoch;
+                }
+            }
+        }
+        slice.counts.incrementAndGet(bucketOf(Math.max(0, latencyMillis)));
+    }
+
+    /**
+     * 窗口内的样本数
+     */
+    public long count() {
+        long total = 0;
+        long oldest = oldestEpoch();
+        for (Slice slice : slices) {
+            if (slice.epoch >= oldest) {
+                for (int i = 0; i < slice.counts.length(); i++) {
+                    total += slice.counts.get(i);
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 窗口内的分位数，返回所在桶的上界
+     *
+     * @param percentile 0-1之间，如 0.95
+     * @return 无样本时返回 -1
+     */
+    public long percentile(double percentile) {
+        long oldest = oldestEpoch();
+        long[] merged = new long[BOUNDS.length];
+        long total = 0;
+        for (Slice slice : slices) {
+            if (slice.epoch < oldest) {
+                continue;
+            }
+            for (int i = 0; i < merged.length; i++) {
+                long count = slice.counts.get(i);
+                merged[i] += count;
+                total += count;
+            }
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(Math.min(1.0, Math.max(0.0, percentile)) * total);
+        long cumulative = 0;
+        for (int i = 0; i < merged.length; i++) {
+            cumulative += merged[i];
+            if (cumulative >= rank && merged[i] > 0) {
+                return BOUNDS[i];
+            }
+        }
+        return BOUNDS[BOUNDS.length - 1];
+    }
+
+    private long oldestEpoch() {
+        return System.currentTimeMillis() / sliceMillis - slices.length + 1;
+    }
+
+    private static int bucketOf(long latencyMillis) {
+        int low = 0;
+        int high = BOUNDS.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BOUNDS[mid] >= latencyMillis) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static class Slice {
+        private volatile long epoch = Long.MIN_VALUE;
+        private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length);
+    }
+}
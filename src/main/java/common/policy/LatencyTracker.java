@@ -0,0 +1,34 @@
+package common.policy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Classname LatencyTracker
+ * @Description 按 service/region/action 统计成功请求的延迟，供对冲请求与自适应超时使用
+ */
+public class LatencyTracker {
+
+    private static final LatencyTracker DEFAULT = new LatencyTracker();
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * 进程内共享实例
+     */
+    public static LatencyTracker getDefault() {
+        return DEFAULT;
+    }
+
+    public static String key(String service, String region, String action) {
+        return service + "/" + region + "/" + action;
+    }
+
+    public void record(String key, long latencyMillis) {
+        histogram(key).record(latencyMillis);
+    }
+
+    public LatencyHistogram histogram(String key) {
+        return histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+}
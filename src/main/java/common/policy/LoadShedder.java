@@ -0,0 +1,157 @@
+package common.policy;
+
+import common.constant.RequestPriorityEnum;
+import common.exception.OverloadException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Classname LoadShedder
+ * @Description 客户端过载保护。调用进入时检查排队数与在途字节数，首次发出前检查排队时间，超过预算时抛出 OverloadException，
+ * 避免过载时请求体与响应体堆满内存、调用方长时间等待。可在多个客户端间共享，共用同一份预算
+ */
+@Slf4j
+public class LoadShedder {
+
+    private final LoadShedderConfig config;
+
+    private final AtomicLong inFlightBytes = new AtomicLong();
+
+    private int queuedCalls;
+
+    private long shedCount;
+
+    public LoadShedder(LoadShedderConfig config) {
+        this.config = config;
+    }
+
+    public LoadShedderConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 已接收但尚未发出的调用数
+     */
+    public synchronized int getQueuedCalls() {
+        return queuedCalls;
+    }
+
+    /**
+     * 在途调用的请求体与已读取的响应体字节数
+     */
+    public long getInFlightBytes() {
+        return inFlightBytes.get();
+    }
+
+    /**
+     * 累计拒绝的调用数
+     */
+    public synchronized long getShedCount() {
+        return shedCount;
+    }
+
+    /**
+     * 以 INTERACTIVE 优先级接收一次调用
+     */
+    public Ticket admit(long requestBytes) {
+        return admit(requestBytes, RequestPriorityEnum.INTERACTIVE);
+    }
+
+    /**
+     * 接收一次调用，BATCH 调用只能使用 batchBudgetRatio 比例的预算
+     *
+     * @param requestBytes 请求体字节数
+     * @return 调用结束后需 close
+     * @throws OverloadException 排队数或在途字节数超过预算
+     */
+    public Ticket admit(long requestBytes, RequestPriorityEnum priority) {
+        double ratio = priority == RequestPriorityEnum.BATCH && config.getBatchBudgetRatio() != null
+                ? config.getBatchBudgetRatio() : 1.0;
+        synchronized (this) {
+            if (queuedCalls >= config.getMaxQueuedCalls() * ratio) {
+                throw shed(OverloadException.Reason.QUEUED_CALLS, "client overloaded,queued calls " + queuedCalls
+                        + ",priority " + priority);
+            }
+            long bytes = inFlightBytes.get();
+            //没有在途字节时总是放行，超过预算的单个请求不会一直被拒绝
+            if (bytes > 0 && bytes + requestBytes > config.getMaxInFlightBytes() * ratio) {
+                throw shed(OverloadException.Reason.IN_FLIGHT_BYTES, "client overloaded,in-flight bytes " + bytes
+                        + ",request bytes " + requestBytes + ",priority " + priority);
+            }
+            queuedCalls++;
+            inFlightBytes.addAndGet(requestBytes);
+        }
+        return new Ticket(requestBytes);
+    }
+
+    private synchronized OverloadException shed(OverloadException.Reason reason, String message) {
+        shedCount++;
+        log.info("rpc request shed,reason:{},{}", reason, message);
+        return new OverloadException(reason, message);
+    }
+
+    private synchronized void dequeue() {
+        queuedCalls--;
+    }
+
+    /**
+     * 一次调用占用的预算
+     */
+    public final class Ticket {
+
+        private final long admittedNanos = System.nanoTime();
+
+        private final AtomicBoolean dispatched = new AtomicBoolean();
+
+        private long bytes;
+
+        private boolean closed;
+
+        private Ticket(long requestBytes) {
+            this.bytes = requestBytes;
+        }
+
+        /**
+         * 首次发出前调用，离开排队状态；重复调用无效
+         *
+         * @throws OverloadException 排队时间超过预算
+         */
+        public void dispatch() {
+            if (!dispatched.compareAndSet(false, true)) {
+                return;
+            }
+            dequeue();
+            long queuedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - admittedNanos);
+            if (config.getMaxQueueTimeMillis() > 0 && queuedMillis > config.getMaxQueueTimeMillis()) {
+                throw shed(OverloadException.Reason.QUEUE_TIME, "client overloaded,queued " + queuedMillis + "ms");
+            }
+        }
+
+        /**
+         * 记录已读取的响应体字节数
+         */
+        public synchronized void addResponseBytes(long count) {
+            if (!closed) {
+                bytes += count;
+                inFlightBytes.addAndGet(count);
+            }
+        }
+
+        /**
+         * 调用结束，归还预算；重复调用无效
+         */
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (dispatched.compareAndSet(false, true)) {
+                dequeue();
+            }
+            inFlightBytes.addAndGet(-bytes);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package common.policy;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @Classname LoadShedderConfig
+ * @Description 客户端过载保护配置，排队的调用数、在途请求与响应字节数、排队时间超过预算时直接拒绝
+ */
+@Data
+@Builder
+public class LoadShedderConfig {
+
+    /**
+     * 已接收但尚未发出的调用数上限，包括在舱壁、并发限制、限流中等待的调用
+     */
+    @Builder.Default
+    private Integer maxQueuedCalls = 1000;
+
+    /**
+     * 在途调用的请求体与已读取的响应体字节数上限，超过后拒绝新的调用，默认64MB
+     */
+    @Builder.Default
+    private Long maxInFlightBytes = 64L * 1024 * 1024;
+
+    /**
+     * 调用从接收到首次发出的最长排队时间（单位：毫秒），超过时不再发送，直接拒绝；小于等于0表示不限制
+     */
+    @Builder.Default
+    private Long maxQueueTimeMillis = 5000L;
+
+    /**
+     * BATCH 调用可使用的排队数与在途字节数预算比例，过载时先拒绝批量调用，为交互式调用保留余量
+     */
+    @Builder.Default
+    private Double batchBudgetRatio = 0.5;
+
+    public static LoadShedderConfig defaultConfig() {
+        return LoadShedderConfig.builder().build();
+    }
+}
@@ -0,0 +1,26 @@
+package common.policy;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Classname PolicyScheduler
+ * @Description 异步重试、对冲等延迟任务使用的共享调度线程，任务本身应尽快返回
+ */
+public final class PolicyScheduler {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ksyun-policy-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private PolicyScheduler() {
+    }
+
+    public static ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return SCHEDULER.schedule(task, Math.max(0L, delayMillis), TimeUnit.MILLISECONDS);
+    }
+}
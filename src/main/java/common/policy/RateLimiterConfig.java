@@ -0,0 +1,75 @@
+package common.policy;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Classname RateLimiterConfig
+ * @Description 客户端限流配置，按 service/region/action 限流；收到限流响应时速率乘性下降，之后随成功请求加性恢复（AIMD）
+ */
+@Data
+@Builder
+public class RateLimiterConfig {
+
+    /**
+     * 每秒请求数上限，也是恢复的目标速率
+     */
+    @Builder.Default
+    private Double permitsPerSecond = 50.0;
+
+    /**
+     * 按 action 覆盖 permitsPerSecond
+     */
+    @Builder.Default
+    private Map<String, Double> actionPermitsPerSecond = new HashMap<>();
+
+    /**
+     * 速率下限
+     */
+    @Builder.Default
+    private Double minPermitsPerSecond = 1.0;
+
+    /**
+     * 令牌桶容量，允许的突发请求数，为空时等于一秒的请求数
+     */
+    private Integer maxBurstPermits;
+
+    /**
+     * 收到限流响应时速率乘以该系数
+     */
+    @Builder.Default
+    private Double decreaseFactor = 0.5;
+
+    /**
+     * 每成功约一秒的请求量（当前速率个请求），速率增加该值
+     */
+    @Builder.Default
+    private Double additiveIncrease = 1.0;
+
+    /**
+     * 两次降速的最小间隔（单位：毫秒），同一批并发请求的限流响应只降速一次
+     */
+    @Builder.Default
+    private Long decreaseCooldownMillis = 1000L;
+
+    /**
+     * 本地排队的最长等待时间（单位：毫秒），超过时抛出 RateLimitExceededException
+     */
+    @Builder.Default
+    private Long maxWaitMillis = 30000L;
+
+    public static RateLimiterConfig defaultConfig() {
+        return RateLimiterConfig.builder().build();
+    }
+
+    /**
+     * action 对应的速率上限
+     */
+    public double permitsPerSecond(String action) {
+        Double permits = action == null ? null : actionPermitsPerSecond.get(action);
+        return permits != null ? permits : permitsPerSecond;
+    }
+}
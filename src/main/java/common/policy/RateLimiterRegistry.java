@@ -0,0 +1,35 @@
+package common.policy;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Classname RateLimiterRegistry
+ * @Description 限流器注册表，按 service/region/action 维护限流器，同一 key 以首次创建时的配置为准
+ */
+public class RateLimiterRegistry {
+
+    private static final RateLimiterRegistry DEFAULT = new RateLimiterRegistry();
+
+    private final Map<String, AdaptiveRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    /**
+     * 进程内共享实例
+     */
+    public static RateLimiterRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param key    service/region/action
+     * @param action 用于查找 action 级别的速率配置
+     */
+    public AdaptiveRateLimiter rateLimiter(String key, String action, RateLimiterConfig config) {
+        return rateLimiters.computeIfAbsent(key, k -> new AdaptiveRateLimiter(k, config, config.permitsPerSecond(action)));
+    }
+
+    public Map<String, AdaptiveRateLimiter> getRateLimiters() {
+        return Collections.unmodifiableMap(rateLimiters);
+    }
+}
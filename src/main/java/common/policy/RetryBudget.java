@@ -0,0 +1,87 @@
+package common.policy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Classname RetryBudget
+ * @Description 重试令牌桶，每次重试消耗令牌，成功请求归还少量令牌，令牌耗尽时不再重试，避免重试放大故障期间的请求量
+ */
+public class RetryBudget {
+
+    private static final RetryBudget DEFAULT = new RetryBudget(500, 5, 10, 1);
+
+    private final int capacity;
+
+    /**
+     * 普通重试消耗的令牌数
+     */
+    private final int retryCost;
+
+    /**
+     * 超时类错误重试消耗的令牌数
+     */
+    private final int timeoutRetryCost;
+
+    /**
+     * 请求成功归还的令牌数
+     */
+    private final int successRefund;
+
+    private final AtomicInteger tokens;
+
+    public RetryBudget(int capacity, int retryCost, int timeoutRetryCost, int successRefund) {
+        this.capacity = capacity;
+        this.retryCost = retryCost;
+        this.timeoutRetryCost = timeoutRetryCost;
+        this.successRefund = successRefund;
+        this.tokens = new AtomicInteger(capacity);
+    }
+
+    /**
+     * 进程内共享的默认重试预算
+     */
+    public static RetryBudget defaultBudget() {
+        return DEFAULT;
+    }
+
+    /**
+     * 尝试获取一次重试的令牌
+     *
+     * @param timeout 是否为超时类错误
+     */
+    public boolean tryAcquire(boolean timeout) {
+        int cost = timeout ? timeoutRetryCost : retryCost;
+        while (true) {
+            int current = tokens.get();
+            if (current < cost) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - cost)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 请求成功后归还令牌
+     */
+    public void onSuccess() {
+        while (true) {
+            int current = tokens.get();
+            if (current >= capacity) {
+                return;
+            }
+            if (tokens.compareAndSet(current, Math.min(capacity, current + successRefund))) {
+                return;
+            }
+        }
+    }
+
+    public int getAvailableTokens() {
+        return tokens.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,230 @@
+package common.policy;
+
+import lombok.Builder;
+import lombok.Data;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @Classname RetryPolicy
+ * @Description 重试策略：按错误类型与幂等性判断是否重试，退避时间使用 full jitter，并受 RetryBudget 限制。
+ * 连接阶段失败、429 与限流错误码说明请求未被处理，任何请求都可重试；读超时、5xx（含503）只对幂等请求重试
+ */
+@Data
+@Builder
+public class RetryPolicy {
+
+    /**
+     * 最大尝试次数（含首次请求）
+     */
+    @Builder.Default
+    private Integer maxAttempts = 3;
+
+    /**
+     * 退避基数（单位：毫秒）
+     */
+    @Builder.Default
+    private Long baseDelayMillis = 100L;
+
+    /**
+     * 单次退避上限（单位：毫秒）
+     */
+    @Builder.Default
+    private Long maxDelayMillis = 20000L;
+
+    /**
+     * 幂等请求可重试的 http 状态码
+     */
+    @Builder.Default
+    private Set<Integer> retryableStatusCodes = new HashSet<>(Arrays.asList(500, 502, 503, 504));
+
+    /**
+     * 限流 http 状态码，收到时限流器降速，幂等请求可重试
+     */
+    @Builder.Default
+    private Set<Integer> throttlingStatusCodes = new HashSet<>(Arrays.asList(429, 503));
+
+    /**
+     * 非幂等请求可重试的 http 状态码，只包含明确表示请求未被处理的状态码；503 可能由已转发请求的网关返回，不在其中
+     */
+    @Builder.Default
+    private Set<Integer> nonIdempotentRetryableStatusCodes = new HashSet<>(Collections.singletonList(429));
+
+    /**
+     * 限流错误码（BaseResponseModel.ErrorDto.code），服务端未处理请求，任何请求都可重试
+     */
+    @Builder.Default
+    private Set<String> throttlingErrorCodes = new HashSet<>(Arrays.asList(
+            "Throttling", "ThrottlingException", "Throttling.User", "Throttling.Api",
+            "RequestLimitExceeded", "TooManyRequests", "RequestThrottled", "SlowDown"));
+
+    /**
+     * 幂等请求可重试的服务端错误码
+     */
+    @Builder.Default
+    private Set<String> retryableErrorCodes = new HashSet<>(Arrays.asList(
+            "InternalError", "InternalFailure", "ServiceUnavailable", "ServiceBusy"));
+
+    /**
+     * 重试预算，为空时不限制
+     */
+    @Builder.Default
+    private RetryBudget retryBudget = RetryBudget.defaultBudget();
+
+    public static RetryPolicy defaultPolicy() {
+        return RetryPolicy.builder().build();
+    }
+
+    /**
+     * 不重试
+     */
+    public static RetryPolicy none() {
+        return RetryPolicy.builder().maxAttempts(1).build();
+    }
+
+    /**
+     * 请求异常后的重试等待时间
+     *
+     * @param attempt    已完成的尝试次数
+     * @param idempotent 请求是否幂等
+     * @param error      异常
+     * @return 等待时间（单位：毫秒），小于0表示不重试
+     */
+    public long delayForException(int attempt, boolean idempotent, Throwable error) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+        boolean retryable = isConnectFailure(error) || (idempotent && isReadFailure(error));
+        if (!retryable || !acquire(isTimeout(error))) {
+            return -1;
+        }
+        return backoff(attempt);
+    }
+
+    /**
+     * 收到错误响应后的重试等待时间
+     *
+     * @param attempt    已完成的尝试次数
+     * @param idempotent 请求是否幂等
+     * @param statusCode http 状态码
+     * @param errorCode  响应中的错误码，可为空
+     * @param retryAfter Retry-After 响应头，可为空
+     * @return 等待时间（单位：毫秒），小于0表示不重试
+     */
+    public long delayForResponse(int attempt, boolean idempotent, int statusCode, String errorCode, String retryAfter) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+        boolean retryable = idempotent
+                ? isThrottling(statusCode, errorCode) || retryableStatusCodes.contains(statusCode)
+                || (errorCode != null && retryableErrorCodes.contains(errorCode))
+                : nonIdempotentRetryableStatusCodes.contains(statusCode)
+                || (errorCode != null && throttlingErrorCodes.contains(errorCode));
+        if (!retryable || !acquire(false)) {
+            return -1;
+        }
+        long delay = backoff(attempt);
+        long retryAfterMillis = parseRetryAfterMillis(retryAfter);
+        if (retryAfterMillis > delay) {
+            delay = Math.min(retryAfterMillis, maxDelayMillis);
+        }
+        return delay;
+    }
+
+    /**
+     * 是否为限流响应
+     */
+    public boolean isThrottling(int statusCode, String errorCode) {
+        return throttlingStatusCodes.contains(statusCode)
+                || (errorCode != null && throttlingErrorCodes.contains(errorCode));
+    }
+
+    /**
+     * 请求成功，归还重试令牌
+     */
+    public void onSuccess() {
+        if (retryBudget != null) {
+            retryBudget.onSuccess();
+        }
+    }
+
+    /**
+     * full jitter：在 [0, min(上限, 基数 * 2^(attempt-1))] 内随机
+     */
+    private long backoff(int attempt) {
+        long ceiling = baseDelayMillis << Math.min(attempt - 1, 30);
+        if (ceiling <= 0 || ceiling > maxDelayMillis) {
+            ceiling = maxDelayMillis;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private boolean acquire(boolean timeout) {
+        return retryBudget == null || retryBudget.tryAcquire(timeout);
+    }
+
+    /**
+     * Retry-After 响应头，仅支持秒数格式
+     */
+    public static long parseRetryAfterMillis(String retryAfter) {
+        if (retryAfter == null || retryAfter.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(retryAfter.trim()) * 1000L;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 连接阶段失败，请求未发出
+     */
+    public static boolean isConnectFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ConnectException || t instanceof ConnectTimeoutException
+                    || t instanceof UnknownHostException
+                    || "java.net.http.HttpConnectTimeoutException".equals(t.getClass().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取阶段失败，请求可能已被处理
+     */
+    public static boolean isReadFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SocketTimeoutException || t instanceof NoHttpResponseException
+                    || t instanceof SocketException
+                    || "java.net.http.HttpTimeoutException".equals(t.getClass().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 连接或读取超时
+     */
+    public static boolean isTimeout(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SocketTimeoutException || t instanceof ConnectTimeoutException
+                    || t.getClass().getName().startsWith("java.net.http.Http")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
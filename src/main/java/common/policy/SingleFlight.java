@@ -0,0 +1,242 @@
+package common.policy;
+
+import common.exception.CallCancelledException;
+import common.exception.DeadlineExceededException;
+import common.http.Cancellation;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @Classname SingleFlight
+ * @Description 合并相同 key 的并发调用：同一时刻只执行一次，其余调用等待并共享同一结果（包括异常）。调用结束后立即移除，不做缓存。
+ * 等待的调用按各自的截止时间与取消信号放弃等待；执行的调用被取消或截止时，其结果不共享，等待的调用重新发起
+ */
+public class SingleFlight {
+
+    private static final SingleFlight DEFAULT = new SingleFlight();
+
+    /**
+     * 执行的调用被取消或截止，等待的调用需重新发起
+     */
+    private static final Object ABORTED = new Object();
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 共享了其他调用结果的次数
+     */
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * 进程内共享实例
+     */
+    public static SingleFlight getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 同步执行，已有相同 key 的调用在执行时等待其结果
+     */
+    public <T> T execute(String key, Callable<T> loader) throws Exception {
+        return execute(key, loader, null, null);
+    }
+
+    /**
+     * 同步执行，已有相同 key 的调用在执行时等待其结果
+     *
+     * @param deadline     等待的截止时间，可为 null
+     * @param cancellation 等待时的取消信号，可为 null
+     * @throws DeadlineExceededException 等待时已截止
+     * @throws CallCancelledException    等待时被取消
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Callable<T> loader, Deadline deadline, Cancellation cancellation) throws Exception {
+        while (true) {
+            CompletableFuture<Object> created = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+            if (existing == null) {
+                return lead(key, created, loader);
+            }
+            shared.increment();
+            Object result = await(existing, deadline, cancellation);
+            if (result != ABORTED) {
+                return (T) result;
+            }
+        }
+    }
+
+    /**
+     * 异步执行，各调用方拿到独立的 future，取消其中一个不影响其他调用方
+     */
+    public <T> CompletableFuture<T> executeAsync(String key, Supplier<CompletableFuture<T>> loader) {
+        return executeAsync(key, loader, null, null);
+    }
+
+    /**
+     * 异步执行，各调用方拿到独立的 future，取消其中一个不影响其他调用方
+     *
+     * @param deadline     等待的截止时间，到期时以 DeadlineExceededException 完成，可为 null
+     * @param cancellation 等待时的取消信号，取消时返回的 future 被取消，可为 null
+     */
+    public <T> CompletableFuture<T> executeAsync(String key, Supplier<CompletableFuture<T>> loader, Deadline deadline,
+                                                 Cancellation cancellation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executeAsync(key, loader, deadline, cancellation, result);
+        return result;
+    }
+
+    /**
+     * 正在执行的调用数
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getSharedCount() {
+        return shared.sum();
+    }
+
+    private <T> T lead(String key, CompletableFuture<Object> created, Callable<T> loader) throws Exception {
+        T result;
+        try {
+            result = loader.call();
+        } catch (Throwable e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(key, created);
+        created.complete(result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void executeAsync(String key, Supplier<CompletableFuture<T>> loader, Deadline deadline, Cancellation cancellation,
+                                  CompletableFuture<T> result) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+        if (existing == null) {
+            leadAsync(key, created, loader);
+            transfer(created, result);
+            return;
+        }
+        shared.increment();
+        ScheduledFuture<?> timer = deadline == null ? null : PolicyScheduler.schedule(
+                () -> result.completeExceptionally(deadline.exceeded("single flight")), deadline.remainingMillis());
+        Runnable unlink = cancellation == null ? () -> {
+        } : cancellation.onCancel(() -> result.cancel(false));
+        existing.whenComplete((value, ex) -> {
+            unlink.run();
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (result.isDone()) {
+                return;
+            }
+            if (ex == null) {
+                result.complete((T) value);
+            } else if (isAborted(unwrap(ex))) {
+                executeAsync(key, loader, deadline, cancellation, result);
+            } else {
+                result.completeExceptionally(unwrap(ex));
+            }
+        });
+    }
+
+    private <T> void leadAsync(String key, CompletableFuture<Object> created, Supplier<CompletableFuture<T>> loader) {
+        CompletableFuture<T> loaded;
+        try {
+            loaded = loader.get();
+        } catch (Throwable e) {
+            loaded = new CompletableFuture<>();
+            loaded.completeExceptionally(e);
+        }
+        loaded.whenComplete((result, ex) -> {
+            inFlight.remove(key, created);
+            if (ex != null) {
+                created.completeExceptionally(unwrap(ex));
+            } else {
+                created.complete(result);
+            }
+        });
+    }
+
+    /**
+     * 等待执行中调用的结果
+     *
+     * @return 执行的调用被取消或截止时返回 ABORTED
+     */
+    private static Object await(CompletableFuture<Object> future, Deadline deadline, Cancellation cancellation) throws Exception {
+        //各自等待的副本，取消时不影响其他调用方
+        CompletableFuture<Object> waiting = new CompletableFuture<>();
+        transfer(future, waiting);
+        Runnable unlink = cancellation == null ? () -> {
+        } : cancellation.onCancel(() -> waiting.cancel(false));
+        try {
+            return deadline == null ? waiting.get() : waiting.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw deadline.exceeded("single flight");
+        } catch (CancellationException e) {
+            if (cancellation != null && cancellation.isCancelled()) {
+                throw new CallCancelledException("rpc request cancelled before single flight");
+            }
+            //执行的调用被取消
+            return ABORTED;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isAborted(cause)) {
+                return ABORTED;
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            unlink.run();
+        }
+    }
+
+    /**
+     * 执行的调用被取消或截止，结果只属于该调用方
+     */
+    private static boolean isAborted(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof CallCancelledException || t instanceof DeadlineExceededException || t instanceof CancellationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void transfer(CompletableFuture<Object> source, CompletableFuture<T> target) {
+        source.whenComplete((result, ex) -> {
+            if (ex != null) {
+                target.completeExceptionally(unwrap(ex));
+            } else {
+                target.complete((T) result);
+            }
+        });
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+}
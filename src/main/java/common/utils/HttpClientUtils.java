@@ -1,22 +1,25 @@
 package common.utils;
 
 import com.alibaba.fastjson.JSONObject;
+import common.LazyJsonResponse;
+import common.http.PooledHttpClient;
+import common.policy.RetryPolicy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.*;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -36,11 +39,37 @@ public class HttpClientUtils {
 
     static {
         // 设置请求和传输超时时间
-        requestConfig = RequestConfig.custom().setSocketTimeout(60000).setConnectTimeout(60000).build();
+        requestConfig = RequestConfig.custom().setSocketTimeout(60000).setConnectTimeout(60000).setConnectionRequestTimeout(10000).build();
     }
 
     public static final String UTF8 = "UTF-8";
 
+    /**
+     * 指定的连接池客户端，为空时使用 PooledHttpClient 默认共享实例
+     */
+    private static volatile PooledHttpClient pooledHttpClient;
+
+    /**
+     * 重试策略，为空时不重试。POST 视为非幂等，GET、PUT、DELETE 视为幂等
+     */
+    private static volatile RetryPolicy retryPolicy;
+
+    public static void setPooledHttpClient(PooledHttpClient client) {
+        pooledHttpClient = client;
+    }
+
+    public static void setRetryPolicy(RetryPolicy policy) {
+        retryPolicy = policy;
+    }
+
+    private static CloseableHttpClient getHttpClient() {
+        PooledHttpClient client = pooledHttpClient;
+        if (client == null) {
+            client = PooledHttpClient.getDefault();
+        }
+        return client.getHttpClient();
+    }
+
     /**
      * httpPost
      *
@@ -74,7 +103,7 @@ public class HttpClientUtils {
      */
     private static String httpPost(String url, Map<String, Object> paramMap, Map<String, String> head,
                                    String charSet) throws Exception {
-        CloseableHttpClient client = HttpClients.createDefault();
+        CloseableHttpClient client = getHttpClient();
         CloseableHttpResponse response = null;
         String result = "";
         try {
@@ -123,7 +152,7 @@ public class HttpClientUtils {
             String httpClientToCurl = convertHttpClientToCurl(httpPost);
             log.info("httpClientToCurl:{}", httpClientToCurl);
 
-            response = client.execute(httpPost);
+            response = execute(client, httpPost);
             HttpEntity entity = response.getEntity();
             result = EntityUtils.toString(entity, charSet);
             JSONObject jsonObject = JSONObject.parseObject(result);
@@ -131,7 +160,9 @@ public class HttpClientUtils {
             result = jsonObject.toJSONString();
             log.info("httpPost end,response:{}", result);
         } finally {
-            response.close();
+            if (response != null) {
+                response.close();
+            }
         }
         return result;
     }
@@ -237,7 +268,7 @@ public class HttpClientUtils {
      * @throws Exception
      */
     private static String httpGet(String url, Map<String, String> head, String charSet) throws Exception {
-        CloseableHttpClient client = HttpClients.createDefault();
+        CloseableHttpClient client = getHttpClient();
         url = enhanceUrl(url);
         HttpGet getRequest = new HttpGet(url);
         if (head == null) {
@@ -253,18 +284,19 @@ public class HttpClientUtils {
         getRequest.setConfig(requestConfig);
         try {
             log.info("httpGet begin,url:{},head:{}:{}", url, head);
-            HttpResponse response = client.execute(getRequest);
-            log.info("httpGet end,response:{}", response);
-            HttpEntity entity = response.getEntity();
-            if (null != entity) {
-                String result = EntityUtils.toString(entity, charSet);
-                JSONObject jsonObject = JSONObject.parseObject(result);
-                jsonObject.put("result", result);
-                result = jsonObject.toJSONString();
-                log.info("httpGet end,response:{}", result);
-                return result;
+            try (CloseableHttpResponse response = execute(client, getRequest)) {
+                log.info("httpGet end,response:{}", response);
+                HttpEntity entity = response.getEntity();
+                if (null != entity) {
+                    String result = EntityUtils.toString(entity, charSet);
+                    JSONObject jsonObject = JSONObject.parseObject(result);
+                    jsonObject.put("result", result);
+                    result = jsonObject.toJSONString();
+                    log.info("httpGet end,response:{}", result);
+                    return result;
+                }
+                return "";
             }
-            return "";
         } finally {
             getRequest.releaseConnection();
         }
@@ -344,7 +376,7 @@ public class HttpClientUtils {
      * @throws Exception
      */
     private static String httpDelete(String url, Map<String, String> head, String charSet) throws Exception {
-        CloseableHttpClient client = HttpClients.createDefault();
+        CloseableHttpClient client = getHttpClient();
         url = enhanceUrl(url);
         HttpDelete httpDelete = new HttpDelete(url);
         if (head == null) {
@@ -359,18 +391,19 @@ public class HttpClientUtils {
         httpDelete.setConfig(requestConfig);
         try {
             log.info("httpDelete begin,url:{},head:{}:{}", url, head);
-            HttpResponse response = client.execute(httpDelete);
-            log.info("httpDelete end,response:{}", response);
-            HttpEntity entity = response.getEntity();
-            if (null != entity) {
-                String result = EntityUtils.toString(entity, charSet);
-                JSONObject jsonObject = JSONObject.parseObject(result);
-                jsonObject.put("result", result);
-                result = jsonObject.toJSONString();
-                log.info("httpDelete end,response:{}", result);
-                return result;
+            try (CloseableHttpResponse response = execute(client, httpDelete)) {
+                log.info("httpDelete end,response:{}", response);
+                HttpEntity entity = response.getEntity();
+                if (null != entity) {
+                    String result = EntityUtils.toString(entity, charSet);
+                    JSONObject jsonObject = JSONObject.parseObject(result);
+                    jsonObject.put("result", result);
+                    result = jsonObject.toJSONString();
+                    log.info("httpDelete end,response:{}", result);
+                    return result;
+                }
+                return "";
             }
-            return "";
         } finally {
             httpDelete.releaseConnection();
         }
@@ -415,7 +448,7 @@ public class HttpClientUtils {
      */
     private static String httpPut(String url, Map<String, Object> paramMap, Map<String, String> head,
                                   String charSet) throws Exception {
-        CloseableHttpClient client = HttpClients.createDefault();
+        CloseableHttpClient client = getHttpClient();
         CloseableHttpResponse response = null;
         String result = "";
         try {
@@ -458,7 +491,7 @@ public class HttpClientUtils {
             StringEntity stringEntity = new StringEntity(requestParams);
             httpPut.setEntity(stringEntity);
             log.info("httpPut begin,url:{},params:{},head:{}", url, requestParams, head);
-            response = client.execute(httpPut);
+            response = execute(client, httpPut);
             HttpEntity entity = response.getEntity();
             result = EntityUtils.toString(entity, charSet);
             JSONObject jsonObject = JSONObject.parseObject(result);
@@ -466,12 +499,77 @@ public class HttpClientUtils {
             result = jsonObject.toJSONString();
             log.info("httpPut end,response:{}", result);
         } finally {
-            response.close();
+            if (response != null) {
+                response.close();
+            }
         }
         return result;
     }
 
 
+    /**
+     * 发送请求，配置了重试策略时重试连接失败、限流与可重试的错误响应，重试用尽时返回最后一次响应
+     */
+    private static CloseableHttpResponse execute(CloseableHttpClient client, HttpRequestBase request) throws IOException {
+        RetryPolicy policy = retryPolicy;
+        boolean idempotent = !(request instanceof HttpPost);
+        for (int attempt = 1; ; attempt++) {
+            CloseableHttpResponse response;
+            try {
+                response = client.execute(request);
+            } catch (IOException e) {
+                long delay = policy == null ? -1 : policy.delayForException(attempt, idempotent, e);
+                if (delay < 0) {
+                    throw e;
+                }
+                log.info("http request retry,attempt:{},delay:{}ms,cause:{}", attempt, delay, e.getMessage());
+                pause(delay);
+                continue;
+            }
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (policy == null) {
+                return response;
+            }
+            if (statusCode < 400) {
+                policy.onSuccess();
+                return response;
+            }
+            //读出错误响应体取错误码，不重试时放回响应
+            HttpEntity entity = response.getEntity();
+            byte[] body = entity != null ? EntityUtils.toByteArray(entity) : new byte[0];
+            String errorCode = null;
+            try {
+                errorCode = new LazyJsonResponse(body).getErrorCode();
+            } catch (RuntimeException e) {
+                //非 json 响应，只按状态码判断
+            }
+            Header retryAfter = response.getFirstHeader("Retry-After");
+            long delay = policy.delayForResponse(attempt, idempotent, statusCode, errorCode,
+                    retryAfter != null ? retryAfter.getValue() : null);
+            if (delay < 0) {
+                ByteArrayEntity buffered = new ByteArrayEntity(body);
+                if (entity != null) {
+                    buffered.setContentType(entity.getContentType());
+                    buffered.setContentEncoding(entity.getContentEncoding());
+                }
+                response.setEntity(buffered);
+                return response;
+            }
+            response.close();
+            log.info("http request retry,attempt:{},delay:{}ms,status:{},errorCode:{}", attempt, delay, statusCode, errorCode);
+            pause(delay);
+        }
+    }
+
+    private static void pause(long delayMillis) throws InterruptedIOException {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("http request retry interrupted");
+        }
+    }
+
     /**
      * 添加协议
      *
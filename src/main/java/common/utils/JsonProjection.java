@@ -0,0 +1,205 @@
+package common.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Classname JsonProjection
+ * @Description 响应字段投影，一次流式扫描取出声明的路径，其余内容直接跳过不创建对象。
+ * 路径格式：Error.Code、Instances[*].InstanceId、Instances[0].Name
+ */
+public final class JsonProjection {
+
+    private final List<String> paths;
+
+    private final Node root = new Node();
+
+    private JsonProjection(List<String> paths) {
+        this.paths = Collections.unmodifiableList(paths);
+        for (String path : paths) {
+            Node node = root;
+            for (Step step : parse(path)) {
+                node = step.field != null
+                        ? node.fields.computeIfAbsent(step.field, k -> new Node())
+                        : node.indexes.computeIfAbsent(step.index, k -> new Node());
+            }
+            node.terminals.add(path);
+        }
+    }
+
+    /**
+     * 编译投影路径，可复用
+     */
+    public static JsonProjection compile(String... paths) {
+        if (paths == null || paths.length == 0) {
+            throw new IllegalArgumentException("projection paths is empty");
+        }
+        return new JsonProjection(new ArrayList<>(Arrays.asList(paths)));
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * 从当前值开始匹配（parser 需已定位到值的第一个 token）
+     *
+     * @return 路径到匹配值列表的映射，未匹配的路径对应空列表
+     */
+    public Map<String, List<JsonNode>> apply(JsonParser parser) throws IOException {
+        Map<String, List<JsonNode>> result = new LinkedHashMap<>();
+        for (String path : paths) {
+            result.put(path, new ArrayList<>());
+        }
+        walk(parser, root, result);
+        return result;
+    }
+
+    /**
+     * 从首个字段开始匹配，用于按索引跳到顶层字段值后继续投影
+     *
+     * @param field  顶层字段名
+     * @param parser 已定位到该字段值的 parser
+     */
+    public void applyField(String field, JsonParser parser, Map<String, List<JsonNode>> result) throws IOException {
+        Node node = root.fields.get(field);
+        if (node == null) {
+            parser.skipChildren();
+            return;
+        }
+        walk(parser, node, result);
+    }
+
+    /**
+     * 投影涉及的顶层字段
+     */
+    public List<String> topLevelFields() {
+        return new ArrayList<>(root.fields.keySet());
+    }
+
+    private static void walk(JsonParser parser, Node node, Map<String, List<JsonNode>> result) throws IOException {
+        if (!node.terminals.isEmpty()) {
+            //命中的值才创建对象，子路径在已创建的树上继续查找
+            JsonNode value = parser.readValueAsTree();
+            collect(value, node, result);
+            return;
+        }
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT && !node.fields.isEmpty()) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Node child = node.fields.get(parser.getCurrentName());
+                parser.nextToken();
+                if (child != null) {
+                    walk(parser, child, result);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else if (token == JsonToken.START_ARRAY && !node.indexes.isEmpty()) {
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                Node wildcard = node.indexes.get(Step.WILDCARD);
+                Node exact = node.indexes.get(index);
+                if (wildcard != null && exact != null) {
+                    JsonNode value = parser.readValueAsTree();
+                    collect(value, wildcard, result);
+                    collect(value, exact, result);
+                } else if (wildcard != null || exact != null) {
+                    walk(parser, wildcard != null ? wildcard : exact, result);
+                } else {
+                    parser.skipChildren();
+                }
+                index++;
+            }
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    private static void collect(JsonNode value, Node node, Map<String, List<JsonNode>> result) {
+        if (value == null || value.isMissingNode()) {
+            return;
+        }
+        for (String path : node.terminals) {
+            result.get(path).add(value);
+        }
+        if (value.isObject()) {
+            node.fields.forEach((name, child) -> collect(value.get(name), child, result));
+        } else if (value.isArray()) {
+            node.indexes.forEach((index, child) -> {
+                if (index == Step.WILDCARD) {
+                    value.forEach(element -> collect(element, child, result));
+                } else {
+                    collect(value.get(index), child, result);
+                }
+            });
+        }
+    }
+
+    private static List<Step> parse(String path) {
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("projection path is empty");
+        }
+        List<Step> steps = new ArrayList<>();
+        for (String segment : path.split("\\.")) {
+            int bracket = segment.indexOf('[');
+            String name = bracket < 0 ? segment : segment.substring(0, bracket);
+            if (!name.isEmpty()) {
+                steps.add(Step.field(name));
+            }
+            while (bracket >= 0) {
+                int end = segment.indexOf(']', bracket);
+                if (end < 0) {
+                    throw new IllegalArgumentException("invalid projection path: " + path);
+                }
+                String index = segment.substring(bracket + 1, end).trim();
+                try {
+                    steps.add(Step.index("*".equals(index) ? Step.WILDCARD : Integer.parseInt(index)));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("invalid projection path: " + path, e);
+                }
+                bracket = segment.indexOf('[', end);
+            }
+        }
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("invalid projection path: " + path);
+        }
+        return steps;
+    }
+
+    private static class Node {
+        private final Map<String, Node> fields = new HashMap<>();
+        private final Map<Integer, Node> indexes = new HashMap<>();
+        private final List<String> terminals = new ArrayList<>();
+    }
+
+    private static class Step {
+        private static final int WILDCARD = -1;
+
+        private final String field;
+        private final int index;
+
+        private Step(String field, int index) {
+            this.field = field;
+            this.index = index;
+        }
+
+        static Step field(String name) {
+            return new Step(name, 0);
+        }
+
+        static Step index(int index) {
+            return new Step(null, index);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package common.utils;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import common.BaseResponseModel;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @Classname ResponseBinder
+ * @Description 将响应体字节一次解析为响应模型，按类型缓存 Jackson reader
+ */
+public final class ResponseBinder {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    private ResponseBinder() {
+    }
+
+    /**
+     * 解析响应体，原始字节挂在模型上，调用 getResult 时才解码为字符串
+     *
+     * @param body          响应体
+     * @param responseClass 响应类型
+     */
+    public static <T extends BaseResponseModel> T bind(byte[] body, Class<T> responseClass) throws IOException {
+        T response = reader(responseClass).readValue(body);
+        if (response == null) {
+            throw new IOException("response content is empty");
+        }
+        response.setRawBody(body);
+        return response;
+    }
+
+    /**
+     * 解析旧格式的响应字符串（含 result 字段）
+     */
+    public static <T> T bind(String result, Class<T> responseClass) throws IOException {
+        return reader(responseClass).readValue(result);
+    }
+
+    public static ObjectReader reader(Class<?> responseClass) {
+        return READERS.computeIfAbsent(responseClass, MAPPER::readerFor);
+    }
+
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+}
@@ -1,36 +1,95 @@
 package common.utils;
 
+import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import common.BaseResponseModel;
+import common.LazyJsonResponse;
 import common.RpcRequestContentModel;
+import common.cache.ResponseCache;
+import common.http.ApacheHttpTransport;
+import common.http.Cancellation;
+import common.http.ContentEncodings;
+import common.http.EndpointRegistry;
+import common.http.HttpRequestOptions;
+import common.http.PooledHttpAsyncClient;
+import common.http.PooledHttpClient;
+import common.http.RpcHttpResponse;
+import common.http.SdkHttpTransport;
+import common.http.SdkHttpTransports;
+import common.http.SpillableResponseBody;
+import common.exception.BulkheadFullException;
+import common.exception.CallCancelledException;
+import common.exception.CircuitBreakerOpenException;
+import common.exception.DeadlineExceededException;
+import common.exception.HttpRequestException;
+import common.exception.OverloadException;
+import common.exception.RateLimitExceededException;
+import common.policy.AdaptiveConcurrencyLimiter;
+import common.policy.AdaptiveRateLimiter;
+import common.policy.AdaptiveTimeoutPolicy;
+import common.policy.Bulkhead;
+import common.policy.BulkheadConfig;
+import common.policy.BulkheadRegistry;
+import common.policy.CircuitBreaker;
+import common.policy.CircuitBreakerConfig;
+import common.policy.CircuitBreakerRegistry;
+import common.policy.ConcurrencyLimiterConfig;
+import common.policy.ConcurrencyLimiterRegistry;
+import common.policy.Deadline;
+import common.policy.HedgePolicy;
+import common.policy.LatencyTracker;
+import common.policy.LoadShedder;
+import common.policy.PolicyScheduler;
+import common.policy.RateLimiterConfig;
+import common.policy.RateLimiterRegistry;
+import common.policy.RetryPolicy;
+import common.policy.SingleFlight;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.*;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.util.EntityUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.signer.Aws4Signer;
 import software.amazon.awssdk.auth.signer.params.Aws4SignerParams;
+import software.amazon.awssdk.http.ContentStreamProvider;
 import software.amazon.awssdk.http.SdkHttpFullRequest;
 import software.amazon.awssdk.http.SdkHttpMethod;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.http.SdkHttpFullRequest.Builder;
-import software.amazon.awssdk.utils.StringInputStream;
+import software.amazon.awssdk.utils.IoUtils;
 import software.amazon.awssdk.utils.StringUtils;
 
 
@@ -39,10 +98,106 @@ public class RpcRequestClient {
 
     private final static String DEFAULT_PROTOCOL = "http://";
 
+    private final static int HTTP_ERROR_STATUS = 400;
+
+    private final static int HTTP_SERVER_ERROR_STATUS = 500;
+
+    /**
+     * 只读 action 前缀，此类请求视为只读且幂等
+     */
+    private final static String[] READ_ONLY_ACTION_PREFIXES = {"Describe", "Get", "List", "Query", "Check"};
+
+    private final static AtomicInteger HEDGE_THREAD_SEQ = new AtomicInteger();
+
+    private final static AtomicInteger RESPONSE_THREAD_SEQ = new AtomicInteger();
+
+    /**
+     * 异步请求的响应处理线程，I/O 线程只负责收到响应，解析、缓存写入与调用方的回调在此执行
+     */
+    private final static ThreadPoolExecutor RESPONSE_EXECUTOR = newResponseExecutor();
+
+    /**
+     * 同步对冲请求的发送线程，没有空闲线程时不对冲
+     */
+    private final static ThreadPoolExecutor HEDGE_EXECUTOR = new ThreadPoolExecutor(0, 64,
+            60L, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+        Thread thread = new Thread(r, "ksyun-rpc-hedge-" + HEDGE_THREAD_SEQ.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final RpcRequestContentModel rpcRequestContentModel;
 
+    /**
+     * 传输层，RpcRequestContentModel 未指定 transport 时使用
+     */
+    private final SdkHttpTransport transport;
+
     public RpcRequestClient(RpcRequestContentModel rpcRequestContentModel) {
+        this(rpcRequestContentModel, SdkHttpTransports.apache());
+    }
+
+    public RpcRequestClient(RpcRequestContentModel rpcRequestContentModel, PooledHttpClient pooledHttpClient) {
+        this(rpcRequestContentModel, pooledHttpClient, null);
+    }
+
+    public RpcRequestClient(RpcRequestContentModel rpcRequestContentModel, PooledHttpClient pooledHttpClient,
+                            PooledHttpAsyncClient pooledHttpAsyncClient) {
+        this(rpcRequestContentModel, new ApacheHttpTransport(pooledHttpClient, pooledHttpAsyncClient));
+    }
+
+    public RpcRequestClient(RpcRequestContentModel rpcRequestContentModel, SdkHttpTransport transport) {
         this.rpcRequestContentModel = rpcRequestContentModel;
+        this.transport = transport;
+        prewarmInBackground();
+    }
+
+    /**
+     * 返回共用同一传输层、以 deadline 为截止时间的客户端，用于为单个请求设置截止时间，如沿用上游请求的剩余时间
+     */
+    public RpcRequestClient withDeadline(Deadline deadline) {
+        return new RpcRequestClient(rpcRequestContentModel.toBuilder().deadline(deadline).prewarmConnections(0).build(), transport);
+    }
+
+    /**
+     * 返回共用同一传输层、可通过 cancellation 取消的客户端，用于取消同步调用，如上游调用方已放弃时。
+     * 异步调用也可直接取消返回的 future
+     */
+    public RpcRequestClient withCancellation(Cancellation cancellation) {
+        return new RpcRequestClient(rpcRequestContentModel.toBuilder().cancellation(cancellation).prewarmConnections(0).build(), transport);
+    }
+
+    /**
+     * 当前 service/region 所用传输层对同一 endpoint 的并发请求上限，超出的请求会在连接池中阻塞等待
+     */
+    public int maxConcurrentRequests() {
+        return resolveTransport(resolveBulkhead()).maxConcurrentRequests();
+    }
+
+    /**
+     * 配置了 prewarmConnections 且当前 service/region 已登记 endpoint 时，后台预热连接
+     */
+    private void prewarmInBackground() {
+        Integer connections = rpcRequestContentModel.getPrewarmConnections();
+        if (connections == null || connections <= 0
+                || EndpointRegistry.getDefault().resolve(rpcRequestContentModel.getService(), rpcRequestContentModel.getRegion()) == null) {
+            return;
+        }
+        Thread thread = new Thread(() -> prewarm(connections), "ksyun-connection-prewarm");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static ThreadPoolExecutor newResponseExecutor() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "ksyun-rpc-response-" + RESPONSE_THREAD_SEQ.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     public String beginRpcRequest(String url, String requestMethod, Map<String, Object> requestParams) {
@@ -59,8 +214,313 @@ public class RpcRequestClient {
      * @return
      */
     public String beginRpcRequest(String url, String requestMethod, Map<String, Object> requestParam, Map<String, String> head) {
+        try {
+            // 执行请求，每次尝试重新签名
+            return load(url, requestMethod, requestParam, head, String.class, this::readResult);
+        } catch (HttpRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("rpc occur error", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * rpc，响应体字节直接解析为指定类型，不再生成中间字符串
+     *
+     * @param url           api地址
+     * @param requestMethod 请求方法
+     * @param requestParam  请求参数
+     * @param head          请求头
+     * @param responseClass 响应类型，原始响应体可通过 getResult 获取
+     * @return 开启 singleFlight 时，合并的调用方共享同一个响应对象，不应修改
+     */
+    public <T extends BaseResponseModel> T beginRpcRequest(String url, String requestMethod, Map<String, Object> requestParam,
+                                                          Map<String, String> head, Class<T> responseClass) {
+        try {
+            return load(url, requestMethod, requestParam, head, responseClass, response -> bindResult(response, responseClass));
+        } catch (HttpRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("rpc occur error", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * rpc，返回按需解析的响应，适合只读取少量字段的大响应
+     *
+     * @param url           api地址
+     * @param requestMethod 请求方法
+     * @param requestParam  请求参数
+     * @param head          请求头
+     * @return 持有原始字节的响应，字段在访问或投影时才解析；开启 singleFlight 时，合并的调用方共享同一个响应对象
+     */
+    public LazyJsonResponse beginRpcRequestLazy(String url, String requestMethod, Map<String, Object> requestParam, Map<String, String> head) {
+        try {
+            return load(url, requestMethod, requestParam, head, LazyJsonResponse.class, response -> new LazyJsonResponse(response.readBytes()));
+        } catch (HttpRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("rpc occur error", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * rpc，响应体以流的形式返回，超过 maxInMemoryResponseBytes 时转存到临时文件，适合超大响应
+     *
+     * @param url           api地址
+     * @param requestMethod 请求方法
+     * @param requestParam  请求参数
+     * @param head          请求头
+     * @return 响应体，使用完毕需 close
+     */
+    public SpillableResponseBody beginRpcRequestStream(String url, String requestMethod, Map<String, Object> requestParam, Map<String, String> head) {
+        try {
+            RpcCall call = prepareRequest(url, requestMethod, requestParam, head, resolveDeadline());
+            return executeRequest(call, response -> SpillableResponseBody.read(response.getContent(),
+                    rpcRequestContentModel.getMaxInMemoryResponseBytes(), rpcRequestContentModel.getSpillDirectory()));
+        } catch (HttpRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("rpc occur error", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    public CompletableFuture<String> beginRpcRequestAsync(String url, String requestMethod, Map<String, Object> requestParams) {
+        return beginRpcRequestAsync(url, requestMethod, requestParams, new HashMap<>());
+    }
+
+    /**
+     * 异步 rpc，签名在调用线程完成，IO 由 NIO 线程处理，不为每个请求占用线程
+     *
+     * @param url           api地址
+     * @param requestMethod 请求方法
+     * @param requestParam  请求参数
+     * @param head          请求头
+     * @return 响应结果，格式与 beginRpcRequest 一致
+     */
+    public CompletableFuture<String> beginRpcRequestAsync(String url, String requestMethod, Map<String, Object> requestParam, Map<String, String> head) {
+        return loadAsync(url, requestMethod, requestParam, head, String.class, this::readResult);
+    }
+
+    /**
+     * 异步 rpc，结果反序列化为指定类型
+     *
+     * @param responseClass 响应类型
+     * @return 开启 singleFlight 时，合并的调用方共享同一个响应对象，不应修改
+     */
+    public <T extends BaseResponseModel> CompletableFuture<T> beginRpcRequestAsync(String url, String requestMethod, Map<String, Object> requestParam,
+                                                                                   Map<String, String> head, Class<T> responseClass) {
+        return loadAsync(url, requestMethod, requestParam, head, responseClass, response -> bindResult(response, responseClass));
+    }
+
+    /**
+     * 异步 rpc，返回按需解析的响应
+     */
+    public CompletableFuture<LazyJsonResponse> beginRpcRequestLazyAsync(String url, String requestMethod, Map<String, Object> requestParam,
+                                                                         Map<String, String> head) {
+        return loadAsync(url, requestMethod, requestParam, head, LazyJsonResponse.class, response -> new LazyJsonResponse(response.readBytes()));
+    }
+
+    /**
+     * 预先建立到 url 的连接
+     *
+     * @return 新建立的连接数
+     */
+    public int prewarm(String url, int connections) {
+        try {
+            return resolveTransport(resolveBulkhead()).prewarm(resolveEndpoint(url), connections);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("invalid endpoint:" + url, e);
+        }
+    }
+
+    /**
+     * 预先建立到当前 service/region 已登记 endpoint 的连接，见 EndpointRegistry
+     *
+     * @return 新建立的连接数
+     */
+    public int prewarm(int connections) {
+        return prewarm(null, connections);
+    }
+
+    /**
+     * url 为空时使用 EndpointRegistry 中当前 service/region 登记的 endpoint，解析结果缓存
+     */
+    private URI resolveEndpoint(String url) throws URISyntaxException {
+        if (StringUtils.isEmpty(url)) {
+            URI registered = EndpointRegistry.getDefault().resolve(rpcRequestContentModel.getService(), rpcRequestContentModel.getRegion());
+            if (registered == null) {
+                throw new IllegalArgumentException("endpoint is not registered:" + rpcRequestContentModel.getService()
+                        + "/" + rpcRequestContentModel.getRegion());
+            }
+            return registered;
+        }
         //如果没有http协议，则添加http协议
-        url = enhanceUrl(url);
+        return EndpointRegistry.getDefault().parse(enhanceUrl(url));
+    }
+
+    /**
+     * 执行请求：配置了 responseCache 时先查缓存，开启 singleFlight 时合并相同的并发只读请求
+     */
+    private <R> R load(String url, String requestMethod, Map<String, Object> requestParam, Map<String, String> head,
+                       Class<?> resultType, ResponseReader<R> reader) throws Exception {
+        RequestIdentity identity = identify(url, requestMethod, requestParam);
+        long generation = cacheGeneration(identity);
+        if (identity != null && identity.cacheable) {
+            byte[] body = rpcRequestContentModel.getResponseCache().get(identity.key, identity.scope, identity.action,
+                    () -> refreshAsync(url, requestMethod, requestParam, head, identity));
+            if (body != null) {
+                return reader.read(cachedResponse(body));
+            }
+        }
+        //合并等待与之后自己发起请求共用同一截止时间
+        Deadline deadline = resolveDeadline();
+        Callable<R> loader = () -> executeRequest(prepareRequest(url, requestMethod, requestParam, head, deadline),
+                cacheAware(identity, generation, reader));
+        String flightKey = singleFlightKey(identity, head, resultType);
+        return flightKey == null ? loader.call()
+                : SingleFlight.getDefault().execute(flightKey, loader, deadline, rpcRequestContentModel.getCancellation());
+    }
+
+    private <R> CompletableFuture<R> loadAsync(String url, String requestMethod, Map<String, Object> requestParam, Map<String, String> head,
+                                               Class<?> resultType, ResponseReader<R> reader) {
+        RequestIdentity identity;
+        try {
+            identity = identify(url, requestMethod, requestParam);
+        } catch (Exception e) {
+            //交给 prepareRequest 按原有方式报错
+            identity = null;
+        }
+        long generation = cacheGeneration(identity);
+        if (identity != null && identity.cacheable) {
+            RequestIdentity current = identity;
+            byte[] body = rpcRequestContentModel.getResponseCache().get(identity.key, identity.scope, identity.action,
+                    () -> refreshAsync(url, requestMethod, requestParam, head, current));
+            if (body != null) {
+                CompletableFuture<R> cached = new CompletableFuture<>();
+                try {
+                    cached.complete(reader.read(cachedResponse(body)));
+                } catch (Exception e) {
+                    cached.completeExceptionally(new RuntimeException("rpc请求失败", e));
+                }
+                return cached;
+            }
+        }
+        ResponseReader<R> cacheAwareReader = cacheAware(identity, generation, reader);
+        Deadline deadline = resolveDeadline();
+        Supplier<CompletableFuture<R>> loader = () -> prepareAndExecuteAsync(url, requestMethod, requestParam, head, cacheAwareReader, deadline);
+        String flightKey = singleFlightKey(identity, head, resultType);
+        return flightKey == null ? loader.get()
+                : SingleFlight.getDefault().executeAsync(flightKey, loader, deadline, rpcRequestContentModel.getCancellation());
+    }
+
+    private <R> CompletableFuture<R> prepareAndExecuteAsync(String url, String requestMethod, Map<String, Object> requestParam,
+                                                            Map<String, String> head, ResponseReader<R> reader, Deadline deadline) {
+        RpcCall call;
+        try {
+            call = prepareRequest(url, requestMethod, requestParam, head, deadline);
+        } catch (Exception e) {
+            log.error("rpc occur error", e);
+            CompletableFuture<R> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new RuntimeException(e));
+            return failed;
+        }
+        return executeRequestAsync(call, reader);
+    }
+
+    /**
+     * 后台重新加载缓存条目，成功响应经 cacheAware 写回缓存
+     */
+    private CompletableFuture<Object> refreshAsync(String url, String requestMethod, Map<String, Object> requestParam,
+                                                   Map<String, String> head, RequestIdentity identity) {
+        return prepareAndExecuteAsync(url, requestMethod, requestParam, head,
+                cacheAware(identity, cacheGeneration(identity), response -> null), resolveDeadline());
+    }
+
+    /**
+     * 可缓存请求在加载开始前的缓存失效代数，不可缓存时返回0
+     */
+    private long cacheGeneration(RequestIdentity identity) {
+        return identity != null && identity.cacheable ? rpcRequestContentModel.getResponseCache().generation(identity.scope) : 0;
+    }
+
+    /**
+     * 可缓存请求的成功响应写入缓存，加载期间缓存被失效过时不写入；写操作成功后失效相关缓存条目
+     *
+     * @param generation 加载开始前的缓存失效代数
+     */
+    private <R> ResponseReader<R> cacheAware(RequestIdentity identity, long generation, ResponseReader<R> reader) {
+        ResponseCache responseCache = rpcRequestContentModel.getResponseCache();
+        if (identity == null || responseCache == null) {
+            return reader;
+        }
+        if (identity.cacheable) {
+            return response -> {
+                if (response.getStatusCode() >= HTTP_ERROR_STATUS) {
+                    return reader.read(response);
+                }
+                byte[] body = response.readBytes();
+                responseCache.put(identity.key, identity.scope, identity.action, body, generation);
+                return reader.read(buffered(response, body));
+            };
+        }
+        if (!identity.readOnly) {
+            return response -> {
+                if (response.getStatusCode() < HTTP_ERROR_STATUS) {
+                    responseCache.onMutation(identity.scope, identity.action);
+                }
+                return reader.read(response);
+            };
+        }
+        return reader;
+    }
+
+    /**
+     * 请求标识：请求方法 + url + service/region/ak + 排序后的参数，不包含 sk
+     *
+     * @return 未配置 responseCache 且未开启 singleFlight 时返回 null
+     */
+    private RequestIdentity identify(String url, String requestMethod, Map<String, Object> requestParam) throws URISyntaxException {
+        ResponseCache responseCache = rpcRequestContentModel.getResponseCache();
+        if (responseCache == null && !Boolean.TRUE.equals(rpcRequestContentModel.getSingleFlight())) {
+            return null;
+        }
+        SdkHttpMethod method = paseSdkHttpMethod(requestMethod);
+        String action = resolveAction(requestParam);
+        boolean readOnly = isReadOnly(method, action);
+        String scope = rpcRequestContentModel.getService() + "/" + rpcRequestContentModel.getRegion()
+                + "/" + rpcRequestContentModel.getAccessKeyId();
+        String key = method + " " + resolveEndpoint(url)
+                + "\n" + scope
+                + "\n" + JSON.toJSONString(new TreeMap<>(requestParam), SerializerFeature.MapSortField);
+        return new RequestIdentity(key, scope, action, readOnly,
+                responseCache != null && readOnly && responseCache.isCacheable(action));
+    }
+
+    /**
+     * 合并 key：请求标识 + 排序后的请求头 + 结果类型
+     *
+     * @return 未开启 singleFlight 或非只读请求时返回 null
+     */
+    private String singleFlightKey(RequestIdentity identity, Map<String, String> head, Class<?> resultType) {
+        if (identity == null || !identity.readOnly || !Boolean.TRUE.equals(rpcRequestContentModel.getSingleFlight())) {
+            return null;
+        }
+        return identity.key + "\n" + new TreeMap<>(head) + "\n" + resultType.getName();
+    }
+
+    /**
+     * 创建请求，签名在每次尝试时进行
+     *
+     * @param deadline 本次调用的截止时间，可为 null
+     */
+    private RpcCall prepareRequest(String url, String requestMethod, Map<String, Object> requestParam, Map<String, String> head,
+                                   Deadline deadline) throws URISyntaxException, IOException {
+        URI endpoint = resolveEndpoint(url);
 
         // Initialize RPC headers with input head map
         final Map<String, String> rpcHead = new HashMap<>(head);
@@ -68,26 +528,108 @@ public class RpcRequestClient {
         // Initialize RPC parameters with input request parameters
         final Map<String, Object> rpcParam = new HashMap<>(requestParam);
 
-        try {
-            // 1. 创建签名请求
-            SdkHttpFullRequest unsignedRequest = createUnsignedRequest(url, paseSdkHttpMethod(requestMethod), rpcParam, rpcHead);
+        // 1. 创建未签名请求，需要压缩时先压缩，签名基于实际发送的请求体
+        SdkHttpMethod method = paseSdkHttpMethod(requestMethod);
+        SdkHttpFullRequest unsignedRequest = applyCompression(createUnsignedRequest(endpoint, method, rpcParam, rpcHead));
 
-            // 2. 使用AWS SDK签名器进行签名
-            SdkHttpFullRequest signedRequest = signRequest(
-                    unsignedRequest,
-                    rpcRequestContentModel.getAccessKeyId(),
-                    rpcRequestContentModel.getSecretAccessKey()
-            );
+        String action = resolveAction(rpcParam);
+        String service = rpcRequestContentModel.getService();
+        String region = rpcRequestContentModel.getRegion();
+        long requestBytes = rpcRequestContentModel.getLoadShedder() != null ? contentLength(unsignedRequest) : 0;
+        return new RpcCall(unsignedRequest, isIdempotent(method, action), action,
+                LatencyTracker.key(service, region, action),
+                CircuitBreakerRegistry.key(service, region, unsignedRequest.host()), resolveBulkhead(), requestBytes, deadline);
+    }
 
-            // 3. 转换为Apache HttpClient请求
-            HttpRequestBase httpRequest = convertToHttpRequest(signedRequest, rpcParam);
+    /**
+     * 截止时间：model 中的 deadline 与从现在起 callTimeoutMillis 中较早者
+     *
+     * @return 都未配置时返回 null
+     */
+    private Deadline resolveDeadline() {
+        Long callTimeoutMillis = rpcRequestContentModel.getCallTimeoutMillis();
+        return Deadline.earliest(rpcRequestContentModel.getDeadline(),
+                callTimeoutMillis != null ? Deadline.after(callTimeoutMillis) : null);
+    }
 
-            // 4. 执行请求
-            return executeRequest(httpRequest);
-        } catch (Exception e) {
-            log.error("rpc occur error", e);
-            throw new RuntimeException(e);
+    /**
+     * 请求体字节数，取自创建请求时的请求体，不读取请求体
+     */
+    private static long contentLength(SdkHttpFullRequest request) {
+        ContentStreamProvider provider = request.contentStreamProvider().orElse(null);
+        return provider instanceof ByteArrayContentProvider ? ((ByteArrayContentProvider) provider).length() : 0;
+    }
+
+    private String resolveAction(Map<String, Object> requestParam) {
+        Object action = requestParam.get("Action");
+        if (action != null) {
+            return action.toString();
+        }
+        return rpcRequestContentModel.getAction();
+    }
+
+    /**
+     * 是否幂等，决定能否重试与对冲。openapi 的写操作同样可以使用 GET 发起，有 action 时以 action 判断，否则按 http 方法语义判断
+     */
+    private static boolean isIdempotent(SdkHttpMethod method, String action) {
+        if (!StringUtils.isEmpty(action)) {
+            return isReadOnlyAction(action);
+        }
+        return isReadOnly(method, action)
+                || method == SdkHttpMethod.PUT
+                || method == SdkHttpMethod.DELETE;
+    }
+
+    /**
+     * 是否只读，决定能否合并与缓存。PUT、DELETE 虽然幂等但会修改资源，不合并、不缓存，成功后失效缓存
+     */
+    private static boolean isReadOnly(SdkHttpMethod method, String action) {
+        if (!StringUtils.isEmpty(action)) {
+            return isReadOnlyAction(action);
+        }
+        return method == SdkHttpMethod.GET
+                || method == SdkHttpMethod.HEAD
+                || method == SdkHttpMethod.OPTIONS;
+    }
+
+    private static boolean isReadOnlyAction(String action) {
+        for (String prefix : READ_ONLY_ACTION_PREFIXES) {
+            if (action.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按配置添加 Accept-Encoding，并压缩超过阈值的请求体
+     */
+    private SdkHttpFullRequest applyCompression(SdkHttpFullRequest request) throws IOException {
+        boolean acceptCompressed = Boolean.TRUE.equals(rpcRequestContentModel.getAcceptCompressedResponse());
+        Integer threshold = rpcRequestContentModel.getRequestCompressionThreshold();
+        boolean compressRequest = threshold != null && threshold >= 0
+                && request.contentStreamProvider().isPresent()
+                && !request.firstMatchingHeader("Content-Encoding").isPresent();
+        if (!acceptCompressed && !compressRequest) {
+            return request;
         }
+
+        Builder builder = request.toBuilder();
+        if (acceptCompressed) {
+            builder.putHeader("Accept-Encoding", ContentEncodings.ACCEPT_ENCODING);
+        }
+        if (compressRequest) {
+            byte[] body;
+            try (InputStream in = request.contentStreamProvider().get().newStream()) {
+                body = IoUtils.toByteArray(in);
+            }
+            if (body.length >= threshold) {
+                byte[] compressed = ContentEncodings.gzip(body);
+                builder.putHeader("Content-Encoding", ContentEncodings.GZIP)
+                        .contentStreamProvider(new ByteArrayContentProvider(compressed));
+            }
+        }
+        return builder.build();
     }
 
     private SdkHttpMethod paseSdkHttpMethod(String method) {
@@ -129,8 +671,15 @@ public class RpcRequestClient {
             SdkHttpMethod method,
             Map<String, Object> requestParam,
             Map<String, String> head) throws URISyntaxException {
+        return createUnsignedRequest(EndpointRegistry.getDefault().parse(endpoint), method, requestParam, head);
+    }
+
+    private SdkHttpFullRequest createUnsignedRequest(
+            URI uri,
+            SdkHttpMethod method,
+            Map<String, Object> requestParam,
+            Map<String, String> head) {
 
-        URI uri = new URI(endpoint);
         Builder builder = SdkHttpFullRequest.builder()
                 .method(method)
                 .uri(uri);
@@ -152,18 +701,16 @@ public class RpcRequestClient {
             // 根据内容类型设置请求体
             if (requestParam != null && !requestParam.isEmpty()) {
                 String contentType = head.getOrDefault("Content-Type", "application/x-www-form-urlencoded");
+                byte[] body;
                 if ("application/json".equalsIgnoreCase(contentType)) {
-                    String jsonBody = buildJsonBody(requestParam);
-                    builder.putHeader("Content-Type", "application/json")
-                            .contentStreamProvider(() ->
-                                    new StringInputStream(jsonBody));
+                    body = buildJsonBody(requestParam).getBytes(StandardCharsets.UTF_8);
+                    builder.putHeader("Content-Type", "application/json");
                 } else {
                     // 表单格式请求体 (默认)
-                    String formData = buildFormData(requestParam);
-                    builder.putHeader("Content-Type", "application/x-www-form-urlencoded")
-                            .contentStreamProvider(() ->
-                                    new StringInputStream(formData));
+                    body = buildFormData(requestParam).getBytes(StandardCharsets.UTF_8);
+                    builder.putHeader("Content-Type", "application/x-www-form-urlencoded");
                 }
+                builder.contentStreamProvider(new ByteArrayContentProvider(body));
             }
         }
 
@@ -207,50 +754,15 @@ public class RpcRequestClient {
      */
     public HttpRequestBase convertToHttpRequest(SdkHttpFullRequest signedRequest,
                                                 Map<String, Object> requestParam) {
-        // 1. 根据请求方法创建对应的 HTTP 请求对象
-        HttpRequestBase httpRequest = createRequestByMethod(signedRequest);
-
-        // 2. 添加头信息
-        addHeaders(httpRequest, signedRequest);
+        // 1. 根据请求方法创建对应的 HTTP 请求对象，并添加头信息
+        HttpRequestBase httpRequest = ApacheHttpTransport.createRequest(signedRequest);
 
-        // 3. 设置请求体和参数
+        // 2. 设置请求体和参数
         setRequestContent(httpRequest, signedRequest, requestParam);
 
         return httpRequest;
     }
 
-    private HttpRequestBase createRequestByMethod(SdkHttpFullRequest signedRequest) {
-        switch (signedRequest.method()) {
-            case POST:
-                return new HttpPost(signedRequest.getUri());
-            case GET:
-                return new HttpGet(signedRequest.getUri());
-            case PUT:
-                return new HttpPut(signedRequest.getUri());
-            case DELETE:
-                return new HttpDelete(signedRequest.getUri());
-            case PATCH:
-                return new HttpPatch(signedRequest.getUri());
-            case HEAD:
-                return new HttpHead(signedRequest.getUri());
-            case OPTIONS:
-                return new HttpOptions(signedRequest.getUri());
-            default:
-                throw new UnsupportedOperationException(
-                        "Method not supported: " + signedRequest.method());
-        }
-    }
-
-    private void addHeaders(HttpRequestBase httpRequest,
-                            SdkHttpFullRequest signedRequest) {
-        signedRequest.headers().forEach((name, values) -> {
-            // 跳过 Content-Length 头，由 HttpClient 自动处理
-            if (!"Content-Length".equalsIgnoreCase(name)) {
-                values.forEach(value -> httpRequest.addHeader(name, value));
-            }
-        });
-    }
-
     //put,post,patch 请求设置请求体
     private void setRequestContent(HttpRequestBase httpRequest,
                                    SdkHttpFullRequest signedRequest,
@@ -341,31 +853,1109 @@ public class RpcRequestClient {
 
 
     /**
-     * 执行请求
+     * 执行请求，配置了 loadShedder 时先检查过载预算，配置了舱壁时再获取许可，预算与许可在全部尝试结束后归还
      */
-    private String executeRequest(HttpRequestBase httpRequest) {
-        log.info("begin rpc request");
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-
-            //设置超时时间
-            RequestConfig requestConfig = RequestConfig.custom().setSocketTimeout(rpcRequestContentModel.getSocketTimeout()).setConnectTimeout(rpcRequestContentModel.getConnectTimeout()).build();
-            httpRequest.setConfig(requestConfig);
-
-            String curl = HttpClientUtils.convertHttpClientToCurl(httpRequest);
-            log.info("begin rpc request curl:{}", curl);
-
-            HttpResponse response = httpClient.execute(httpRequest);
-            Objects.requireNonNull(response.getEntity(), "response content is null");
-
-            String result = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
-            JSONObject jsonObject = JSONObject.parseObject(result);
-            jsonObject.put("result", result);
-            log.info("rpc request end,response:{}", jsonObject.toJSONString());
+    private <R> R executeRequest(RpcCall call, ResponseReader<R> reader) {
+        checkDeadline(call, "queue", 0, null);
+        Runnable unlink = linkCancellation(call);
+        //截止时中止进行中的请求，不必等到截断后的超时
+        ScheduledFuture<?> deadlineTimer = call.deadline != null
+                ? PolicyScheduler.schedule(call.cancellation::cancel, call.deadline.remainingMillis()) : null;
+        try {
+            checkCancelled(call, "queue", null);
+            LoadShedder loadShedder = rpcRequestContentModel.getLoadShedder();
+            if (loadShedder != null) {
+                call.ticket = loadShedder.admit(call.requestBytes, rpcRequestContentModel.getPriority());
+            }
+            try {
+                if (call.bulkhead == null) {
+                    return executeWithRetry(call, reader);
+                }
+                acquireBulkhead(call);
+                try {
+                    return executeWithRetry(call, reader);
+                } finally {
+                    call.bulkhead.release();
+                }
+            } finally {
+                if (call.ticket != null) {
+                    call.ticket.close();
+                }
+            }
+        } finally {
+            unlink.run();
+            if (deadlineTimer != null) {
+                deadlineTimer.cancel(false);
+            }
+        }
+    }
 
-            return jsonObject.toJSONString();
-        } catch (Exception e) {
-            log.info("rpc request occur exception:{}", e.getMessage());
-            throw new RuntimeException("rpc请求失败", e);
+    /**
+     * 按重试策略执行请求，每次尝试重新签名以使用新的时间戳
+     */
+    private <R> R executeWithRetry(RpcCall call, ResponseReader<R> reader) {
+        log.info("begin rpc request");
+        RetryPolicy retryPolicy = resolveRetryPolicy();
+        AdaptiveRateLimiter rateLimiter = resolveRateLimiter(call);
+        for (int attempt = 1; ; attempt++) {
+            long wait = rateLimiter != null ? rateLimiter.reserve() : 0;
+            AdaptiveConcurrencyLimiter.Permit permit = null;
+            CircuitBreaker circuitBreaker;
+            try {
+                if (rateLimiter != null) {
+                    checkDeadline(call, "rate limit wait", wait, null);
+                    pause(call, "rate limit wait", wait);
+                }
+                permit = acquireConcurrencyPermit(call);
+                checkDeadline(call, "sign", 0, null);
+                checkCancelled(call, "sign", null);
+                dispatch(call);
+                circuitBreaker = acquireCircuitBreaker(call);
+            } catch (RuntimeException e) {
+                //请求未发出，归还令牌与许可
+                cancelReservation(rateLimiter);
+                onAttemptException(permit, e);
+                throw e;
+            }
+            long delay;
+            RpcHttpResponse response;
+            try {
+                response = metered(call, send(call, circuitBreaker).decoded());
+            } catch (Exception e) {
+                onAttemptException(permit, e);
+                //超时按剩余时间截断，截止后不再按原异常处理
+                checkDeadline(call, "retry", 0, e);
+                checkCancelled(call, "retry", e);
+                delay = retryPolicy.delayForException(attempt, call.idempotent, e);
+                if (delay < 0) {
+                    log.info("rpc request occur exception:{}", e.getMessage());
+                    throw new RuntimeException("rpc请求失败", e);
+                }
+                checkDeadline(call, "retry", delay, e);
+                log.info("rpc request retry,attempt:{},delay:{}ms,cause:{}", attempt, delay, e.getMessage());
+                pause(call, "retry", delay);
+                continue;
+            }
+            try (RpcHttpResponse current = response) {
+                if (current.getStatusCode() < HTTP_ERROR_STATUS) {
+                    onSuccess(retryPolicy, rateLimiter, permit);
+                    return reader.read(current);
+                }
+                byte[] body = current.readBytes();
+                delay = onErrorResponse(retryPolicy, rateLimiter, permit, attempt, call, current, body);
+                if (delay < 0) {
+                    return reader.read(buffered(current, body));
+                }
+            } catch (Exception e) {
+                onAttemptException(permit, e);
+                checkDeadline(call, "response", 0, e);
+                checkCancelled(call, "response", e);
+                log.info("rpc request occur exception:{}", e.getMessage());
+                throw new RuntimeException("rpc请求失败", e);
+            }
+            checkDeadline(call, "retry", delay, null);
+            pause(call, "retry", delay);
+        }
+    }
+
+    /**
+     * 异步执行请求，重试通过共享调度线程延迟发起，不占用调用线程
+     */
+    private <R> CompletableFuture<R> executeRequestAsync(RpcCall call, ResponseReader<R> reader) {
+        log.info("begin async rpc request");
+        CompletableFuture<R> future = new CompletableFuture<>();
+        if (call.deadline != null) {
+            if (call.deadline.isExpired()) {
+                future.completeExceptionally(call.deadline.exceeded("queue"));
+                return future;
+            }
+            //截止时结束调用，进行中的尝试由按剩余时间截断的超时结束，不再重试
+            ScheduledFuture<?> timer = PolicyScheduler.schedule(
+                    () -> future.completeExceptionally(call.deadline.exceeded("response")), call.deadline.remainingMillis());
+            future.whenComplete((result, e) -> timer.cancel(false));
+        }
+        //future 被取消、截止或完成时中止仍在进行的请求（如对冲请求），取消排队与待执行的重试
+        Runnable unlink = linkCancellation(call);
+        call.cancellation.onCancel(() -> future.cancel(true));
+        future.whenComplete((result, e) -> {
+            unlink.run();
+            call.cancellation.cancel();
+        });
+        LoadShedder loadShedder = rpcRequestContentModel.getLoadShedder();
+        if (loadShedder != null) {
+            try {
+                call.ticket = loadShedder.admit(call.requestBytes, rpcRequestContentModel.getPriority());
+            } catch (OverloadException e) {
+                future.completeExceptionally(e);
+                return future;
+            }
+            future.whenComplete((result, e) -> call.ticket.close());
+        }
+        RetryPolicy retryPolicy = resolveRetryPolicy();
+        AdaptiveRateLimiter rateLimiter = resolveRateLimiter(call);
+        Bulkhead bulkhead = call.bulkhead;
+        if (bulkhead == null) {
+            attemptAsync(call, reader, retryPolicy, rateLimiter, 1, future);
+            return future;
+        }
+        //排队时不占用线程，拿到许可后由释放许可的线程发起请求
+        CompletableFuture<Void> permit = bulkhead.acquireAsync(rpcRequestContentModel.getPriority(), bulkheadWait(call));
+        call.cancellation.onCancel(() -> permit.cancel(false));
+        permit.whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                future.completeExceptionally(call.deadline != null && call.deadline.isExpired() ? deadlineExceeded(call, "bulkhead", ex) : ex);
+                return;
+            }
+            future.whenComplete((result, e) -> bulkhead.release());
+            attemptAsync(call, reader, retryPolicy, rateLimiter, 1, future);
+        });
+        return future;
+    }
+
+    /**
+     * 发起一次异步尝试，需要限流排队时延迟到预约时间再发送
+     */
+    private <R> void attemptAsync(RpcCall call, ResponseReader<R> reader, RetryPolicy retryPolicy, AdaptiveRateLimiter rateLimiter,
+                                  int attempt, CompletableFuture<R> future) {
+        if (future.isDone()) {
+            //已截止
+            return;
+        }
+        long wait = 0;
+        if (rateLimiter != null) {
+            try {
+                wait = rateLimiter.reserve();
+            } catch (RateLimitExceededException e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            try {
+                checkDeadline(call, "rate limit wait", wait, null);
+            } catch (DeadlineExceededException e) {
+                rateLimiter.cancel();
+                future.completeExceptionally(e);
+                return;
+            }
+        }
+        if (wait > 0) {
+            //等待期间取消或截止时不再发送，归还令牌
+            schedule(call, () -> sendAttemptAsync(call, reader, retryPolicy, rateLimiter, attempt, future), wait, rateLimiter::cancel);
+        } else {
+            sendAttemptAsync(call, reader, retryPolicy, rateLimiter, attempt, future);
+        }
+    }
+
+    /**
+     * 配置了并发限制时先获取许可，达到上限时排队，不占用线程
+     */
+    private <R> void sendAttemptAsync(RpcCall call, ResponseReader<R> reader, RetryPolicy retryPolicy, AdaptiveRateLimiter rateLimiter,
+                                      int attempt, CompletableFuture<R> future) {
+        ConcurrencyLimiterConfig config = rpcRequestContentModel.getConcurrencyLimiterConfig();
+        if (config == null) {
+            dispatchAttemptAsync(call, reader, retryPolicy, rateLimiter, null, attempt, future);
+            return;
+        }
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> pending = ConcurrencyLimiterRegistry.getDefault()
+                .limiter(call.endpointKey, config).acquireAsync(concurrencyLimiterWait(call, config));
+        Runnable unlink = call.cancellation.onCancel(() -> pending.cancel(false));
+        pending.whenComplete((permit, ex) -> {
+            unlink.run();
+            if (ex != null) {
+                cancelReservation(rateLimiter);
+                //排队超时的同时已截止，按截止处理
+                future.completeExceptionally(call.deadline != null && call.deadline.isExpired()
+                        ? deadlineExceeded(call, "concurrency limit", ex) : ex);
+            } else {
+                dispatchAttemptAsync(call, reader, retryPolicy, rateLimiter, permit, attempt, future);
+            }
+        });
+    }
+
+    private <R> void dispatchAttemptAsync(RpcCall call, ResponseReader<R> reader, RetryPolicy retryPolicy, AdaptiveRateLimiter rateLimiter,
+                                          AdaptiveConcurrencyLimiter.Permit permit, int attempt, CompletableFuture<R> future) {
+        CircuitBreaker circuitBreaker;
+        try {
+            checkDeadline(call, "sign", 0, null);
+            checkCancelled(call, "sign", null);
+            dispatch(call);
+            circuitBreaker = acquireCircuitBreaker(call);
+        } catch (HttpRequestException e) {
+            //请求未发出，归还令牌与许可
+            cancelReservation(rateLimiter);
+            onAttemptException(permit, e);
+            future.completeExceptionally(e);
+            return;
+        }
+        //响应的解析、缓存写入与调用方的回调在响应线程池中执行，不占用 I/O 线程
+        sendAsync(call, circuitBreaker).whenCompleteAsync((response, ex) -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                onAttemptException(permit, cause);
+                if (call.cancellation.isCancelled()) {
+                    //调用已取消或截止，请求已中止
+                    return;
+                }
+                long delay = retryPolicy.delayForException(attempt, call.idempotent, cause);
+                if (call.deadline != null && call.deadline.expiresWithin(Math.max(delay, 0))) {
+                    future.completeExceptionally(deadlineExceeded(call, "retry", cause));
+                } else if (delay < 0) {
+                    log.info("rpc request occur exception:{}", cause.getMessage());
+                    future.completeExceptionally(new RuntimeException("rpc请求失败", cause));
+                } else {
+                    log.info("rpc request retry,attempt:{},delay:{}ms,cause:{}", attempt, delay, cause.getMessage());
+                    schedule(call, () -> attemptAsync(call, reader, retryPolicy, rateLimiter, attempt + 1, future), delay);
+                }
+                return;
+            }
+            if (future.isDone()) {
+                //排队期间调用已取消或截止，不再读取
+                closeQuietly(response);
+                if (permit != null) {
+                    permit.onIgnored();
+                }
+                return;
+            }
+            try (RpcHttpResponse decoded = metered(call, response.decoded())) {
+                if (decoded.getStatusCode() < HTTP_ERROR_STATUS) {
+                    onSuccess(retryPolicy, rateLimiter, permit);
+                    future.complete(reader.read(decoded));
+                    return;
+                }
+                byte[] body = decoded.readBytes();
+                long delay = onErrorResponse(retryPolicy, rateLimiter, permit, attempt, call, decoded, body);
+                if (delay < 0) {
+                    future.complete(reader.read(buffered(decoded, body)));
+                } else if (call.deadline != null && call.deadline.expiresWithin(delay)) {
+                    future.completeExceptionally(call.deadline.exceeded("retry"));
+                } else {
+                    schedule(call, () -> attemptAsync(call, reader, retryPolicy, rateLimiter, attempt + 1, future), delay);
+                }
+            } catch (Exception e) {
+                onAttemptException(permit, e);
+                log.info("rpc request occur exception:{}", e.getMessage());
+                future.completeExceptionally(new RuntimeException("rpc请求失败", e));
+            }
+        }, RESPONSE_EXECUTOR);
+    }
+
+    /**
+     * 获取舱壁许可，排队时间不超过截止前的剩余时间，排队时可取消
+     */
+    private void acquireBulkhead(RpcCall call) {
+        CompletableFuture<Void> permit = call.bulkhead.acquireAsync(rpcRequestContentModel.getPriority(), bulkheadWait(call));
+        Runnable unlink = call.cancellation.onCancel(() -> permit.cancel(false));
+        try {
+            permit.get();
+        } catch (CancellationException e) {
+            checkCancelled(call, "bulkhead", null);
+            throw e;
+        } catch (ExecutionException e) {
+            checkDeadline(call, "bulkhead", 0, e.getCause());
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException("rpc请求失败", e.getCause());
+        } catch (InterruptedException e) {
+            //已拿到许可时归还
+            if (!permit.cancel(false) && !permit.isCompletedExceptionally()) {
+                call.bulkhead.release();
+            }
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("rpc请求失败", e);
+        } finally {
+            unlink.run();
+        }
+    }
+
+    private static long bulkheadWait(RpcCall call) {
+        long maxWait = call.bulkhead.getConfig().getMaxWaitMillis();
+        return call.deadline == null ? maxWait : Math.min(maxWait, call.deadline.remainingMillis());
+    }
+
+    /**
+     * 检查截止时间
+     *
+     * @param waitMillis 接下来需要等待的时间，等待后已截止时提前放弃
+     * @param cause      导致等待或放弃的异常，可为 null
+     * @throws DeadlineExceededException 已截止或剩余时间不足
+     */
+    private static void checkDeadline(RpcCall call, String stage, long waitMillis, Throwable cause) {
+        if (call.deadline != null && call.deadline.expiresWithin(waitMillis)) {
+            throw deadlineExceeded(call, stage, cause);
+        }
+    }
+
+    /**
+     * 已取消时抛出异常，截止时间到达引起的取消抛出 DeadlineExceededException
+     *
+     * @throws CallCancelledException 已取消
+     */
+    private static void checkCancelled(RpcCall call, String stage, Throwable cause) {
+        if (!call.cancellation.isCancelled()) {
+            return;
+        }
+        checkDeadline(call, stage, 0, cause);
+        CallCancelledException e = new CallCancelledException("rpc request cancelled before " + stage);
+        if (cause != null) {
+            e.initCause(cause);
+        }
+        log.info("rpc request abandoned,{},key:{}", e.getMessage(), call.actionKey);
+        throw e;
+    }
+
+    /**
+     * 关联 model 中的取消信号与本次调用
+     *
+     * @return 解除关联
+     */
+    private Runnable linkCancellation(RpcCall call) {
+        Cancellation cancellation = rpcRequestContentModel.getCancellation();
+        return cancellation != null ? cancellation.onCancel(call.cancellation::cancel) : () -> {
+        };
+    }
+
+    /**
+     * 延迟执行异步重试等任务，调用取消时不再执行
+     */
+    private static void schedule(RpcCall call, Runnable task, long delayMillis) {
+        schedule(call, task, delayMillis, () -> {
+        });
+    }
+
+    /**
+     * @param onSkipped 调用取消导致任务不再执行时调用
+     */
+    private static void schedule(RpcCall call, Runnable task, long delayMillis, Runnable onSkipped) {
+        ScheduledFuture<?> scheduled = PolicyScheduler.schedule(task, delayMillis);
+        call.cancellation.onCancel(() -> {
+            if (scheduled.cancel(false)) {
+                onSkipped.run();
+            }
+        });
+    }
+
+    private static DeadlineExceededException deadlineExceeded(RpcCall call, String stage, Throwable cause) {
+        DeadlineExceededException e = call.deadline.exceeded(stage);
+        if (cause != null) {
+            e.initCause(cause);
+        }
+        log.info("rpc request abandoned,{},key:{}", e.getMessage(), call.actionKey);
+        return e;
+    }
+
+    /**
+     * 首次发出前离开过载保护的排队状态
+     *
+     * @throws OverloadException 排队时间超过预算
+     */
+    private static void dispatch(RpcCall call) {
+        if (call.ticket != null) {
+            call.ticket.dispatch();
+        }
+    }
+
+    /**
+     * 配置了 loadShedder 时，读取的响应体字节数计入在途字节，调用结束后归还
+     */
+    private static RpcHttpResponse metered(RpcCall call, RpcHttpResponse response) {
+        LoadShedder.Ticket ticket = call.ticket;
+        if (ticket == null) {
+            return response;
+        }
+        return new RpcHttpResponse(response.getStatusCode(), response.getHeaders(), new MeteredInputStream(response.getContent(), ticket), response);
+    }
+
+    /**
+     * 获取熔断许可
+     *
+     * @return 未启用熔断时返回 null
+     * @throws CircuitBreakerOpenException 熔断中
+     */
+    private CircuitBreaker acquireCircuitBreaker(RpcCall call) {
+        CircuitBreakerConfig config = rpcRequestContentModel.getCircuitBreakerConfig();
+        if (config == null) {
+            return null;
+        }
+        CircuitBreaker circuitBreaker = CircuitBreakerRegistry.getDefault().circuitBreaker(call.endpointKey, config);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            log.info("rpc request rejected by circuit breaker,key:{}", call.endpointKey);
+            throw new CircuitBreakerOpenException(call.endpointKey);
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * 发送一次请求并记录熔断结果，连接失败、超时与5xx视为失败
+     */
+    private RpcHttpResponse send(RpcCall call, CircuitBreaker circuitBreaker) throws Exception {
+        long start = System.nanoTime();
+        try {
+            RpcHttpResponse response = exchange(call);
+            recordCircuitBreaker(circuitBreaker, start, response.getStatusCode() >= HTTP_SERVER_ERROR_STATUS);
+            return response;
+        } catch (Exception e) {
+            recordCircuitBreaker(call, circuitBreaker, start, e);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<RpcHttpResponse> sendAsync(RpcCall call, CircuitBreaker circuitBreaker) {
+        long start = System.nanoTime();
+        return exchangeAsync(call).whenComplete((response, ex) -> {
+            if (ex != null) {
+                recordCircuitBreaker(call, circuitBreaker, start, ex);
+            } else {
+                recordCircuitBreaker(circuitBreaker, start, response.getStatusCode() >= HTTP_SERVER_ERROR_STATUS);
+            }
+        });
+    }
+
+    /**
+     * 记录失败的请求：调用方中断或取消时不计入统计，只归还半开探测名额；截止时间到期被中止的请求计为失败
+     */
+    private static void recordCircuitBreaker(RpcCall call, CircuitBreaker circuitBreaker, long startNanos, Throwable error) {
+        if (circuitBreaker == null) {
+            return;
+        }
+        boolean deadlineAbort = call.deadline != null && call.deadline.isExpired();
+        if (error instanceof InterruptedException || call.cancellation.isCancelled() && !deadlineAbort) {
+            circuitBreaker.onIgnored();
+            return;
+        }
+        recordCircuitBreaker(circuitBreaker, startNanos, true);
+    }
+
+    private static void recordCircuitBreaker(CircuitBreaker circuitBreaker, long startNanos, boolean failure) {
+        if (circuitBreaker == null) {
+            return;
+        }
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (failure) {
+            circuitBreaker.onError(duration);
+        } else {
+            circuitBreaker.onSuccess(duration);
+        }
+    }
+
+    /**
+     * 发送一次请求，满足对冲条件时对冲发送并取先返回的结果
+     */
+    private RpcHttpResponse exchange(RpcCall call) throws Exception {
+        long hedgeDelay = hedgeDelay(call);
+        return hedgeDelay < 0 ? transmit(call, call.cancellation) : sendHedged(call, hedgeDelay);
+    }
+
+    private CompletableFuture<RpcHttpResponse> exchangeAsync(RpcCall call) {
+        long hedgeDelay = hedgeDelay(call);
+        return hedgeDelay < 0 ? transmitAsync(call, call.cancellation) : sendHedgedAsync(call, hedgeDelay);
+    }
+
+    /**
+     * 经同步通道发送，响应体由调用方流式读取
+     *
+     * @param cancellation 本次发送的取消信号
+     */
+    private RpcHttpResponse transmit(RpcCall call, Cancellation cancellation) throws Exception {
+        long start = System.nanoTime();
+        RpcHttpResponse response = resolveTransport(call.bulkhead).execute(sign(call.request), requestOptions(call, cancellation));
+        recordLatency(call, response, start);
+        return response;
+    }
+
+    private CompletableFuture<RpcHttpResponse> transmitAsync(RpcCall call, Cancellation cancellation) {
+        long start = System.nanoTime();
+        CompletableFuture<RpcHttpResponse> pending;
+        try {
+            pending = resolveTransport(call.bulkhead).executeAsync(sign(call.request), requestOptions(call, cancellation));
+        } catch (Exception e) {
+            pending = new CompletableFuture<>();
+            pending.completeExceptionally(e);
+        }
+        return pending.whenComplete((response, ex) -> {
+            if (response != null) {
+                recordLatency(call, response, start);
+            }
+        });
+    }
+
+    /**
+     * 同步对冲发送：首次请求在调用线程发送，超过 hedgeDelay 未返回时由对冲线程重新签名再发送一次，取先返回的响应。
+     * 两次请求都经同步通道发送，响应体仍按原方式流式读取
+     */
+    private RpcHttpResponse sendHedged(RpcCall call, long hedgeDelay) throws Exception {
+        HedgeRace race = new HedgeRace(call);
+        Cancellation primary = race.attempt();
+        ScheduledFuture<?> hedge = scheduleHedge(call, race, hedgeDelay, attempt -> {
+            CompletableFuture<RpcHttpResponse> pending = new CompletableFuture<>();
+            HEDGE_EXECUTOR.execute(() -> {
+                try {
+                    pending.complete(transmit(call, attempt));
+                } catch (Throwable e) {
+                    pending.completeExceptionally(e);
+                }
+            });
+            return pending;
+        });
+        try {
+            race.finish(primary, transmit(call, primary), null);
+        } catch (Exception e) {
+            //对冲请求仍在进行时等待其结果
+            race.finish(primary, null, e);
+        }
+        try {
+            return race.result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } catch (InterruptedException e) {
+            race.abort();
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            hedge.cancel(false);
+        }
+    }
+
+    /**
+     * 异步对冲发送：首次请求超过 hedgeDelay 未返回时重新签名再发送一次，取先返回的响应
+     */
+    private CompletableFuture<RpcHttpResponse> sendHedgedAsync(RpcCall call, long hedgeDelay) {
+        HedgeRace race = new HedgeRace(call);
+        Cancellation primary = race.attempt();
+        transmitAsync(call, primary).whenComplete((response, ex) -> race.finish(primary, response, ex));
+        ScheduledFuture<?> hedge = scheduleHedge(call, race, hedgeDelay, attempt -> transmitAsync(call, attempt));
+        race.result.whenComplete((response, ex) -> hedge.cancel(false));
+        return race.result;
+    }
+
+    /**
+     * 延迟发起对冲请求。对冲请求与普通请求一样占用并发许可与限流令牌，需要排队或等待令牌时不对冲
+     *
+     * @param sender 发送一次对冲请求，参数为该请求的取消信号
+     */
+    private ScheduledFuture<?> scheduleHedge(RpcCall call, HedgeRace race, long hedgeDelay,
+                                             Function<Cancellation, CompletableFuture<RpcHttpResponse>> sender) {
+        return PolicyScheduler.schedule(() -> {
+            if (race.result.isDone() || call.cancellation.isCancelled() || call.deadline != null && call.deadline.isExpired()) {
+                return;
+            }
+            AdaptiveConcurrencyLimiter.Permit permit = null;
+            ConcurrencyLimiterConfig config = rpcRequestContentModel.getConcurrencyLimiterConfig();
+            if (config != null) {
+                permit = ConcurrencyLimiterRegistry.getDefault().limiter(call.endpointKey, config).tryAcquire();
+                if (permit == null) {
+                    log.info("rpc request hedge skipped,concurrency limit reached,key:{}", call.actionKey);
+                    return;
+                }
+            }
+            AdaptiveRateLimiter rateLimiter = resolveRateLimiter(call);
+            if (rateLimiter != null && !rateLimiter.tryAcquire()) {
+                log.info("rpc request hedge skipped,rate limited,key:{}", call.actionKey);
+                if (permit != null) {
+                    permit.onIgnored();
+                }
+                return;
+            }
+            if (!race.join()) {
+                //首次请求已失败或已返回
+                cancelReservation(rateLimiter);
+                if (permit != null) {
+                    permit.onIgnored();
+                }
+                return;
+            }
+            log.info("rpc request hedged,key:{},delay:{}ms", call.actionKey, hedgeDelay);
+            Cancellation attempt = race.attempt();
+            AdaptiveConcurrencyLimiter.Permit hedgePermit = permit;
+            CompletableFuture<RpcHttpResponse> pending;
+            try {
+                pending = sender.apply(attempt);
+            } catch (RejectedExecutionException e) {
+                log.info("rpc request hedge skipped,no hedge thread available,key:{}", call.actionKey);
+                cancelReservation(rateLimiter);
+                pending = new CompletableFuture<>();
+                pending.completeExceptionally(e);
+            }
+            pending.whenComplete((response, ex) -> {
+                if (hedgePermit != null) {
+                    if (ex != null) {
+                        onAttemptException(hedgePermit, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                    } else if (response.getStatusCode() < HTTP_ERROR_STATUS) {
+                        hedgePermit.onSuccess();
+                    } else {
+                        hedgePermit.onIgnored();
+                    }
+                }
+                race.finish(attempt, response, ex);
+            });
+        }, hedgeDelay);
+    }
+
+    private static void closeQuietly(RpcHttpResponse response) {
+        try {
+            response.close();
+        } catch (IOException e) {
+            log.warn("close response failed", e);
+        }
+    }
+
+    /**
+     * 对冲等待时间，仅幂等请求且配置了 hedgePolicy 时生效
+     *
+     * @return 小于0表示不对冲
+     */
+    private long hedgeDelay(RpcCall call) {
+        HedgePolicy hedgePolicy = rpcRequestContentModel.getHedgePolicy();
+        if (!call.idempotent || hedgePolicy == null) {
+            return -1;
+        }
+        return hedgePolicy.hedgeDelayMillis(LatencyTracker.getDefault().histogram(call.actionKey));
+    }
+
+    private static void recordLatency(RpcCall call, RpcHttpResponse response, long startNanos) {
+        if (response.getStatusCode() < HTTP_ERROR_STATUS) {
+            LatencyTracker.getDefault().record(call.actionKey, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    private static void onSuccess(RetryPolicy retryPolicy, AdaptiveRateLimiter rateLimiter, AdaptiveConcurrencyLimiter.Permit permit) {
+        retryPolicy.onSuccess();
+        if (rateLimiter != null) {
+            rateLimiter.onSuccess();
+        }
+        if (permit != null) {
+            permit.onSuccess();
+        }
+    }
+
+    /**
+     * 请求未发出时归还预约的令牌
+     */
+    private static void cancelReservation(AdaptiveRateLimiter rateLimiter) {
+        if (rateLimiter != null) {
+            rateLimiter.cancel();
+        }
+    }
+
+    /**
+     * 一次尝试失败时归还并发许可，超时视为过载
+     */
+    private static void onAttemptException(AdaptiveConcurrencyLimiter.Permit permit, Throwable error) {
+        if (permit == null) {
+            return;
+        }
+        if (RetryPolicy.isTimeout(error)) {
+            permit.onDropped();
+        } else {
+            permit.onIgnored();
+        }
+    }
+
+    /**
+     * 处理错误响应：限流响应通知限流器降速、并发限制降低上限，并计算重试等待时间。错误码从响应体 Error.Code 中读取
+     *
+     * @return 重试等待时间，小于0表示不重试
+     */
+    private static long onErrorResponse(RetryPolicy retryPolicy, AdaptiveRateLimiter rateLimiter, AdaptiveConcurrencyLimiter.Permit permit,
+                                        int attempt, RpcCall call, RpcHttpResponse response, byte[] body) {
+        String errorCode = null;
+        try {
+            errorCode = new LazyJsonResponse(body).getErrorCode();
+        } catch (RuntimeException e) {
+            //非 json 响应，只按状态码判断
+        }
+        String retryAfter = response.firstHeader("Retry-After");
+        boolean throttled = retryPolicy.isThrottling(response.getStatusCode(), errorCode);
+        if (rateLimiter != null && throttled) {
+            rateLimiter.onThrottled(RetryPolicy.parseRetryAfterMillis(retryAfter));
+        }
+        if (permit != null) {
+            //4xx 与正常响应同样反映服务端延迟，5xx 不作为样本
+            if (throttled) {
+                permit.onDropped();
+            } else if (response.getStatusCode() >= HTTP_SERVER_ERROR_STATUS) {
+                permit.onIgnored();
+            } else {
+                permit.onSuccess();
+            }
+        }
+        long delay = retryPolicy.delayForResponse(attempt, call.idempotent, response.getStatusCode(), errorCode, retryAfter);
+        if (delay >= 0) {
+            log.info("rpc request retry,attempt:{},delay:{}ms,status:{},code:{}", attempt, delay, response.getStatusCode(), errorCode);
+        }
+        return delay;
+    }
+
+    /**
+     * 已读入内存的响应，交给 reader 读取
+     */
+    private static RpcHttpResponse buffered(RpcHttpResponse response, byte[] body) {
+        return new RpcHttpResponse(response.getStatusCode(), response.getHeaders(), new ByteArrayInputStream(body), null);
+    }
+
+    /**
+     * 缓存命中时交给 reader 读取的响应
+     */
+    private static RpcHttpResponse cachedResponse(byte[] body) {
+        return new RpcHttpResponse(200, null, new ByteArrayInputStream(body), null);
+    }
+
+    /**
+     * 等待 delayMillis，期间调用被取消时提前结束
+     */
+    private static void pause(RpcCall call, String stage, long delayMillis) {
+        try {
+            if (delayMillis > 0 && call.cancellation.await(delayMillis)) {
+                checkCancelled(call, stage, null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("rpc请求失败", e);
+        }
+    }
+
+    private SdkHttpFullRequest sign(SdkHttpFullRequest unsignedRequest) {
+        return signRequest(unsignedRequest, rpcRequestContentModel.getAccessKeyId(), rpcRequestContentModel.getSecretAccessKey());
+    }
+
+    /**
+     * @return 未启用限流时返回 null
+     */
+    private AdaptiveRateLimiter resolveRateLimiter(RpcCall call) {
+        RateLimiterConfig config = rpcRequestContentModel.getRateLimiterConfig();
+        if (config == null) {
+            return null;
+        }
+        return RateLimiterRegistry.getDefault().rateLimiter(call.actionKey, call.action, config);
+    }
+
+    private RetryPolicy resolveRetryPolicy() {
+        RetryPolicy retryPolicy = rpcRequestContentModel.getRetryPolicy();
+        return retryPolicy != null ? retryPolicy : RetryPolicy.none();
+    }
+
+    /**
+     * 获取并发许可，达到上限时按配置排队或直接拒绝。排队时间不超过截止前的剩余时间，排队时可取消
+     *
+     * @return 未启用并发限制时返回 null
+     */
+    private AdaptiveConcurrencyLimiter.Permit acquireConcurrencyPermit(RpcCall call) {
+        ConcurrencyLimiterConfig config = rpcRequestContentModel.getConcurrencyLimiterConfig();
+        if (config == null) {
+            return null;
+        }
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> pending = ConcurrencyLimiterRegistry.getDefault()
+                .limiter(call.endpointKey, config).acquireAsync(concurrencyLimiterWait(call, config));
+        Runnable unlink = call.cancellation.onCancel(() -> pending.cancel(false));
+        try {
+            return pending.get();
+        } catch (CancellationException e) {
+            checkCancelled(call, "concurrency limit", null);
+            throw e;
+        } catch (ExecutionException e) {
+            checkDeadline(call, "concurrency limit", 0, e.getCause());
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException("rpc请求失败", e.getCause());
+        } catch (InterruptedException e) {
+            //已拿到许可时归还
+            if (!pending.cancel(false) && !pending.isCompletedExceptionally()) {
+                pending.join().onIgnored();
+            }
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("rpc请求失败", e);
+        } finally {
+            unlink.run();
+        }
+    }
+
+    private static long concurrencyLimiterWait(RpcCall call, ConcurrencyLimiterConfig config) {
+        long maxWait = config.getMaxWaitMillis();
+        return call.deadline == null ? maxWait : Math.min(maxWait, call.deadline.remainingMillis());
+    }
+
+    /**
+     * @return 未启用舱壁时返回 null
+     */
+    private Bulkhead resolveBulkhead() {
+        BulkheadConfig config = rpcRequestContentModel.getBulkheadConfig();
+        if (config == null) {
+            return null;
+        }
+        return BulkheadRegistry.getDefault().bulkhead(
+                BulkheadRegistry.key(rpcRequestContentModel.getService(), rpcRequestContentModel.getRegion()), config);
+    }
+
+    /**
+     * 传输层：RpcRequestContentModel 指定的 transport，其次是舱壁的独立连接池，最后是创建客户端时传入的传输层
+     */
+    private SdkHttpTransport resolveTransport(Bulkhead bulkhead) {
+        SdkHttpTransport configured = rpcRequestContentModel.getTransport();
+        if (configured != null) {
+            return configured;
+        }
+        return bulkhead != null && bulkhead.getTransport() != null ? bulkhead.getTransport() : transport;
+    }
+
+    /**
+     * 请求超时，幂等请求配置了 adaptiveTimeoutPolicy 时按该 action 的历史延迟计算读取超时；
+     * 有截止时间时连接、读取与获取连接超时都不超过剩余时间
+     *
+     * @param cancellation 本次发送的取消信号，对冲时每个请求各自一个
+     */
+    private HttpRequestOptions requestOptions(RpcCall call, Cancellation cancellation) {
+        int connectTimeout = rpcRequestContentModel.getConnectTimeout();
+        int socketTimeout = rpcRequestContentModel.getSocketTimeout();
+        AdaptiveTimeoutPolicy adaptiveTimeoutPolicy = rpcRequestContentModel.getAdaptiveTimeoutPolicy();
+        if (call.idempotent && adaptiveTimeoutPolicy != null) {
+            socketTimeout = adaptiveTimeoutPolicy.socketTimeoutMillis(
+                    LatencyTracker.getDefault().histogram(call.actionKey), socketTimeout);
+        }
+        if (call.deadline == null) {
+            return HttpRequestOptions.builder()
+                    .connectTimeout(connectTimeout)
+                    .socketTimeout(socketTimeout)
+                    .cancellation(cancellation)
+                    .build();
+        }
+        return HttpRequestOptions.builder()
+                .connectTimeout(call.deadline.cap(connectTimeout))
+                .socketTimeout(call.deadline.cap(socketTimeout))
+                .connectionRequestTimeout(call.deadline.cap(0))
+                .cancellation(cancellation)
+                .build();
+    }
+
+    /**
+     * 读取响应内容
+     */
+    private String readResult(RpcHttpResponse response) throws IOException {
+        String result = new String(response.readBytes(), StandardCharsets.UTF_8);
+        JSONObject jsonObject = JSONObject.parseObject(result);
+        jsonObject.put("result", result);
+        log.info("rpc request end,response:{}", jsonObject.toJSONString());
+
+        return jsonObject.toJSONString();
+    }
+
+    /**
+     * 响应体一次解析为指定类型
+     */
+    private <T extends BaseResponseModel> T bindResult(RpcHttpResponse response, Class<T> responseClass) throws IOException {
+        T result = ResponseBinder.bind(response.readBytes(), responseClass);
+        log.info("rpc request end,requestId:{}", result.getRequestId());
+        return result;
+    }
+
+    /**
+     * 响应读取方式
+     */
+    private interface ResponseReader<R> {
+        R read(RpcHttpResponse response) throws IOException;
+    }
+
+    /**
+     * 一次调用，持有未签名请求，各次尝试共用
+     */
+    private static class RpcCall {
+
+        private final SdkHttpFullRequest request;
+
+        private final boolean idempotent;
+
+        private final String action;
+
+        /**
+         * 延迟统计与限流 key：service/region/action
+         */
+        private final String actionKey;
+
+        /**
+         * 熔断与并发限制 key：service/region/host
+         */
+        private final String endpointKey;
+
+        /**
+         * 舱壁：service/region，未启用时为 null
+         */
+        private final Bulkhead bulkhead;
+
+        /**
+         * 请求体字节数，未启用过载保护时为0
+         */
+        private final long requestBytes;
+
+        /**
+         * 过载保护预算，执行时获取，未启用时为 null
+         */
+        private volatile LoadShedder.Ticket ticket;
+
+        /**
+         * 截止时间，未配置时为 null
+         */
+        private final Deadline deadline;
+
+        /**
+         * 本次调用的取消信号：中止进行中的请求，取消排队与待执行的重试
+         */
+        private final Cancellation cancellation = new Cancellation();
+
+        RpcCall(SdkHttpFullRequest request, boolean idempotent, String action, String actionKey, String endpointKey,
+                Bulkhead bulkhead, long requestBytes, Deadline deadline) {
+            this.request = request;
+            this.idempotent = idempotent;
+            this.action = action;
+            this.actionKey = actionKey;
+            this.endpointKey = endpointKey;
+            this.bulkhead = bulkhead;
+            this.requestBytes = requestBytes;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 一次对冲发送中的各个请求，取先返回的响应，其余请求随即中止，晚到的响应直接关闭；全部失败时以首个异常结束
+     */
+    private static class HedgeRace {
+
+        private final RpcCall call;
+
+        private final CompletableFuture<RpcHttpResponse> result = new CompletableFuture<>();
+
+        private final List<Cancellation> attempts = new CopyOnWriteArrayList<>();
+
+        /**
+         * 尚未失败的请求数，首次请求创建时即计入
+         */
+        private final AtomicInteger inFlight = new AtomicInteger(1);
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private HedgeRace(RpcCall call) {
+            this.call = call;
+        }
+
+        /**
+         * 新请求的取消信号，调用取消或截止时一并取消
+         */
+        private Cancellation attempt() {
+            Cancellation cancellation = new Cancellation();
+            attempts.add(cancellation);
+            call.cancellation.onCancel(cancellation::cancel);
+            return cancellation;
+        }
+
+        /**
+         * 加入对冲请求
+         *
+         * @return 已有结果或已全部失败时返回 false
+         */
+        private boolean join() {
+            return !result.isDone() && inFlight.getAndUpdate(n -> n == 0 ? 0 : n + 1) > 0;
+        }
+
+        private void finish(Cancellation attempt, RpcHttpResponse response, Throwable error) {
+            if (error != null) {
+                failure.compareAndSet(null, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                if (inFlight.decrementAndGet() == 0) {
+                    result.completeExceptionally(failure.get());
+                }
+                return;
+            }
+            if (!result.complete(response)) {
+                closeQuietly(response);
+                return;
+            }
+            for (Cancellation other : attempts) {
+                if (other != attempt) {
+                    other.cancel();
+                }
+            }
+        }
+
+        /**
+         * 调用方放弃等待，中止全部请求
+         */
+        private void abort() {
+            if (result.cancel(false)) {
+                attempts.forEach(Cancellation::cancel);
+            } else if (!result.isCompletedExceptionally()) {
+                closeQuietly(result.join());
+            }
+        }
+    }
+
+    /**
+     * 按读取的字节数计入过载保护的在途字节
+     */
+    private static class MeteredInputStream extends FilterInputStream {
+
+        private final LoadShedder.Ticket ticket;
+
+        MeteredInputStream(InputStream in, LoadShedder.Ticket ticket) {
+            super(in);
+            this.ticket = ticket;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                ticket.addResponseBytes(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                ticket.addResponseBytes(read);
+            }
+            return read;
+        }
+    }
+
+    /**
+     * 内存中的请求体，长度已知
+     */
+    private static class ByteArrayContentProvider implements ContentStreamProvider {
+
+        private final byte[] body;
+
+        ByteArrayContentProvider(byte[] body) {
+            this.body = body;
+        }
+
+        @Override
+        public InputStream newStream() {
+            return new ByteArrayInputStream(body);
+        }
+
+        long length() {
+            return body.length;
+        }
+    }
+
+    /**
+     * 请求标识，用于响应缓存与合并并发请求
+     */
+    private static class RequestIdentity {
+
+        private final String key;
+
+        /**
+         * 缓存失效范围：service/region/ak
+         */
+        private final String scope;
+
+        private final String action;
+
+        private final boolean readOnly;
+
+        private final boolean cacheable;
+
+        RequestIdentity(String key, String scope, String action, boolean readOnly, boolean cacheable) {
+            this.key = key;
+            this.scope = scope;
+            this.action = action;
+            this.readOnly = readOnly;
+            this.cacheable = cacheable;
         }
     }
 
@@ -0,0 +1,148 @@
+package common.http;
+
+import common.HttpClientConfig;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
+import software.amazon.awssdk.utils.IoUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * @Classname JdkHttpTransport
+ * @Description 基于 JDK 11+ java.net.http 的传输层实现，协商 HTTP/2 后同一 endpoint 的并发请求复用一条连接。
+ * 通过 SdkHttpTransports.jdkHttp2() 获取，JDK 8 下不可用
+ */
+@Slf4j
+public class JdkHttpTransport implements SdkHttpTransport {
+
+    /**
+     * java.net.http 不允许手动设置的请求头，由客户端自行生成
+     */
+    private static final Set<String> RESTRICTED_HEADERS;
+
+    static {
+        Set<String> headers = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        headers.addAll(new HashSet<>(Arrays.asList("Host", "Connection", "Content-Length", "Expect", "Upgrade")));
+        RESTRICTED_HEADERS = headers;
+    }
+
+    private final HttpClient httpClient;
+
+    public JdkHttpTransport() {
+        this(HttpClientConfig.defaultConfig());
+    }
+
+    public JdkHttpTransport(HttpClientConfig config) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(config.getConnectTimeout()))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Override
+    public RpcHttpResponse execute(SdkHttpFullRequest signedRequest, HttpRequestOptions options) throws IOException {
+        HttpRequest request = toHttpRequest(signedRequest, options);
+        if (options.getCancellation() == null) {
+            try {
+                HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                return new RpcHttpResponse(response.statusCode(), response.headers().map(), response.body(), null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("rpc request interrupted");
+            }
+        }
+        //可取消的请求经 sendAsync 发送：取消时取消 future，已收到响应时关闭响应流以释放 HTTP/2 stream
+        CompletableFuture<HttpResponse<InputStream>> pending = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        options.getCancellation().onCancel(() -> {
+            pending.cancel(true);
+            pending.thenAccept(response -> closeQuietly(response.body()));
+        });
+        try {
+            HttpResponse<InputStream> response = pending.get();
+            return new RpcHttpResponse(response.statusCode(), response.headers().map(), response.body(), null);
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("rpc request aborted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CancellationException) {
+                throw new InterruptedIOException("rpc request aborted");
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            pending.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("rpc request interrupted");
+        }
+    }
+
+    @Override
+    public CompletableFuture<RpcHttpResponse> executeAsync(SdkHttpFullRequest signedRequest, HttpRequestOptions options) {
+        HttpRequest request;
+        try {
+            request = toHttpRequest(signedRequest, options);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<HttpResponse<byte[]>> pending = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (options.getCancellation() != null) {
+            //JDK 16 起取消 sendAsync 的 future 会中止请求，此前的版本只停止等待
+            options.getCancellation().onCancel(() -> pending.cancel(true));
+        }
+        CompletableFuture<RpcHttpResponse> future = pending.thenApply(response -> new RpcHttpResponse(response.statusCode(),
+                response.headers().map(), new ByteArrayInputStream(response.body()), null));
+        future.whenComplete((response, ex) -> {
+            if (future.isCancelled()) {
+                pending.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.warn("close cancelled response failed", e);
+        }
+    }
+
+    private HttpRequest toHttpRequest(SdkHttpFullRequest signedRequest, HttpRequestOptions options) throws IOException {
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+        if (signedRequest.contentStreamProvider().isPresent()) {
+            try (InputStream in = signedRequest.contentStreamProvider().get().newStream()) {
+                body = HttpRequest.BodyPublishers.ofByteArray(IoUtils.toByteArray(in));
+            }
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(signedRequest.getUri())
+                .timeout(Duration.ofMillis(options.getSocketTimeout()))
+                .method(signedRequest.method().name(), body);
+        signedRequest.headers().forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name)) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        log.info("begin rpc request {} {}", signedRequest.method(), signedRequest.getUri());
+        return builder.build();
+    }
+}
@@ -0,0 +1,30 @@
+package common.batch;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @Classname BulkExecutors
+ * @Description 批量执行线程池，JDK 21+ 每个请求一个虚拟线程，并发数由 RpcBulkExecutor 的信号量限制
+ */
+public final class BulkExecutors {
+
+    private BulkExecutors() {
+    }
+
+    /**
+     * 创建执行线程池
+     *
+     * @param maxConcurrency 最大并发数，由调用方限流，此处不限制
+     */
+    public static ExecutorService newExecutor(int maxConcurrency) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ksyun-bulk-", 0).factory());
+    }
+
+    /**
+     * 是否运行在虚拟线程上
+     */
+    public static boolean isVirtual() {
+        return true;
+    }
+}
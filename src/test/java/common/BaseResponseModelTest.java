@@ -0,0 +1,28 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @Classname BaseResponseModelTest
+ * @Description 原始响应体不参与 equals/hashCode，按解码后的 result 比较
+ */
+class BaseResponseModelTest {
+
+    @Test
+    void rawBodyIsComparedThroughResult() {
+        BaseResponseModel bound = new BaseResponseModel();
+        bound.setRequestId("id");
+        bound.setRawBody("{\"RequestId\":\"id\"}".getBytes(StandardCharsets.UTF_8));
+
+        BaseResponseModel decoded = new BaseResponseModel();
+        decoded.setRequestId("id");
+        decoded.setResult("{\"RequestId\":\"id\"}");
+
+        assertEquals(decoded, bound);
+        assertEquals(decoded.hashCode(), bound.hashCode());
+    }
+}
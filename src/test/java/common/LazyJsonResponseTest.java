@@ -0,0 +1,114 @@
+package common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import common.policy.RetryPolicy;
+import common.utils.JsonProjection;
+import common.utils.LocalHttpServer;
+import common.utils.RpcRequestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname LazyJsonResponseTest
+ * @Description 按需解析的响应：顶层字段索引、路径取值与缺失字段
+ */
+class LazyJsonResponseTest {
+
+    private static LocalHttpServer server;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = new LocalHttpServer();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    private static LazyJsonResponse response(String json) {
+        return new LazyJsonResponse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void responseFromServerIsReadByPath() {
+        RpcRequestClient client = new RpcRequestClient(RpcRequestContentModel.builder()
+                .service("kec")
+                .region("lazy")
+                .accessKeyId("ak")
+                .secretAccessKey("sk")
+                .retryPolicy(RetryPolicy.none())
+                .build());
+        Map<String, Object> params = new HashMap<>();
+        params.put("Action", "DescribeInstances");
+        params.put("MaxResults", "5");
+        params.put("InstanceId.1", "i-1");
+        params.put("InstanceId.2", "missing-2");
+        params.put("InstanceId.3", "i-3");
+
+        LazyJsonResponse response = client.beginRpcRequestLazy(server.url("/batch"), "GET", params, new HashMap<>());
+        assertEquals("batch", response.getRequestId());
+        assertFalse(response.hasError());
+        assertEquals(2, response.select("InstancesSet[*].InstanceId").size());
+        assertEquals("i-3", response.getString("InstancesSet[1].InstanceId"));
+        assertNull(response.getString("NextToken"));
+        assertEquals(new HashSet<>(Arrays.asList("RequestId", "InstancesSet")), response.fieldNames());
+    }
+
+    @Test
+    void topLevelFieldsAreParsedOnce() {
+        LazyJsonResponse response = response("{\"Count\":12345678901,\"Flag\":true,\"Text\":\"a\\\"b\",\"Items\":[{\"Id\":1}],\"Empty\":{}}");
+
+        assertEquals(12345678901L, response.get("Count").asLong());
+        assertTrue(response.get("Flag").asBoolean());
+        assertEquals("a\"b", response.getString("Text"));
+        assertSame(response.get("Items"), response.get("Items"));
+        assertTrue(response.get("Empty").isObject());
+        assertNull(response.get("Missing"));
+    }
+
+    @Test
+    void errorAndNullFields() {
+        LazyJsonResponse response = response("{\"RequestId\":null,\"Error\":{\"Code\":\"InvalidParameter\",\"Message\":\"bad\"}}");
+
+        assertNull(response.getRequestId());
+        assertTrue(response.hasError());
+        assertEquals("InvalidParameter", response.getErrorCode());
+        assertEquals("bad", response.getErrorMessage());
+        assertNull(response.getString("Error.Missing"));
+        assertTrue(response.select("Error.Code[*]").isEmpty());
+    }
+
+    @Test
+    void projectionSkipsUnrelatedFields() {
+        LazyJsonResponse response = response("{\"Big\":[[1,2],[3]],\"Set\":[{\"A\":1,\"B\":{\"C\":[\"x\",\"y\"]}},{\"A\":2}]}");
+        Map<String, List<JsonNode>> values = response.project(JsonProjection.compile("Set[*].A", "Set[0].B.C[1]", "Set[1].B.C[*]"));
+
+        assertEquals(2, values.get("Set[*].A").size());
+        assertEquals("y", values.get("Set[0].B.C[1]").get(0).asText());
+        assertTrue(values.get("Set[1].B.C[*]").isEmpty());
+        assertEquals(2, response.select("Big[0][1]").get(0).asInt());
+    }
+
+    @Test
+    void nonObjectBodyIsRejected() {
+        assertThrows(UncheckedIOException.class, () -> response("[1,2]").getRequestId());
+        assertThrows(UncheckedIOException.class, () -> response("{\"A\":").fieldNames());
+    }
+}
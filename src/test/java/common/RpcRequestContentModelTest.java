@@ -0,0 +1,22 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @Classname RpcRequestContentModelTest
+ * @Description 默认配置：改变请求行为的策略需显式开启
+ */
+class RpcRequestContentModelTest {
+
+    @Test
+    void circuitBreakerIsOptIn() {
+        assertNull(RpcRequestContentModel.builder().build().getCircuitBreakerConfig());
+    }
+
+    @Test
+    void retryIsOptIn() {
+        assertNull(RpcRequestContentModel.builder().build().getRetryPolicy());
+    }
+}
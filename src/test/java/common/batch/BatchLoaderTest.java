@@ -0,0 +1,88 @@
+package common.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import common.RpcRequest;
+import common.RpcRequestContentModel;
+import common.http.SdkHttpTransports;
+import common.policy.RetryPolicy;
+import common.utils.LocalHttpServer;
+import common.utils.RpcRequestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @Classname BatchLoaderTest
+ * @Description 批量加载：按 id 拆分响应，结果被截断时整批失败
+ */
+class BatchLoaderTest {
+
+    private static LocalHttpServer server;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = new LocalHttpServer();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    private static BatchLoaderConfig.BatchLoaderConfigBuilder config() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("Action", "DescribeInstances");
+        return BatchLoaderConfig.builder()
+                .request(RpcRequest.builder().url(server.url("/batch")).requestMethod("GET").requestParam(params).build())
+                .idParamName("InstanceId")
+                .resultPath("InstancesSet[*]")
+                .resultIdField("InstanceId")
+                .maxDelayMillis(1000L);
+    }
+
+    private static RpcRequestClient client() {
+        return new RpcRequestClient(RpcRequestContentModel.builder()
+                .service("kec")
+                .region("batch")
+                .accessKeyId("ak")
+                .secretAccessKey("sk")
+                .retryPolicy(RetryPolicy.none())
+                .build(), SdkHttpTransports.apache());
+    }
+
+    @Test
+    void missingIdsCompleteWithNull() throws Exception {
+        BatchLoader loader = new BatchLoader(client(), config().build());
+        CompletableFuture<Map<String, JsonNode>> results = loader.loadMany(Arrays.asList("i-1", "missing-1", "i-2", "i-3"));
+        CompletableFuture<JsonNode> missing = loader.load("missing-2");
+        loader.flush();
+
+        assertEquals(Arrays.asList("i-1", "i-2", "i-3"), Arrays.asList(results.get(5, TimeUnit.SECONDS).keySet().toArray()));
+        assertNull(missing.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void truncatedResponseFailsTheBatch() {
+        BatchLoader loader = new BatchLoader(client(), config().pageSizeParamName(null).build());
+        CompletableFuture<JsonNode> first = loader.load("i-1");
+        CompletableFuture<JsonNode> last = loader.load("i-3");
+        loader.load("i-2");
+        loader.flush();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> last.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+    }
+}
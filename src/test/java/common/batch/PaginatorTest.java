@@ -0,0 +1,141 @@
+package common.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import common.RpcRequest;
+import common.RpcRequestContentModel;
+import common.exception.HttpRequestException;
+import common.policy.RetryPolicy;
+import common.utils.LocalHttpServer;
+import common.utils.RpcRequestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @Classname PaginatorTest
+ * @Description 分页遍历：预取下一页、缓冲页数上限、按页拆分的并行流与错误传递
+ */
+class PaginatorTest {
+
+    private static LocalHttpServer server;
+
+    private static RpcRequestClient client;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = new LocalHttpServer();
+        client = new RpcRequestClient(RpcRequestContentModel.builder()
+                .service("kec")
+                .region("paginator")
+                .accessKeyId("ak")
+                .secretAccessKey("sk")
+                .retryPolicy(RetryPolicy.none())
+                .build());
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(String.format("i-%02d", i));
+        }
+        return ids;
+    }
+
+    private static PaginatorConfig.PaginatorConfigBuilder config(String path, int count) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("Action", "DescribeInstances");
+        List<String> ids = ids(count);
+        for (int i = 0; i < ids.size(); i++) {
+            params.put("InstanceId." + (i + 1), ids.get(i));
+        }
+        return PaginatorConfig.builder()
+                .request(RpcRequest.builder().url(server.url(path)).requestMethod("GET").requestParam(params).build())
+                .itemsPath("InstancesSet[*].InstanceId")
+                .pageSize(3);
+    }
+
+    private static void awaitFetchedPages(Paginator paginator, int pages) throws InterruptedException {
+        for (int i = 0; i < 500 && paginator.getFetchedPages() < pages; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(pages, paginator.getFetchedPages());
+    }
+
+    @Test
+    void pagesArePrefetchedUpToTheBufferLimit() throws Exception {
+        try (Paginator paginator = new Paginator(client, config("/batch", 20).maxBufferedPages(2).build())) {
+            //未取页时最多预取 maxBufferedPages 页
+            awaitFetchedPages(paginator, 2);
+            TimeUnit.MILLISECONDS.sleep(200);
+            assertEquals(2, paginator.getFetchedPages());
+
+            assertEquals(3, paginator.nextPage().size());
+            awaitFetchedPages(paginator, 3);
+            TimeUnit.MILLISECONDS.sleep(200);
+            assertEquals(3, paginator.getFetchedPages());
+        }
+    }
+
+    @Test
+    void itemsAreIteratedInOrderAcrossPages() {
+        try (Paginator paginator = new Paginator(client, config("/batch", 10).build())) {
+            List<String> ids = new ArrayList<>();
+            paginator.forEach(item -> ids.add(item.asText()));
+            assertEquals(ids(10), ids);
+            //最后一页不足 pageSize 且没有 NextToken
+            assertEquals(4, paginator.getFetchedPages());
+            assertNull(paginator.nextPage());
+        }
+    }
+
+    @Test
+    void parallelStreamSplitsByPage() {
+        Paginator paginator = new Paginator(client, config("/batch", 20).maxBufferedPages(4).build());
+        List<String> ids;
+        try (Stream<JsonNode> stream = paginator.stream(true)) {
+            ids = stream.map(JsonNode::asText).collect(Collectors.toList());
+        }
+        assertEquals(20, ids.size());
+        assertEquals(new TreeSet<>(ids(20)), new TreeSet<>(ids));
+        //有序流保持结果顺序
+        assertEquals(ids(20), ids);
+        //关闭流时关闭分页器
+        assertNull(paginator.nextPage());
+    }
+
+    @Test
+    void offsetTokenStopsOnEmptyPage() {
+        try (Paginator paginator = new Paginator(client, config("/batch", 6)
+                .tokenExtractor(PageTokenExtractor.offset())
+                .build())) {
+            assertEquals(6, paginator.stream().count());
+            assertEquals(3, paginator.getFetchedPages());
+        }
+    }
+
+    @Test
+    void errorPageFailsTheCaller() {
+        try (Paginator paginator = new Paginator(client, config("/err", 1).build())) {
+            HttpRequestException e = assertThrows(HttpRequestException.class, paginator::nextPage);
+            assertEquals("InternalError", e.getErrorCode());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package common.batch;
+
+import common.RpcRequest;
+import common.RpcRequestContentModel;
+import common.exception.HttpRequestException;
+import common.http.EndpointRegistry;
+import common.policy.RetryPolicy;
+import common.utils.LocalHttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname RegionFanOutTest
+ * @Description 多机房并发请求：整体截止时间、部分结果与按机房合并
+ */
+class RegionFanOutTest {
+
+    private static LocalHttpServer server;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = new LocalHttpServer();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    private static RegionFanOut fanOut() {
+        return new RegionFanOut(RpcRequestContentModel.builder()
+                .service("kec")
+                .accessKeyId("ak")
+                .secretAccessKey("sk")
+                .retryPolicy(RetryPolicy.none())
+                .build());
+    }
+
+    /**
+     * 机房名即本地服务的路径：ok 立即返回，slow 1秒后返回，err 返回500
+     */
+    private static RpcRequest request(String url) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("Action", "DescribeInstances");
+        return RpcRequest.builder().url(url).requestMethod("GET").requestParam(params).build();
+    }
+
+    @Test
+    void deadlineReturnsPartialResults() {
+        long start = System.nanoTime();
+        FanOutResult result = fanOut().execute(request(server.url("/" + RegionFanOut.REGION_PLACEHOLDER)),
+                Arrays.asList("slow", "ok", "err"), 300L);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsed < 900, String.valueOf(elapsed));
+        assertEquals(Arrays.asList("slow", "ok", "err"), new ArrayList<>(result.getResults().keySet()));
+        assertTrue(result.get("ok").isSuccess());
+        assertTrue(result.get("slow").isTimedOut());
+        assertNull(result.get("slow").getException());
+        assertTrue(result.get("slow").getLatencyMillis() >= 300);
+        assertInstanceOf(HttpRequestException.class, result.get("err").getException());
+        assertEquals("InternalError", ((HttpRequestException) result.get("err").getException()).getErrorCode());
+
+        assertFalse(result.isComplete());
+        assertEquals(1, result.getSuccesses().size());
+        assertEquals(2, result.getFailures().size());
+        assertEquals(1, result.merge("RequestId").size());
+        assertEquals("ok", result.merge("RequestId").get(0).asText());
+    }
+
+    @Test
+    void withoutDeadlineAllRegionsAreAwaited() throws Exception {
+        FanOutResult result = fanOut().executeAsync(request(server.url("/" + RegionFanOut.REGION_PLACEHOLDER)),
+                Arrays.asList("ok", "slow"), 0L).get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isComplete());
+        assertTrue(result.get("slow").getLatencyMillis() >= 900);
+        assertEquals(2, result.merge("RequestId").size());
+    }
+
+    @Test
+    void missingEndpointFailsOnlyThatRegion() throws Exception {
+        EndpointRegistry.getDefault().register("kec", "fanout-registered", server.url(""));
+        FanOutResult result = fanOut().execute(request(null), Arrays.asList("fanout-registered", "fanout-unregistered"), 5000L);
+
+        assertTrue(result.get("fanout-registered").isSuccess());
+        assertInstanceOf(IllegalArgumentException.class, result.get("fanout-unregistered").getException().getCause());
+    }
+
+    @Test
+    void clientsAreCachedPerRegion() {
+        RegionFanOut fanOut = fanOut();
+        assertSame(fanOut.client("cn-beijing-6"), fanOut.client("cn-beijing-6"));
+        assertTrue(fanOut.execute(request(server.url("/ok")), Collections.emptyList(), 100L).getResults().isEmpty());
+    }
+}
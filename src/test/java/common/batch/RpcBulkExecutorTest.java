@@ -0,0 +1,138 @@
+package common.batch;
+
+import common.HttpClientConfig;
+import common.RpcRequest;
+import common.RpcRequestContentModel;
+import common.http.PooledHttpClient;
+import common.http.SdkHttpTransports;
+import common.policy.RetryPolicy;
+import common.utils.LocalHttpServer;
+import common.utils.RpcRequestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname RpcBulkExecutorTest
+ * @Description 批量执行：每个请求一个结果，并发数不超过连接池的 maxPerRoute
+ */
+class RpcBulkExecutorTest {
+
+    private static LocalHttpServer server;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = new LocalHttpServer();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    private static RpcRequestContentModel model() {
+        return RpcRequestContentModel.builder()
+                .service("kec")
+                .region("bulk")
+                .accessKeyId("ak")
+                .secretAccessKey("sk")
+                .retryPolicy(RetryPolicy.none())
+                .build();
+    }
+
+    private static List<RpcRequest> requests(String path, int count) {
+        List<RpcRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("Action", "DescribeInstances");
+            params.put("InstanceId.1", "i-" + i);
+            requests.add(RpcRequest.builder().url(server.url(path)).requestMethod("GET").requestParam(params).build());
+        }
+        return requests;
+    }
+
+    @Test
+    void everyRequestYieldsOneResult() {
+        try (RpcBulkExecutor executor = new RpcBulkExecutor(new RpcRequestClient(model(), SdkHttpTransports.apache()), 4)) {
+            List<BulkResult<String>> results = executor.executeAll(requests("/ok", 10));
+
+            TreeSet<Integer> indexes = new TreeSet<>();
+            for (BulkResult<String> result : results) {
+                assertTrue(result.isSuccess(), String.valueOf(result.getException()));
+                assertTrue(result.getResponse().contains("\"RequestId\":\"ok\""));
+                indexes.add(result.getIndex());
+            }
+            assertEquals(10, indexes.size());
+            assertEquals(0, indexes.first().intValue());
+            assertEquals(9, indexes.last().intValue());
+        }
+    }
+
+    @Test
+    void errorThrownByCallIsReported() {
+        try (RpcBulkExecutor executor = new RpcBulkExecutor(new RpcRequestClient(model(), SdkHttpTransports.apache()), 2)) {
+            Iterator<BulkResult<String>> results = executor.execute(requests("/ok", 3), request -> {
+                if ("i-1".equals(request.getRequestParam().get("InstanceId.1"))) {
+                    throw new AssertionError("boom");
+                }
+                return "done";
+            });
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                int failed = 0;
+                for (int i = 0; i < 3; i++) {
+                    BulkResult<String> result = results.next();
+                    if (!result.isSuccess()) {
+                        failed++;
+                        assertEquals(1, result.getIndex());
+                        assertInstanceOf(AssertionError.class, result.getException());
+                    }
+                }
+                assertEquals(1, failed);
+            });
+            assertFalse(results.hasNext());
+        }
+    }
+
+    @Test
+    void concurrencyIsCappedAtMaxPerRoute() {
+        PooledHttpClient pooledHttpClient = new PooledHttpClient(HttpClientConfig.builder().maxPerRoute(2).build());
+        try (RpcBulkExecutor executor = new RpcBulkExecutor(new RpcRequestClient(model(), pooledHttpClient), 16)) {
+            assertEquals(2, executor.getMaxConcurrency());
+
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            List<BulkResult<Integer>> results = new ArrayList<>();
+            executor.execute(requests("/ok", 8), request -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return inFlight.decrementAndGet();
+            }).forEachRemaining(results::add);
+
+            assertEquals(8, results.size());
+            assertTrue(maxInFlight.get() <= 2, String.valueOf(maxInFlight.get()));
+        } finally {
+            pooledHttpClient.close();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package common.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * @Classname PersistentResponseCacheTest
+ * @Description 持久化响应缓存：重新打开、压缩、文件权限与多进程共享
+ */
+class PersistentResponseCacheTest {
+
+    @TempDir
+    Path temp;
+
+    private static PersistentResponseCacheConfig.PersistentResponseCacheConfigBuilder config(Path directory) {
+        return PersistentResponseCacheConfig.builder()
+                .directory(directory.toString())
+                .maxFileBytes(64L * 1024)
+                .compactionIntervalMillis(3600000L);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long inOneHour() {
+        return System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+    }
+
+    @Test
+    void entriesSurviveReopen() throws Exception {
+        Path directory = temp.resolve("reopen");
+        try (PersistentResponseCache cache = PersistentResponseCache.open(config(directory).build())) {
+            cache.put("a", "scope", "DescribeInstances", bytes("first"), inOneHour());
+            cache.put("b", "scope", "DescribeInstances", bytes("second"), inOneHour());
+            cache.invalidate("b");
+        }
+        try (PersistentResponseCache cache = PersistentResponseCache.open(config(directory).build())) {
+            assertArrayEquals(bytes("first"), cache.get("a").getBody());
+            assertNull(cache.get("b"));
+            assertEquals(1, cache.size());
+        }
+    }
+
+    @Test
+    void fullFileIsCompactedKeepingLiveEntries() throws Exception {
+        Path directory = temp.resolve("compact");
+        byte[] body = new byte[2048];
+        try (PersistentResponseCache cache = PersistentResponseCache.open(config(directory).maxFileBytes(16L * 1024).build())) {
+            cache.put("live", "scope", "DescribeInstances", bytes("live"), inOneHour());
+            for (int i = 0; i < 20; i++) {
+                cache.put("overwritten", "scope", "DescribeInstances", body, inOneHour());
+            }
+            cache.put("overwritten", "scope", "DescribeInstances", bytes("latest"), inOneHour());
+        }
+        assertFalse(Files.exists(directory.resolve("responses.0.data")));
+        try (PersistentResponseCache cache = PersistentResponseCache.open(config(directory).build())) {
+            assertArrayEquals(bytes("live"), cache.get("live").getBody());
+            assertArrayEquals(bytes("latest"), cache.get("overwritten").getBody());
+        }
+    }
+
+    @Test
+    void directoryAndFilesAreOwnerOnly() throws Exception {
+        assumeTrue(temp.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path directory = temp.resolve("private").resolve("cache");
+        try (PersistentResponseCache cache = PersistentResponseCache.open(config(directory).build())) {
+            cache.put("a", "scope", "DescribeInstances", bytes("body"), inOneHour());
+        }
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)));
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory.resolve("responses.meta"))));
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory.resolve("responses.0.data"))));
+    }
+
+    @Test
+    void refusesDirectoryOwnedByAnotherUser() throws Exception {
+        assumeTrue(temp.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        assumeTrue("root".equals(System.getProperty("user.name")));
+        Path directory = Files.createDirectory(temp.resolve("foreign"));
+        UserPrincipal nobody = temp.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName("nobody");
+        Files.setOwner(directory, nobody);
+
+        assertThrows(IOException.class, () -> PersistentResponseCache.open(config(directory).build()));
+        assertFalse(Files.exists(directory.resolve("responses.meta")));
+    }
+
+    @Test
+    void readDoesNotCreateMissingGeneration() throws Exception {
+        Path directory = temp.resolve("generation");
+        try (PersistentResponseCache cache = PersistentResponseCache.open(config(directory).build())) {
+            cache.put("a", "scope", "DescribeInstances", bytes("body"), inOneHour());
+            //模拟其他进程压缩后切换到新一代文件，读取时新文件已被删除
+            ByteBuffer generation = ByteBuffer.allocate(8).putLong(0, 5);
+            try (FileChannel meta = FileChannel.open(directory.resolve("responses.meta"), StandardOpenOption.WRITE)) {
+                meta.write(generation, 0);
+            }
+            assertNull(cache.get("a"));
+            assertFalse(Files.exists(directory.resolve("responses.5.data")));
+
+            cache.put("b", "scope", "DescribeInstances", bytes("next"), inOneHour());
+            assertTrue(Files.exists(directory.resolve("responses.5.data")));
+            assertArrayEquals(bytes("next"), cache.get("b").getBody());
+        }
+    }
+
+    @Test
+    void readsEntriesAppendedByAnotherProcess() throws Exception {
+        Path directory = temp.resolve("shared");
+        try (PersistentResponseCache cache = PersistentResponseCache.open(config(directory).build())) {
+            cache.put("local", "scope", "DescribeInstances", bytes("local"), inOneHour());
+            assertNull(cache.get("remote"));
+
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            Process process = new ProcessBuilder(java, "-cp", classPath(Writer.class, PersistentResponseCache.class, LoggerFactory.class),
+                    Writer.class.getName(), directory.toString()).inheritIO().start();
+            assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+            assertEquals(0, process.exitValue());
+
+            assertArrayEquals(bytes("remote"), cache.get("remote").getBody());
+            assertArrayEquals(bytes("local"), cache.get("local").getBody());
+        }
+    }
+
+    /**
+     * 子进程的 classpath，测试运行器的 java.class.path 不一定包含测试类
+     */
+    private static String classPath(Class<?>... classes) throws URISyntaxException {
+        StringBuilder builder = new StringBuilder();
+        for (Class<?> type : classes) {
+            if (builder.length() > 0) {
+                builder.append(File.pathSeparator);
+            }
+            builder.append(Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 在另一个进程中向同一组文件追加记录
+     */
+    public static class Writer {
+
+        public static void main(String[] args) throws IOException {
+            try (PersistentResponseCache cache = PersistentResponseCache.open(PersistentResponseCacheConfig.builder()
+                    .directory(args[0])
+                    .maxFileBytes(64L * 1024)
+                    .compactionIntervalMillis(3600000L)
+                    .build())) {
+                cache.put("remote", "scope", "DescribeInstances", bytes("remote"), inOneHour());
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package common.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @Classname ResponseCacheTest
+ * @Description 响应缓存：W-TinyLFU 准入、提前刷新与失效，以及两级缓存的失效
+ */
+class ResponseCacheTest {
+
+    private static final String SCOPE = "kec/cn-beijing-6/ak";
+
+    private static final String DESCRIBE = "DescribeInstances";
+
+    @TempDir
+    Path temp;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] get(ResponseCache cache, String key) {
+        return cache.get(key, SCOPE, DESCRIBE, null);
+    }
+
+    @Test
+    void rarelyUsedEntryIsNotAdmittedOverHotOnes() {
+        //窗口容纳不下单个条目，每次写入都直接与主区比较；主区可容纳3个条目
+        ResponseCache cache = new ResponseCache(ResponseCacheConfig.builder().maxBytes(100000L).build());
+        byte[] body = new byte[30000];
+        for (String key : new String[]{"a", "b", "c"}) {
+            cache.put(key, SCOPE, DESCRIBE, body);
+        }
+        for (int i = 0; i < 2; i++) {
+            for (String key : new String[]{"a", "b", "c"}) {
+                assertNotNull(get(cache, key));
+            }
+        }
+
+        cache.put("once", SCOPE, DESCRIBE, body);
+        assertNull(get(cache, "once"));
+
+        for (int i = 0; i < 5; i++) {
+            assertNull(get(cache, "hot"));
+        }
+        cache.put("hot", SCOPE, DESCRIBE, body);
+        assertNotNull(get(cache, "hot"));
+        //主区最久未访问的条目被淘汰
+        assertNull(get(cache, "a"));
+        assertNotNull(get(cache, "b"));
+        assertEquals(3, cache.getStats().getEntryCount());
+    }
+
+    @Test
+    void hotEntryIsRefreshedAheadOnce() throws Exception {
+        ResponseCache cache = new ResponseCache(ResponseCacheConfig.builder()
+                .ttlMillis(60000L)
+                .refreshAheadRatio(0.0001)
+                .refreshAheadMinHits(2)
+                .build());
+        cache.put("k", SCOPE, DESCRIBE, bytes("old"));
+        AtomicInteger refreshes = new AtomicInteger();
+        CompletableFuture<Object> reload = new CompletableFuture<>();
+        long generation = cache.generation(SCOPE);
+
+        //第一次访问未达到热点次数
+        assertArrayEquals(bytes("old"), cache.get("k", SCOPE, DESCRIBE, () -> {
+            refreshes.incrementAndGet();
+            return reload;
+        }));
+        assertEquals(0, refreshes.get());
+        Thread.sleep(20);
+        for (int i = 0; i < 3; i++) {
+            //刷新期间继续返回旧值，且只刷新一次
+            assertArrayEquals(bytes("old"), cache.get("k", SCOPE, DESCRIBE, () -> {
+                refreshes.incrementAndGet();
+                return reload;
+            }));
+        }
+        assertEquals(1, refreshes.get());
+
+        cache.put("k", SCOPE, DESCRIBE, bytes("new"), generation);
+        reload.complete(null);
+        assertArrayEquals(bytes("new"), get(cache, "k"));
+        assertEquals(1, cache.getStats().getRefreshCount());
+    }
+
+    @Test
+    void loadStartedBeforeMutationIsNotCached() {
+        ResponseCache cache = new ResponseCache();
+        long generation = cache.generation(SCOPE);
+        cache.onMutation(SCOPE, "RunInstances");
+
+        cache.put("k", SCOPE, DESCRIBE, bytes("stale"), generation);
+        assertNull(get(cache, "k"));
+
+        cache.put("k", SCOPE, DESCRIBE, bytes("fresh"), cache.generation(SCOPE));
+        assertArrayEquals(bytes("fresh"), get(cache, "k"));
+    }
+
+    @Test
+    void invalidationOnlyAffectsItsScope() {
+        ResponseCache cache = new ResponseCache();
+        long otherGeneration = cache.generation("other");
+        cache.put("k", SCOPE, DESCRIBE, bytes("body"));
+        cache.invalidate(SCOPE, null);
+
+        cache.put("other", "other", DESCRIBE, bytes("other"), otherGeneration);
+        assertNull(get(cache, "k"));
+        assertArrayEquals(bytes("other"), cache.get("other", "other", DESCRIBE, null));
+    }
+
+    @Test
+    void mutationFollowsInvalidationRules() {
+        Map<String, Set<String>> rules = new HashMap<>();
+        rules.put("ModifyInstanceAttribute", Collections.singleton(DESCRIBE));
+        ResponseCache cache = new ResponseCache(ResponseCacheConfig.builder().invalidationRules(rules).build());
+        cache.put("instances", SCOPE, DESCRIBE, bytes("instances"));
+        cache.put("images", SCOPE, "DescribeImages", bytes("images"));
+        cache.put("elsewhere", "kec/cn-shanghai-2/ak", DESCRIBE, bytes("elsewhere"));
+
+        cache.onMutation(SCOPE, "ModifyInstanceAttribute");
+        assertNull(get(cache, "instances"));
+        assertArrayEquals(bytes("images"), cache.get("images", SCOPE, "DescribeImages", null));
+
+        //没有匹配规则的写操作失效整个范围
+        cache.onMutation(SCOPE, "RunInstances");
+        assertNull(cache.get("images", SCOPE, "DescribeImages", null));
+        assertArrayEquals(bytes("elsewhere"), cache.get("elsewhere", "kec/cn-shanghai-2/ak", DESCRIBE, null));
+    }
+
+    @Test
+    void invalidationClearsBothLevelsAndStalePutSkipsSecondLevel() throws Exception {
+        try (PersistentResponseCache secondLevel = PersistentResponseCache.open(PersistentResponseCacheConfig.builder()
+                .directory(temp.toString())
+                .compactionIntervalMillis(3600000L)
+                .build())) {
+            ResponseCache cache = new ResponseCache(ResponseCacheConfig.defaultConfig(), secondLevel);
+            cache.put("k", SCOPE, DESCRIBE, bytes("old"));
+            long generation = cache.generation(SCOPE);
+            cache.invalidate(SCOPE, null);
+            assertNull(secondLevel.get("k"));
+            assertNull(get(cache, "k"));
+
+            cache.put("k", SCOPE, DESCRIBE, bytes("stale"), generation);
+            assertNull(secondLevel.get("k"));
+
+            //一级缓存未命中时从二级缓存读取并放回一级缓存
+            ResponseCache restarted = new ResponseCache(ResponseCacheConfig.defaultConfig(), secondLevel);
+            cache.put("k", SCOPE, DESCRIBE, bytes("fresh"), cache.generation(SCOPE));
+            assertArrayEquals(bytes("fresh"), get(restarted, "k"));
+            assertEquals(1, restarted.getStats().getSecondLevelHitCount());
+            assertEquals(1, restarted.getStats().getEntryCount());
+        }
+    }
+}
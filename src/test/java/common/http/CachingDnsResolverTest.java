@@ -0,0 +1,103 @@
+package common.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @Classname CachingDnsResolverTest
+ * @Description DNS 缓存：TTL 内复用、解析失败时使用旧结果、提前刷新与移出长时间未使用的域名
+ */
+class CachingDnsResolverTest {
+
+    private static final long TTL = 60000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    private final CachingDnsResolver resolver = new CachingDnsResolver(TTL, clock::get) {
+        @Override
+        InetAddress[] lookupAll(String host) throws UnknownHostException {
+            lookups.incrementAndGet();
+            if (failing.get() || host.startsWith("unknown")) {
+                throw new UnknownHostException(host);
+            }
+            return new InetAddress[]{InetAddress.getByAddress(host, new byte[]{10, 0, 0, (byte) lookups.get()})};
+        }
+    };
+
+    private byte[] address(String host) throws UnknownHostException {
+        return resolver.resolve(host)[0].getAddress();
+    }
+
+    @Test
+    void resultIsCachedForTtl() throws Exception {
+        assertArrayEquals(new byte[]{10, 0, 0, 1}, address("kec.api.ksyun.com"));
+        clock.set(TTL - 1);
+        assertArrayEquals(new byte[]{10, 0, 0, 1}, address("kec.api.ksyun.com"));
+        assertEquals(1, lookups.get());
+
+        //返回的数组是副本
+        resolver.resolve("kec.api.ksyun.com")[0] = null;
+        assertArrayEquals(new byte[]{10, 0, 0, 1}, address("kec.api.ksyun.com"));
+
+        clock.set(TTL);
+        assertArrayEquals(new byte[]{10, 0, 0, 2}, address("kec.api.ksyun.com"));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void staleResultIsUsedWhenLookupFails() throws Exception {
+        address("kec.api.ksyun.com");
+        clock.set(TTL);
+        failing.set(true);
+        assertArrayEquals(new byte[]{10, 0, 0, 1}, address("kec.api.ksyun.com"));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("unknown.api.ksyun.com"));
+
+        //预解析失败不抛出异常
+        resolver.prefetch("unknown.api.ksyun.com");
+        assertEquals(4, lookups.get());
+    }
+
+    @Test
+    void usedHostsAreRefreshedAheadAndIdleHostsDropped() throws Exception {
+        address("kec.api.ksyun.com");
+        address("idle.api.ksyun.com");
+
+        //剩余时间超过 TTL 的一半时不刷新
+        clock.set(TTL / 2 - 1);
+        resolver.refresh();
+        assertEquals(2, lookups.get());
+
+        clock.set(TTL - 1000);
+        resolver.refresh();
+        assertEquals(4, lookups.get());
+        //刷新后的结果在原 TTL 到期后仍可直接使用
+        clock.set(TTL + 1000);
+        address("kec.api.ksyun.com");
+        assertEquals(4, lookups.get());
+
+        clock.set(TTL * 10 + 1);
+        resolver.refresh();
+        //kec 最近访问过，继续刷新；idle 被移出，再次访问时重新解析
+        assertEquals(5, lookups.get());
+        address("idle.api.ksyun.com");
+        assertEquals(6, lookups.get());
+    }
+
+    @Test
+    void ttlMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new CachingDnsResolver(0));
+    }
+}
@@ -0,0 +1,100 @@
+package common.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * @Classname CancellationTest
+ * @Description 取消信号：回调执行、等待与虚拟线程
+ */
+class CancellationTest {
+
+    @Test
+    void listenersRunOnceAndAfterCancel() {
+        Cancellation cancellation = new Cancellation();
+        AtomicInteger runs = new AtomicInteger();
+        cancellation.onCancel(runs::incrementAndGet);
+        Runnable deregister = cancellation.onCancel(runs::incrementAndGet);
+        deregister.run();
+
+        assertTrue(cancellation.cancel());
+        assertFalse(cancellation.cancel());
+        assertEquals(1, runs.get());
+
+        cancellation.onCancel(runs::incrementAndGet);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void awaitReturnsEarlyOnCancel() throws Exception {
+        Cancellation cancellation = new Cancellation();
+        assertFalse(cancellation.await(20));
+
+        long start = System.nanoTime();
+        CompletableFuture.runAsync(() -> {
+            sleep(50);
+            cancellation.cancel();
+        });
+        assertTrue(cancellation.await(5000));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertTrue(cancellation.await(5000));
+    }
+
+    /**
+     * 等待中的虚拟线程不占住载体线程：等待数远超载体线程数时其他虚拟线程仍能运行
+     */
+    @Test
+    void awaitDoesNotPinVirtualThreads() throws Exception {
+        Method ofVirtual;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            assumeTrue(false, "virtual threads require JDK 21");
+            return;
+        }
+        Object builder = ofVirtual.invoke(null);
+        Method start = Class.forName("java.lang.Thread$Builder").getMethod("start", Runnable.class);
+
+        Cancellation cancellation = new Cancellation();
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            waiters.add((Thread) start.invoke(builder, (Runnable) () -> {
+                try {
+                    cancellation.await(30000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        try {
+            CompletableFuture<Void> probe = new CompletableFuture<>();
+            start.invoke(builder, (Runnable) () -> probe.complete(null));
+            probe.get(5, TimeUnit.SECONDS);
+        } finally {
+            cancellation.cancel();
+        }
+        for (Thread waiter : waiters) {
+            waiter.join(5000);
+            assertFalse(waiter.isAlive());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
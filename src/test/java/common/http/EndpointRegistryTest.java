@@ -0,0 +1,113 @@
+package common.http;
+
+import common.HttpClientConfig;
+import common.RpcRequestContentModel;
+import common.policy.RetryPolicy;
+import common.utils.LocalHttpServer;
+import common.utils.RpcRequestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @Classname EndpointRegistryTest
+ * @Description endpoint 登记与解析缓存，以及按登记的 endpoint 预热连接
+ */
+class EndpointRegistryTest {
+
+    private static LocalHttpServer server;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = new LocalHttpServer();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    private static RpcRequestContentModel.RpcRequestContentModelBuilder model(String region) {
+        return RpcRequestContentModel.builder()
+                .service("kec")
+                .region(region)
+                .accessKeyId("ak")
+                .secretAccessKey("sk")
+                .retryPolicy(RetryPolicy.none());
+    }
+
+    private static int openConnections(PooledHttpClient pooledHttpClient) {
+        return pooledHttpClient.getPoolStats().getAvailable() + pooledHttpClient.getPoolStats().getLeased();
+    }
+
+    @Test
+    void endpointIsRegisteredPerServiceAndRegion() throws Exception {
+        EndpointRegistry registry = new EndpointRegistry();
+        assertEquals(URI.create("http://kec.cn-beijing-6.api.ksyun.com"),
+                registry.register("kec", "cn-beijing-6", "kec.cn-beijing-6.api.ksyun.com"));
+        registry.register("kec", "cn-shanghai-2", "https://kec.cn-shanghai-2.api.ksyun.com");
+
+        assertEquals("http", registry.resolve("kec", "cn-beijing-6").getScheme());
+        assertEquals("https", registry.resolve("kec", "cn-shanghai-2").getScheme());
+        assertNull(registry.resolve("ebs", "cn-beijing-6"));
+        assertEquals(2, registry.getEndpoints().size());
+        assertThrows(URISyntaxException.class, () -> registry.register("kec", "bad", "http:///path"));
+    }
+
+    @Test
+    void parsedUrlsAreCached() throws Exception {
+        EndpointRegistry registry = new EndpointRegistry();
+        assertSame(registry.parse("http://kec.api.ksyun.com/?Action=DescribeInstances"),
+                registry.parse("http://kec.api.ksyun.com/?Action=DescribeInstances"));
+        assertThrows(URISyntaxException.class, () -> registry.parse("http://kec api"));
+    }
+
+    @Test
+    void prewarmedConnectionsAreReused() {
+        PooledHttpClient pooledHttpClient = new PooledHttpClient(HttpClientConfig.builder().maxPerRoute(3).build());
+        try {
+            URI endpoint = URI.create("http://" + server.url(""));
+            //不超过 maxPerRoute
+            assertEquals(3, pooledHttpClient.prewarm(endpoint, 5));
+            assertEquals(3, pooledHttpClient.getPoolStats().getAvailable());
+            assertEquals(0, pooledHttpClient.prewarm(endpoint, 3));
+
+            Map<String, Object> params = new HashMap<>();
+            params.put("Action", "DescribeInstances");
+            new RpcRequestClient(model("prewarm-reuse").build(), pooledHttpClient).beginRpcRequest(server.url("/ok"), "GET", params);
+            assertEquals(3, openConnections(pooledHttpClient));
+        } finally {
+            pooledHttpClient.close();
+        }
+    }
+
+    @Test
+    void clientPrewarmsRegisteredEndpoint() throws Exception {
+        EndpointRegistry.getDefault().register("kec", "prewarm-registered", server.url(""));
+        PooledHttpClient pooledHttpClient = new PooledHttpClient(HttpClientConfig.builder().maxPerRoute(4).build());
+        try {
+            RpcRequestClient client = new RpcRequestClient(model("prewarm-registered").prewarmConnections(2).build(), pooledHttpClient);
+            for (int i = 0; i < 100 && openConnections(pooledHttpClient) < 2; i++) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            assertEquals(2, openConnections(pooledHttpClient));
+            assertEquals(1, client.prewarm(3));
+
+            RpcRequestClient unregistered = new RpcRequestClient(model("prewarm-unregistered").build(), pooledHttpClient);
+            assertThrows(IllegalArgumentException.class, () -> unregistered.prewarm(1));
+        } finally {
+            pooledHttpClient.close();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package common.http;
+
+import common.LazyJsonResponse;
+import common.RpcRequestContentModel;
+import common.policy.RetryPolicy;
+import common.utils.LocalHttpServer;
+import common.utils.RpcRequestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * @Classname SdkHttpTransportsTest
+ * @Description 传输层：默认使用 Apache 实现，JDK 11+ 可切换为 java.net.http 实现，JDK 8 下不可用
+ */
+class SdkHttpTransportsTest {
+
+    private static LocalHttpServer server;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = new LocalHttpServer();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    private static RpcRequestContentModel.RpcRequestContentModelBuilder model(String region) {
+        return RpcRequestContentModel.builder()
+                .service("kec")
+                .region(region)
+                .accessKeyId("ak")
+                .secretAccessKey("sk")
+                .retryPolicy(RetryPolicy.none());
+    }
+
+    private static Map<String, Object> params(String action) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("Action", action);
+        params.put("InstanceId.1", "i-1");
+        return params;
+    }
+
+    private static void assertSignedRoundTrip(RpcRequestClient client) throws Exception {
+        LazyJsonResponse get = client.beginRpcRequestLazy(server.url("/echo"), "GET", params("DescribeInstances"), new HashMap<>());
+        assertEquals("GET", get.getString("Method"));
+        assertEquals("0", get.getString("Length"));
+        assertEquals("true", get.getString("Signed"));
+
+        LazyJsonResponse post = client.beginRpcRequestLazyAsync(server.url("/echo"), "POST", params("RunInstances"), new HashMap<>())
+                .get(5, TimeUnit.SECONDS);
+        assertEquals("POST", post.getString("Method"));
+        assertTrue(Integer.parseInt(post.getString("Length")) > 0, post.getResult());
+        assertEquals("true", post.getString("Signed"));
+
+        assertEquals("gzip", client.beginRpcRequestLazy(server.url("/gzip"), "GET", params("DescribeInstances"), new HashMap<>())
+                .getString("RequestId"));
+        LazyJsonResponse error = client.beginRpcRequestLazy(server.url("/err"), "GET", params("DescribeInstances"), new HashMap<>());
+        assertEquals("InternalError", error.getErrorCode());
+    }
+
+    @Test
+    void apacheIsTheDefaultTransport() throws Exception {
+        assertSame(SdkHttpTransports.apache(), SdkHttpTransports.apache());
+        RpcRequestContentModel model = model("transport-default").build();
+        assertNull(model.getTransport());
+
+        RpcRequestClient client = new RpcRequestClient(model);
+        //Apache 实现受连接池 maxPerRoute 限制
+        assertTrue(client.maxConcurrentRequests() < Integer.MAX_VALUE);
+        assertSignedRoundTrip(client);
+    }
+
+    @Test
+    void jdkTransportIsUnavailableBeforeJdk11() {
+        assumeFalse(SdkHttpTransports.isJdkHttp2Available());
+        assertThrows(UnsupportedOperationException.class, SdkHttpTransports::jdkHttp2);
+    }
+
+    @Test
+    void jdkTransportSendsTheSignedRequest() throws Exception {
+        assumeTrue(SdkHttpTransports.isJdkHttp2Available());
+        SdkHttpTransport transport = SdkHttpTransports.jdkHttp2();
+        assertSame(transport, SdkHttpTransports.jdkHttp2());
+        assertEquals("common.http.JdkHttpTransport", transport.getClass().getName());
+
+        RpcRequestClient client = new RpcRequestClient(model("transport-jdk").transport(transport).build());
+        assertEquals(Integer.MAX_VALUE, client.maxConcurrentRequests());
+        assertSignedRoundTrip(client);
+    }
+}
@@ -0,0 +1,190 @@
+package common.http;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import common.RpcRequestContentModel;
+import common.policy.RetryPolicy;
+import common.utils.LocalHttpServer;
+import common.utils.RpcRequestClient;
+import lombok.Data;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname SpillableResponseBodyTest
+ * @Description 大响应体：内存上限、转存临时文件、逐个读取数组元素与关闭时删除文件
+ */
+class SpillableResponseBodyTest {
+
+    private static LocalHttpServer server;
+
+    @TempDir
+    Path temp;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = new LocalHttpServer();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    /**
+     * 超过一个读取缓冲区的响应体，Data.Items 中有 count 个元素
+     */
+    private static byte[] body(int count) {
+        StringBuilder body = new StringBuilder("{\"RequestId\":\"r\",\"Skipped\":[{\"Items\":[0]}],\"Data\":{\"Total\":")
+                .append(count).append(",\"Items\":[");
+        for (int i = 0; i < count; i++) {
+            body.append(i == 0 ? "" : ",").append("{\"Id\":").append(i).append(",\"Name\":\"item-").append(i).append("\"}");
+        }
+        return body.append("]}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static SpillableResponseBody read(byte[] body, int maxInMemoryBytes, Path directory) throws IOException {
+        return SpillableResponseBody.read(new ByteArrayInputStream(body), maxInMemoryBytes, directory.toString());
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[1000];
+            for (int read; (read = stream.read(chunk)) != -1; ) {
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private long files() throws IOException {
+        try (Stream<Path> files = Files.list(temp)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void bodyWithinLimitStaysInMemory() throws Exception {
+        byte[] body = body(500);
+        try (SpillableResponseBody response = read(body, body.length, temp)) {
+            assertFalse(response.isSpilled());
+            assertEquals(body.length, response.size());
+            assertArrayEquals(body, readAll(response.openStream()));
+        }
+        assertEquals(0, files());
+    }
+
+    @Test
+    void bodyOverLimitIsSpilledAndDeletedOnClose() throws Exception {
+        byte[] body = body(500);
+        SpillableResponseBody response = read(body, body.length - 1, temp);
+        assertTrue(response.isSpilled());
+        assertEquals(body.length, response.size());
+        assertEquals(1, files());
+        //可多次打开
+        assertArrayEquals(body, readAll(response.openStream()));
+        assertArrayEquals(body, readAll(response.openStream()));
+
+        response.close();
+        assertEquals(0, files());
+        response.close();
+    }
+
+    @Test
+    void elementsAreReadOneByOne() throws Exception {
+        byte[] body = body(500);
+        for (int limit : new int[]{body.length, 100}) {
+            try (SpillableResponseBody response = read(body, limit, temp)) {
+                Iterator<JsonNode> items = response.elements("Data.Items", JsonNode.class);
+                int count = 0;
+                while (items.hasNext()) {
+                    JsonNode item = items.next();
+                    assertEquals(count, item.get("Id").asInt());
+                    count++;
+                }
+                assertEquals(500, count);
+                assertFalse(items.hasNext());
+                assertThrows(NoSuchElementException.class, items::next);
+
+                Iterator<Item> typed = response.elements("Data.Items", Item.class);
+                assertEquals("item-0", typed.next().getName());
+            }
+        }
+        assertEquals(0, files());
+    }
+
+    @Test
+    void missingOrNonArrayPathYieldsNoElements() throws Exception {
+        try (SpillableResponseBody response = read(body(3), 1024, temp)) {
+            assertFalse(response.elements("Missing", JsonNode.class).hasNext());
+            assertFalse(response.elements("Data.Missing", JsonNode.class).hasNext());
+            assertFalse(response.elements("Data.Total", JsonNode.class).hasNext());
+            assertFalse(response.elements("RequestId.Items", JsonNode.class).hasNext());
+        }
+        try (SpillableResponseBody response = read("[1,2]".getBytes(StandardCharsets.UTF_8), 1024, temp)) {
+            assertFalse(response.elements("Items", JsonNode.class).hasNext());
+        }
+    }
+
+    @Test
+    void streamedResponseSpillsToConfiguredDirectory() throws Exception {
+        RpcRequestClient client = new RpcRequestClient(RpcRequestContentModel.builder()
+                .service("kec")
+                .region("spill")
+                .accessKeyId("ak")
+                .secretAccessKey("sk")
+                .retryPolicy(RetryPolicy.none())
+                .maxInMemoryResponseBytes(16)
+                .spillDirectory(temp.toString())
+                .build());
+        Map<String, Object> params = new HashMap<>();
+        params.put("Action", "DescribeInstances");
+        params.put("MaxResults", "3");
+        for (int i = 1; i <= 3; i++) {
+            params.put("InstanceId." + i, "i-" + i);
+        }
+
+        try (SpillableResponseBody response = client.beginRpcRequestStream(server.url("/batch"), "GET", params, new HashMap<>())) {
+            assertTrue(response.isSpilled());
+            assertEquals(1, files());
+            List<String> ids = new ArrayList<>();
+            response.elements("InstancesSet", JsonNode.class).forEachRemaining(item -> ids.add(item.get("InstanceId").asText()));
+            assertEquals(3, ids.size());
+            assertEquals("i-3", ids.get(2));
+        }
+        assertEquals(0, files());
+    }
+
+    @Data
+    private static class Item {
+        @JsonProperty("Id")
+        private int id;
+
+        @JsonProperty("Name")
+        private String name;
+    }
+}
@@ -0,0 +1,141 @@
+package common.policy;
+
+import common.exception.ConcurrencyLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname AdaptiveConcurrencyLimiterTest
+ * @Description 自适应并发限制：上限增减与排队许可交接
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static AdaptiveConcurrencyLimiter limiter(int initial, long maxWaitMillis) {
+        return new AdaptiveConcurrencyLimiter("test", ConcurrencyLimiterConfig.builder()
+                .initialLimit(initial)
+                .minLimit(1)
+                .maxLimit(100)
+                .maxWaitMillis(maxWaitMillis)
+                .build());
+    }
+
+    @Test
+    void growsWhenLatencyStaysAtMinimum() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 0);
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(limiter.acquire());
+        }
+        Thread.sleep(20);
+        for (AdaptiveConcurrencyLimiter.Permit permit : permits) {
+            permit.onSuccess();
+        }
+        assertTrue(limiter.getLimit() > 4, "limit " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 0);
+        AdaptiveConcurrencyLimiter.Permit fast = limiter.acquire();
+        Thread.sleep(10);
+        fast.onSuccess();
+        assertEquals(10, limiter.getLimit());
+
+        AdaptiveConcurrencyLimiter.Permit slow = limiter.acquire();
+        Thread.sleep(100);
+        slow.onSuccess();
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void dropBacksOffOncePerBatch() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 0);
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.acquire();
+        first.onDropped();
+        second.onDropped();
+        assertEquals(18, limiter.getLimit());
+    }
+
+    @Test
+    void rejectsWithoutQueueWhenMaxWaitIsZero() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 0);
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+        assertThrows(ConcurrencyLimitExceededException.class, limiter::acquire);
+        held.onIgnored();
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    void tryAcquireDoesNotQueueOrJumpTheQueue() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 5000);
+        AdaptiveConcurrencyLimiter.Permit held = limiter.tryAcquire();
+        assertEquals(1, limiter.getInFlight());
+        assertNull(limiter.tryAcquire());
+        assertEquals(0, limiter.getRejectedCount());
+
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> queued = limiter.acquireAsync();
+        held.onIgnored();
+        AdaptiveConcurrencyLimiter.Permit granted = queued.get(1, TimeUnit.SECONDS);
+        assertNull(limiter.tryAcquire());
+        granted.onIgnored();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void cancelledWaiterHandsPermitToNext() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 5000);
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> cancelled = limiter.acquireAsync();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> next = limiter.acquireAsync();
+        assertEquals(2, limiter.getQueueDepth());
+
+        cancelled.cancel(true);
+        assertEquals(1, limiter.getQueueDepth());
+        held.onIgnored();
+
+        AdaptiveConcurrencyLimiter.Permit granted = next.get(1, TimeUnit.SECONDS);
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(0, limiter.getQueueDepth());
+        granted.onIgnored();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void asyncWaiterTimesOut() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 50);
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiter = limiter.acquireAsync();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(ConcurrencyLimitExceededException.class, e.getCause());
+        assertEquals(0, limiter.getQueueDepth());
+        held.onIgnored();
+        assertEquals(0, limiter.getInFlight());
+        assertFalse(waiter.isCancelled());
+    }
+
+    @Test
+    void asyncWaitIsCappedByCaller() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 5000);
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+        long start = System.nanoTime();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiter = limiter.acquireAsync(50);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(ConcurrencyLimitExceededException.class, e.getCause());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        held.onIgnored();
+    }
+}
@@ -0,0 +1,77 @@
+package common.policy;
+
+import common.exception.RateLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname AdaptiveRateLimiterTest
+ * @Description 自适应令牌桶：预约、取消预约与非阻塞获取，使用手动推进的时钟
+ */
+class AdaptiveRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdaptiveRateLimiter limiter(double rate, long maxWaitMillis) {
+        RateLimiterConfig config = RateLimiterConfig.builder()
+                .permitsPerSecond(rate)
+                .maxBurstPermits(1)
+                .maxWaitMillis(maxWaitMillis)
+                .build();
+        return new AdaptiveRateLimiter("test", config, rate, clock::get);
+    }
+
+    @Test
+    void reservationsQueueBehindEachOther() {
+        AdaptiveRateLimiter limiter = limiter(1, 5000);
+        assertEquals(0, limiter.reserve());
+        assertEquals(1000, limiter.reserve());
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+        assertEquals(1600, limiter.reserve());
+    }
+
+    @Test
+    void tokensRefillOverTime() {
+        AdaptiveRateLimiter limiter = limiter(1, 5000);
+        assertTrue(limiter.tryAcquire());
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertFalse(limiter.tryAcquire());
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void rejectsWhenWaitExceedsMaxWait() {
+        AdaptiveRateLimiter limiter = limiter(1, 500);
+        limiter.reserve();
+        assertThrows(RateLimitExceededException.class, limiter::reserve);
+        //被拒绝的预约不占用令牌
+        limiter.cancel();
+        assertEquals(0, limiter.reserve());
+    }
+
+    @Test
+    void cancelReturnsTheReservedToken() {
+        AdaptiveRateLimiter limiter = limiter(1, 5000);
+        limiter.reserve();
+        limiter.reserve();
+        limiter.cancel();
+        limiter.cancel();
+        assertEquals(0, limiter.reserve());
+    }
+
+    @Test
+    void tryAcquireDoesNotReserveAhead() {
+        AdaptiveRateLimiter limiter = limiter(1, 5000);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1000, limiter.reserve());
+    }
+}
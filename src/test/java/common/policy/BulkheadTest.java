@@ -0,0 +1,144 @@
+package common.policy;
+
+import common.constant.RequestPriorityEnum;
+import common.exception.BulkheadFullException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname BulkheadTest
+ * @Description 舱壁：优先级挤出、排队老化、加权轮询与取消
+ */
+class BulkheadTest {
+
+    /**
+     * 排队计时的时钟，由测试手动推进
+     */
+    private final AtomicLong clock = new AtomicLong();
+
+    private Bulkhead bulkhead(int queueDepth, long agingMillis, BulkheadConfig.SchedulingPolicy policy) {
+        return new Bulkhead("test", BulkheadConfig.builder()
+                .maxConcurrentCalls(1)
+                .maxQueueDepth(queueDepth)
+                .maxWaitMillis(5000L)
+                .agingMillis(agingMillis)
+                .schedulingPolicy(policy)
+                .build(), clock::get);
+    }
+
+    @Test
+    void interactiveEvictsNewestBatchWaiter() throws Exception {
+        Bulkhead bulkhead = bulkhead(2, 0, BulkheadConfig.SchedulingPolicy.STRICT);
+        bulkhead.acquire();
+        CompletableFuture<Void> olderBatch = bulkhead.acquireAsync(RequestPriorityEnum.BATCH);
+        CompletableFuture<Void> newerBatch = bulkhead.acquireAsync(RequestPriorityEnum.BATCH);
+        CompletableFuture<Void> interactive = bulkhead.acquireAsync(RequestPriorityEnum.INTERACTIVE);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> newerBatch.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(BulkheadFullException.class, e.getCause());
+        assertFalse(olderBatch.isDone());
+        assertEquals(1, bulkhead.getLaneStats(RequestPriorityEnum.BATCH).getRejectedCount());
+
+        bulkhead.release();
+        interactive.get(1, TimeUnit.SECONDS);
+        assertFalse(olderBatch.isDone());
+        bulkhead.release();
+        olderBatch.get(1, TimeUnit.SECONDS);
+        bulkhead.release();
+        assertEquals(0, bulkhead.getInFlight());
+    }
+
+    @Test
+    void fullQueueRejectsSameOrLowerPriority() {
+        Bulkhead bulkhead = bulkhead(1, 0, BulkheadConfig.SchedulingPolicy.STRICT);
+        bulkhead.acquire();
+        CompletableFuture<Void> queued = bulkhead.acquireAsync(RequestPriorityEnum.INTERACTIVE);
+        assertThrows(BulkheadFullException.class, () -> bulkhead.acquire(RequestPriorityEnum.BATCH));
+        assertTrue(bulkhead.acquireAsync(RequestPriorityEnum.INTERACTIVE).isCompletedExceptionally());
+        assertFalse(queued.isDone());
+        queued.cancel(true);
+        assertEquals(0, bulkhead.getQueueDepth());
+        bulkhead.release();
+        assertEquals(0, bulkhead.getInFlight());
+    }
+
+    @Test
+    void strictPolicyServesInteractiveFirst() throws Exception {
+        Bulkhead bulkhead = bulkhead(10, 0, BulkheadConfig.SchedulingPolicy.STRICT);
+        bulkhead.acquire();
+        CompletableFuture<Void> batch = bulkhead.acquireAsync(RequestPriorityEnum.BATCH);
+        CompletableFuture<Void> interactive = bulkhead.acquireAsync(RequestPriorityEnum.INTERACTIVE);
+        bulkhead.release();
+        interactive.get(1, TimeUnit.SECONDS);
+        assertFalse(batch.isDone());
+        bulkhead.release();
+        batch.get(1, TimeUnit.SECONDS);
+        bulkhead.release();
+    }
+
+    @Test
+    void agedBatchWaiterOvertakesInteractive() throws Exception {
+        Bulkhead bulkhead = bulkhead(10, 50, BulkheadConfig.SchedulingPolicy.STRICT);
+        bulkhead.acquire();
+        CompletableFuture<Void> batch = bulkhead.acquireAsync(RequestPriorityEnum.BATCH);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(80));
+        CompletableFuture<Void> interactive = bulkhead.acquireAsync(RequestPriorityEnum.INTERACTIVE);
+        bulkhead.release();
+        batch.get(1, TimeUnit.SECONDS);
+        assertFalse(interactive.isDone());
+        bulkhead.release();
+        interactive.get(1, TimeUnit.SECONDS);
+        bulkhead.release();
+        assertEquals(80, bulkhead.getLaneStats(RequestPriorityEnum.BATCH).getAverageQueueTimeMillis());
+    }
+
+    @Test
+    void weightedPolicyFollowsLaneWeights() {
+        Bulkhead bulkhead = bulkhead(100, 0, BulkheadConfig.SchedulingPolicy.WEIGHTED);
+        bulkhead.acquire();
+        List<CompletableFuture<Void>> order = new ArrayList<>();
+        List<RequestPriorityEnum> priorities = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            order.add(bulkhead.acquireAsync(RequestPriorityEnum.INTERACTIVE));
+            priorities.add(RequestPriorityEnum.INTERACTIVE);
+            order.add(bulkhead.acquireAsync(RequestPriorityEnum.BATCH));
+            priorities.add(RequestPriorityEnum.BATCH);
+        }
+        int batchGranted = 0;
+        for (int round = 0; round < 10; round++) {
+            bulkhead.release();
+            for (int i = 0; i < order.size(); i++) {
+                if (order.get(i).isDone() && priorities.get(i) == RequestPriorityEnum.BATCH) {
+                    batchGranted++;
+                    priorities.set(i, null);
+                }
+            }
+        }
+        //INTERACTIVE:BATCH = 4:1
+        assertEquals(2, batchGranted);
+    }
+
+    @Test
+    void asyncWaiterTimesOut() {
+        Bulkhead bulkhead = bulkhead(10, 0, BulkheadConfig.SchedulingPolicy.STRICT);
+        bulkhead.acquire();
+        CompletableFuture<Void> waiter = bulkhead.acquireAsync(RequestPriorityEnum.INTERACTIVE, 30);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(BulkheadFullException.class, e.getCause());
+        assertEquals(0, bulkhead.getQueueDepth());
+        bulkhead.release();
+        assertEquals(0, bulkhead.getInFlight());
+    }
+}
@@ -0,0 +1,78 @@
+package common.policy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname CircuitBreakerTest
+ * @Description 熔断器：状态转换与取消的探测请求
+ */
+class CircuitBreakerTest {
+
+    private static CircuitBreaker circuitBreaker(int permittedCallsInHalfOpen) {
+        return new CircuitBreaker("test", CircuitBreakerConfig.builder()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(2)
+                .waitDurationInOpenMillis(0L)
+                .permittedCallsInHalfOpen(permittedCallsInHalfOpen)
+                .build(), Collections.emptyList());
+    }
+
+    private static CircuitBreaker halfOpen(int permittedCallsInHalfOpen) {
+        CircuitBreaker circuitBreaker = circuitBreaker(permittedCallsInHalfOpen);
+        circuitBreaker.onError(1);
+        circuitBreaker.onError(1);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+
+    @Test
+    void opensOnFailureRateAndClosesAfterProbes() {
+        CircuitBreaker circuitBreaker = halfOpen(2);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onSuccess(1);
+        circuitBreaker.onSuccess(1);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void ignoredProbeReturnsPermitWithoutClosing() {
+        CircuitBreaker circuitBreaker = halfOpen(1);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.onIgnored();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onError(1);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void ignoredCallsDoNotReturnMorePermitsThanTaken() {
+        CircuitBreaker circuitBreaker = halfOpen(2);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onIgnored();
+        circuitBreaker.onIgnored();
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void ignoredCallIsNotRecordedWhenClosed() {
+        CircuitBreaker circuitBreaker = circuitBreaker(1);
+        circuitBreaker.onIgnored();
+        circuitBreaker.onIgnored();
+        assertEquals(-1, circuitBreaker.getFailureRate());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+}
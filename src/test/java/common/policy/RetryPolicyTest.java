@@ -0,0 +1,57 @@
+package common.policy;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname RetryPolicyTest
+ * @Description 重试判断：幂等性、限流状态码与错误码、重试次数与 Retry-After
+ */
+class RetryPolicyTest {
+
+    private final RetryPolicy policy = RetryPolicy.builder()
+            .baseDelayMillis(10L)
+            .maxDelayMillis(100L)
+            .retryBudget(null)
+            .build();
+
+    @Test
+    void serviceUnavailableIsRetriedOnlyForIdempotentCalls() {
+        assertTrue(policy.delayForResponse(1, true, 503, null, null) >= 0);
+        assertEquals(-1, policy.delayForResponse(1, false, 503, null, null));
+        assertEquals(-1, policy.delayForResponse(1, false, 503, "ServiceUnavailable", null));
+        assertEquals(-1, policy.delayForResponse(1, false, 500, "InternalError", null));
+    }
+
+    @Test
+    void explicitThrottlingIsRetriedForAnyCall() {
+        assertTrue(policy.delayForResponse(1, false, 429, null, null) >= 0);
+        assertTrue(policy.delayForResponse(1, false, 400, "Throttling", null) >= 0);
+        assertTrue(policy.delayForResponse(1, false, 503, "RequestLimitExceeded", null) >= 0);
+        assertTrue(policy.isThrottling(503, null));
+    }
+
+    @Test
+    void readFailureIsRetriedOnlyForIdempotentCalls() {
+        assertTrue(policy.delayForException(1, false, new ConnectException("refused")) >= 0);
+        assertTrue(policy.delayForException(1, true, new SocketTimeoutException("read timed out")) >= 0);
+        assertEquals(-1, policy.delayForException(1, false, new SocketTimeoutException("read timed out")));
+    }
+
+    @Test
+    void stopsAfterMaxAttempts() {
+        assertTrue(policy.delayForResponse(2, true, 500, null, null) >= 0);
+        assertEquals(-1, policy.delayForResponse(3, true, 500, null, null));
+        assertEquals(-1, RetryPolicy.none().delayForResponse(1, true, 429, null, null));
+    }
+
+    @Test
+    void retryAfterIsLowerBoundCappedByMaxDelay() {
+        assertEquals(100, policy.delayForResponse(1, true, 429, null, "5"));
+    }
+}
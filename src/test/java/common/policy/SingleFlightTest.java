@@ -0,0 +1,186 @@
+package common.policy;
+
+import common.exception.CallCancelledException;
+import common.exception.DeadlineExceededException;
+import common.http.Cancellation;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname SingleFlightTest
+ * @Description 合并调用：结果共享，等待方的截止与取消，执行方被取消或截止时等待方重新发起
+ */
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    /**
+     * 在后台发起执行方调用，返回时执行方已在执行
+     */
+    private CompletableFuture<String> lead(String key, CountDownLatch release, String value) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return singleFlight.execute(key, () -> {
+                    started.countDown();
+                    release.await();
+                    return value;
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    @Test
+    void followerSharesResult() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = lead("shared", release, "leader");
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> {
+            try {
+                return singleFlight.execute("shared", () -> "follower" + loads.incrementAndGet());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(50);
+        release.countDown();
+        assertEquals("leader", leader.get(1, TimeUnit.SECONDS));
+        assertEquals("leader", follower.get(1, TimeUnit.SECONDS));
+        assertEquals(0, loads.get());
+        assertEquals(1, singleFlight.getSharedCount());
+    }
+
+    @Test
+    void followerStopsWaitingAtItsDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = lead("deadline", release, "leader");
+        long start = System.nanoTime();
+        assertThrows(DeadlineExceededException.class,
+                () -> singleFlight.execute("deadline", () -> "follower", Deadline.after(100), null));
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waited >= 90 && waited < 1000, "waited " + waited);
+        release.countDown();
+        assertEquals("leader", leader.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void followerStopsWaitingWhenCancelled() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = lead("cancel", release, "leader");
+        Cancellation cancellation = new Cancellation();
+        PolicyScheduler.schedule(cancellation::cancel, 50);
+        assertThrows(CallCancelledException.class, () -> singleFlight.execute("cancel", () -> "follower", null, cancellation));
+        release.countDown();
+        assertEquals("leader", leader.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void followerRetriesWhenLeaderDeadlineExceeded() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> leader = CompletableFuture.runAsync(() -> {
+            try {
+                singleFlight.execute("leader-deadline", () -> {
+                    started.countDown();
+                    release.await();
+                    throw Deadline.after(0).exceeded("response");
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> {
+            try {
+                return singleFlight.execute("leader-deadline", () -> "follower", Deadline.after(5000), null);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(50);
+        release.countDown();
+        assertEquals("follower", follower.get(1, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, leader::get);
+        assertInstanceOf(DeadlineExceededException.class, e.getCause().getCause());
+    }
+
+    @Test
+    void followerSharesOrdinaryFailure() throws Exception {
+        IllegalStateException failure = new IllegalStateException("boom");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> {
+            try {
+                singleFlight.execute("failure", () -> {
+                    started.countDown();
+                    release.await();
+                    throw failure;
+                });
+            } catch (Exception ignored) {
+                //执行方自己的异常
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        CompletableFuture<Object> follower = CompletableFuture.supplyAsync(() -> {
+            try {
+                return singleFlight.execute("failure", () -> "follower");
+            } catch (Exception e) {
+                return e;
+            }
+        });
+        Thread.sleep(50);
+        release.countDown();
+        assertSame(failure, follower.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void asyncFollowerStopsWaitingAtItsDeadline() throws Exception {
+        CompletableFuture<String> loaded = new CompletableFuture<>();
+        CompletableFuture<String> leader = singleFlight.executeAsync("async-deadline", () -> loaded);
+        CompletableFuture<String> follower = singleFlight.executeAsync("async-deadline",
+                () -> CompletableFuture.completedFuture("follower"), Deadline.after(100), null);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> follower.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(DeadlineExceededException.class, e.getCause());
+        loaded.complete("leader");
+        assertEquals("leader", leader.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void asyncFollowerIsCancelledWithItsCancellation() {
+        CompletableFuture<String> loaded = new CompletableFuture<>();
+        singleFlight.executeAsync("async-cancel", () -> loaded);
+        Cancellation cancellation = new Cancellation();
+        CompletableFuture<String> follower = singleFlight.executeAsync("async-cancel",
+                () -> CompletableFuture.completedFuture("follower"), null, cancellation);
+        cancellation.cancel();
+        assertTrue(follower.isCancelled());
+        loaded.complete("leader");
+    }
+
+    @Test
+    void asyncFollowerRetriesWhenLeaderCancelled() throws Exception {
+        CompletableFuture<String> loaded = new CompletableFuture<>();
+        CompletableFuture<String> leader = singleFlight.executeAsync("async-leader-cancel", () -> loaded);
+        CompletableFuture<String> follower = singleFlight.executeAsync("async-leader-cancel",
+                () -> CompletableFuture.completedFuture("follower"), Deadline.after(5000), null);
+        loaded.cancel(true);
+        assertTrue(leader.isCompletedExceptionally());
+        assertEquals("follower", follower.get(1, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+}
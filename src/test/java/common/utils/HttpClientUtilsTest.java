@@ -0,0 +1,71 @@
+package common.utils;
+
+import common.policy.RetryPolicy;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname HttpClientUtilsTest
+ * @Description 工具类请求的重试：默认不重试，POST 只重试明确未处理的请求
+ */
+class HttpClientUtilsTest {
+
+    private static LocalHttpServer server;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = new LocalHttpServer();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    @AfterEach
+    void resetRetryPolicy() {
+        HttpClientUtils.setRetryPolicy(null);
+    }
+
+    private static void retry() {
+        HttpClientUtils.setRetryPolicy(RetryPolicy.builder().baseDelayMillis(1L).retryBudget(null).build());
+    }
+
+    @Test
+    void doesNotRetryByDefault() throws Exception {
+        int before = server.hits("/err");
+        assertTrue(HttpClientUtils.httpGet(server.url("/err")).contains("InternalError"));
+        assertEquals(before + 1, server.hits("/err"));
+    }
+
+    @Test
+    void retriesIdempotentServerErrorAndReturnsLastResponse() throws Exception {
+        retry();
+        int before = server.hits("/unavailable");
+        assertTrue(HttpClientUtils.httpGet(server.url("/unavailable")).contains("ServiceUnavailable"));
+        assertEquals(before + 3, server.hits("/unavailable"));
+    }
+
+    @Test
+    void doesNotRetryPostOnServiceUnavailable() throws Exception {
+        retry();
+        int before = server.hits("/unavailable");
+        HttpClientUtils.httpPost(server.url("/unavailable"), new HashMap<>());
+        assertEquals(before + 1, server.hits("/unavailable"));
+    }
+
+    @Test
+    void retriesPostOnThrottling() throws Exception {
+        retry();
+        int before = server.hits("/throttle");
+        assertTrue(HttpClientUtils.httpPost(server.url("/throttle"), new HashMap<>()).contains("Throttling"));
+        assertEquals(before + 3, server.hits("/throttle"));
+    }
+}
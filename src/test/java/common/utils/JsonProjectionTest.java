@@ -0,0 +1,89 @@
+package common.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname JsonProjectionTest
+ * @Description 字段投影：路径解析、[*] 与下标、缺失字段
+ */
+class JsonProjectionTest {
+
+    private static final String BODY = "{\"RequestId\":\"r\",\"Skipped\":{\"Deep\":[1,2,{\"X\":3}]},"
+            + "\"Instances\":[{\"InstanceId\":\"i-1\",\"Tags\":[{\"Key\":\"a\"}]},{\"InstanceId\":\"i-2\",\"Tags\":[]},{\"Name\":\"no-id\"}],"
+            + "\"Error\":{\"Code\":\"E\",\"Message\":null}}";
+
+    private static Map<String, List<JsonNode>> apply(JsonProjection projection) throws Exception {
+        try (JsonParser parser = ResponseBinder.mapper().getFactory().createParser(BODY)) {
+            parser.nextToken();
+            return projection.apply(parser);
+        }
+    }
+
+    private static List<String> texts(List<JsonNode> values) {
+        List<String> texts = new ArrayList<>();
+        values.forEach(value -> texts.add(value.asText()));
+        return texts;
+    }
+
+    @Test
+    void wildcardAndIndexSelectArrayElements() throws Exception {
+        Map<String, List<JsonNode>> result = apply(JsonProjection.compile(
+                "Instances[*].InstanceId", "Instances[1].InstanceId", "Instances[*].Tags[0].Key", "Error.Code"));
+
+        //缺少字段的元素不产生值
+        assertEquals(Arrays.asList("i-1", "i-2"), texts(result.get("Instances[*].InstanceId")));
+        assertEquals(Arrays.asList("i-2"), texts(result.get("Instances[1].InstanceId")));
+        assertEquals(Arrays.asList("a"), texts(result.get("Instances[*].Tags[0].Key")));
+        assertEquals(Arrays.asList("E"), texts(result.get("Error.Code")));
+    }
+
+    @Test
+    void pathAndItsParentAreBothCollected() throws Exception {
+        Map<String, List<JsonNode>> result = apply(JsonProjection.compile("Instances[0]", "Instances[0].InstanceId", "Error"));
+
+        assertEquals(1, result.get("Instances[0]").size());
+        assertEquals("i-1", result.get("Instances[0]").get(0).get("InstanceId").asText());
+        assertEquals(Arrays.asList("i-1"), texts(result.get("Instances[0].InstanceId")));
+        assertTrue(result.get("Error").get(0).isObject());
+    }
+
+    @Test
+    void missingPathsYieldEmptyLists() throws Exception {
+        Map<String, List<JsonNode>> result = apply(JsonProjection.compile(
+                "Missing", "Instances[5].InstanceId", "RequestId.Nested", "RequestId[0]", "Error.Message"));
+
+        assertTrue(result.get("Missing").isEmpty());
+        assertTrue(result.get("Instances[5].InstanceId").isEmpty());
+        assertTrue(result.get("RequestId.Nested").isEmpty());
+        assertTrue(result.get("RequestId[0]").isEmpty());
+        //值为 null 的字段存在，返回 NullNode
+        assertTrue(result.get("Error.Message").get(0).isNull());
+    }
+
+    @Test
+    void invalidPathsAreRejected() {
+        for (String path : new String[]{"", ".", "Instances[", "Instances[x].Id"}) {
+            assertThrows(IllegalArgumentException.class, () -> JsonProjection.compile(path), path);
+        }
+        assertThrows(IllegalArgumentException.class, JsonProjection::compile);
+    }
+
+    @Test
+    void topLevelFieldsComeFromThePaths() {
+        JsonProjection projection = JsonProjection.compile("Instances[*].InstanceId", "Instances[0]", "[0].X", "Error.Code");
+        assertEquals(2, projection.topLevelFields().size());
+        assertTrue(projection.topLevelFields().containsAll(Arrays.asList("Instances", "Error")));
+        assertEquals(4, projection.getPaths().size());
+    }
+}
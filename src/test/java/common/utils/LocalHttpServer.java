@@ -0,0 +1,176 @@
+package common.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @Classname LocalHttpServer
+ * @Description 测试用本地 http 服务：/ok 立即返回，/slow 1秒后返回，/err 返回500，/unavailable 返回503，/throttle 返回429，/drop 不返回响应直接断开连接，/trickle 逐字节慢速返回，
+ * /gzip 在请求头接受 gzip 时返回压缩的响应，/echo 返回请求方法、请求体字节数与是否带签名，/batch 按 InstanceId.N 返回实例列表（以 missing 开头的 id 不存在），
+ * 每页数量取 MaxResults，未传时为2，从 NextToken 指定的位置开始，有剩余时返回下一页的 NextToken
+ */
+public class LocalHttpServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "local-http-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+
+    public LocalHttpServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * 不带协议的地址，与 RpcRequestClient 的 url 参数一致
+     */
+    public String url(String path) {
+        return "127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    public int hits(String path) {
+        AtomicInteger count = hits.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        hits.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+        try {
+            switch (path) {
+                case "/slow":
+                    TimeUnit.SECONDS.sleep(1);
+                    respond(exchange, 200, "{\"RequestId\":\"slow\"}");
+                    return;
+                case "/err":
+                    respond(exchange, 500, "{\"RequestId\":\"err\",\"Error\":{\"Code\":\"InternalError\"}}");
+                    return;
+                case "/unavailable":
+                    respond(exchange, 503, "{\"RequestId\":\"unavailable\",\"Error\":{\"Code\":\"ServiceUnavailable\"}}");
+                    return;
+                case "/throttle":
+                    respond(exchange, 429, "{\"RequestId\":\"throttle\",\"Error\":{\"Code\":\"Throttling\"}}");
+                    return;
+                case "/drop":
+                    //未发送响应头时 close 会直接关闭连接
+                    exchange.close();
+                    return;
+                case "/gzip":
+                    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                    if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+                        respond(exchange, 200, "{\"RequestId\":\"identity\"}");
+                        return;
+                    }
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                        gzip.write("{\"RequestId\":\"gzip\"}".getBytes(StandardCharsets.UTF_8));
+                    }
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    exchange.sendResponseHeaders(200, compressed.size());
+                    exchange.getResponseBody().write(compressed.toByteArray());
+                    exchange.close();
+                    return;
+                case "/echo":
+                    respond(exchange, 200, echo(exchange));
+                    return;
+                case "/batch":
+                    respond(exchange, 200, batch(exchange.getRequestURI().getRawQuery()));
+                    return;
+                case "/trickle":
+                    exchange.sendResponseHeaders(200, 0);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write("{\"RequestId\":\"trickle\",\"X\":\"".getBytes(StandardCharsets.UTF_8));
+                    for (int i = 0; i < 40; i++) {
+                        out.flush();
+                        TimeUnit.MILLISECONDS.sleep(50);
+                        out.write('x');
+                    }
+                    out.write("\"}".getBytes(StandardCharsets.UTF_8));
+                    exchange.close();
+                    return;
+                default:
+                    respond(exchange, 200, "{\"RequestId\":\"ok\"}");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        } catch (IOException e) {
+            //客户端已中止
+            exchange.close();
+        }
+    }
+
+    private static String echo(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read; (read = exchange.getRequestBody().read(buffer)) != -1; ) {
+            body.write(buffer, 0, read);
+        }
+        return "{\"RequestId\":\"echo\",\"Method\":\"" + exchange.getRequestMethod() + "\",\"Length\":" + body.size()
+                + ",\"Signed\":" + exchange.getRequestHeaders().containsKey("Authorization") + "}";
+    }
+
+    private static String batch(String query) throws IOException {
+        Map<String, String> params = new TreeMap<>();
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            params.put(URLDecoder.decode(pair.substring(0, index), "UTF-8"), URLDecoder.decode(pair.substring(index + 1), "UTF-8"));
+        }
+        List<String> ids = new ArrayList<>();
+        for (int i = 1; params.containsKey("InstanceId." + i); i++) {
+            String id = params.get("InstanceId." + i);
+            if (!id.startsWith("missing")) {
+                ids.add(id);
+            }
+        }
+        int pageSize = params.containsKey("MaxResults") ? Integer.parseInt(params.get("MaxResults")) : 2;
+        int offset = params.containsKey("NextToken") ? Integer.parseInt(params.get("NextToken")) : 0;
+        StringBuilder body = new StringBuilder("{\"RequestId\":\"batch\",\"InstancesSet\":[");
+        for (int i = offset; i < Math.min(offset + pageSize, ids.size()); i++) {
+            body.append(i == offset ? "" : ",").append("{\"InstanceId\":\"").append(ids.get(i)).append("\"}");
+        }
+        body.append("]");
+        if (ids.size() > offset + pageSize) {
+            body.append(",\"NextToken\":\"").append(offset + pageSize).append("\"");
+        }
+        return body.append("}").toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,439 @@
+package common.utils;
+
+import common.LazyJsonResponse;
+import common.RpcRequestContentModel;
+import common.cache.ResponseCache;
+import common.exception.CallCancelledException;
+import common.exception.DeadlineExceededException;
+import common.exception.OverloadException;
+import common.http.Cancellation;
+import common.http.HttpRequestOptions;
+import common.http.RpcHttpResponse;
+import common.http.SdkHttpTransport;
+import common.http.SdkHttpTransports;
+import common.policy.AdaptiveConcurrencyLimiter;
+import common.policy.AdaptiveRateLimiter;
+import common.policy.CircuitBreaker;
+import common.policy.CircuitBreakerConfig;
+import common.policy.CircuitBreakerRegistry;
+import common.policy.ConcurrencyLimiterConfig;
+import common.policy.ConcurrencyLimiterRegistry;
+import common.policy.HedgePolicy;
+import common.policy.LatencyTracker;
+import common.policy.LoadShedder;
+import common.policy.LoadShedderConfig;
+import common.policy.PolicyScheduler;
+import common.policy.RateLimiterConfig;
+import common.policy.RateLimiterRegistry;
+import common.policy.RetryPolicy;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Classname RpcRequestClientTest
+ * @Description 基于本地 http 服务的调用测试：取消、截止时间与各项策略的交互
+ */
+class RpcRequestClientTest {
+
+    private static LocalHttpServer server;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = new LocalHttpServer();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    private static RpcRequestContentModel.RpcRequestContentModelBuilder model(String region) {
+        return RpcRequestContentModel.builder()
+                .service("kec")
+                .region(region)
+                .accessKeyId("ak")
+                .secretAccessKey("sk")
+                .retryPolicy(RetryPolicy.none())
+                .circuitBreakerConfig(null);
+    }
+
+    private static RpcRequestClient client(RpcRequestContentModel model) {
+        return new RpcRequestClient(model, SdkHttpTransports.apache());
+    }
+
+    private static Map<String, Object> params() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("Action", "DescribeInstances");
+        return params;
+    }
+
+    private static CircuitBreakerConfig probeConfig() {
+        return CircuitBreakerConfig.builder()
+                .minimumNumberOfCalls(1)
+                .waitDurationInOpenMillis(0L)
+                .permittedCallsInHalfOpen(1)
+                .build();
+    }
+
+    @Test
+    void deadlineAbortCountsAsCircuitBreakerFailure() {
+        CircuitBreakerConfig config = probeConfig();
+        CircuitBreaker circuitBreaker = CircuitBreakerRegistry.getDefault()
+                .circuitBreaker(CircuitBreakerRegistry.key("kec", "cb-deadline", "127.0.0.1"), config);
+        RpcRequestClient client = client(model("cb-deadline").circuitBreakerConfig(config).callTimeoutMillis(200L).build());
+
+        assertThrows(RuntimeException.class, () -> client.beginRpcRequestLazy(server.url("/slow"), "GET", params(), new HashMap<>()));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void cancelledHalfOpenProbeDoesNotCloseCircuitBreaker() {
+        CircuitBreakerConfig config = probeConfig();
+        CircuitBreaker circuitBreaker = CircuitBreakerRegistry.getDefault()
+                .circuitBreaker(CircuitBreakerRegistry.key("kec", "cb-cancel", "127.0.0.1"), config);
+        circuitBreaker.onError(1);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        RpcRequestClient client = client(model("cb-cancel").circuitBreakerConfig(config).build());
+        Cancellation cancellation = new Cancellation();
+        PolicyScheduler.schedule(cancellation::cancel, 100);
+        assertThrows(RuntimeException.class, () -> client.withCancellation(cancellation)
+                .beginRpcRequestLazy(server.url("/slow"), "GET", params(), new HashMap<>()));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        //探测名额已归还，下一次请求可以作为探测发出
+        assertEquals("ok", client.beginRpcRequestLazy(server.url("/ok"), "GET", params(), new HashMap<>()).getString("RequestId"));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void cancelledAsyncProbeDoesNotCloseCircuitBreaker() throws Exception {
+        CircuitBreakerConfig config = probeConfig();
+        CircuitBreaker circuitBreaker = CircuitBreakerRegistry.getDefault()
+                .circuitBreaker(CircuitBreakerRegistry.key("kec", "cb-cancel-async", "127.0.0.1"), config);
+        circuitBreaker.onError(1);
+
+        RpcRequestClient client = client(model("cb-cancel-async").circuitBreakerConfig(config).build());
+        CompletableFuture<LazyJsonResponse> probe = client.beginRpcRequestLazyAsync(server.url("/slow"), "GET", params(), new HashMap<>());
+        Thread.sleep(100);
+        probe.cancel(true);
+        Thread.sleep(100);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        assertEquals("ok", client.beginRpcRequestLazyAsync(server.url("/ok"), "GET", params(), new HashMap<>())
+                .get(5, TimeUnit.SECONDS).getString("RequestId"));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private static AdaptiveConcurrencyLimiter saturatedLimiter(String region, ConcurrencyLimiterConfig config) {
+        AdaptiveConcurrencyLimiter limiter = ConcurrencyLimiterRegistry.getDefault()
+                .limiter(CircuitBreakerRegistry.key("kec", region, "127.0.0.1"), config);
+        limiter.acquire();
+        return limiter;
+    }
+
+    /**
+     * 取消排队时调用方先于离开队列的回调被唤醒，稍等队列清空
+     */
+    private static void awaitQueueDrained(AdaptiveConcurrencyLimiter limiter) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (limiter.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    private static ConcurrencyLimiterConfig singlePermitConfig() {
+        return ConcurrencyLimiterConfig.builder()
+                .initialLimit(1)
+                .minLimit(1)
+                .maxLimit(1)
+                .maxWaitMillis(5000L)
+                .build();
+    }
+
+    @Test
+    void concurrencyLimitWaitStopsAtDeadline() throws Exception {
+        ConcurrencyLimiterConfig config = singlePermitConfig();
+        AdaptiveConcurrencyLimiter limiter = saturatedLimiter("limit-deadline", config);
+        RpcRequestClient client = client(model("limit-deadline").concurrencyLimiterConfig(config).callTimeoutMillis(200L).build());
+
+        long start = System.nanoTime();
+        assertThrows(DeadlineExceededException.class, () -> client.beginRpcRequestLazy(server.url("/ok"), "GET", params(), new HashMap<>()));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        awaitQueueDrained(limiter);
+    }
+
+    @Test
+    void concurrencyLimitWaitIsCancellable() throws Exception {
+        ConcurrencyLimiterConfig config = singlePermitConfig();
+        AdaptiveConcurrencyLimiter limiter = saturatedLimiter("limit-cancel", config);
+        RpcRequestClient client = client(model("limit-cancel").concurrencyLimiterConfig(config).build());
+        Cancellation cancellation = new Cancellation();
+        PolicyScheduler.schedule(cancellation::cancel, 100);
+
+        long start = System.nanoTime();
+        assertThrows(CallCancelledException.class, () -> client.withCancellation(cancellation)
+                .beginRpcRequestLazy(server.url("/ok"), "GET", params(), new HashMap<>()));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        awaitQueueDrained(limiter);
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void asyncConcurrencyLimitWaitStopsAtDeadline() throws Exception {
+        ConcurrencyLimiterConfig config = singlePermitConfig();
+        AdaptiveConcurrencyLimiter limiter = saturatedLimiter("limit-deadline-async", config);
+        RpcRequestClient client = client(model("limit-deadline-async").concurrencyLimiterConfig(config).callTimeoutMillis(200L).build());
+
+        CompletableFuture<LazyJsonResponse> future = client.beginRpcRequestLazyAsync(server.url("/ok"), "GET", params(), new HashMap<>());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(DeadlineExceededException.class, e.getCause());
+        awaitQueueDrained(limiter);
+    }
+
+    @Test
+    void singleFlightFollowerHonoursItsDeadline() throws Exception {
+        RpcRequestContentModel model = model("flight-deadline").singleFlight(true).build();
+        CompletableFuture<LazyJsonResponse> leader = client(model)
+                .beginRpcRequestLazyAsync(server.url("/slow"), "GET", params(), new HashMap<>());
+        Thread.sleep(50);
+
+        RpcRequestClient follower = client(model.toBuilder().callTimeoutMillis(150L).build());
+        long start = System.nanoTime();
+        assertThrows(DeadlineExceededException.class, () -> follower.beginRpcRequestLazy(server.url("/slow"), "GET", params(), new HashMap<>()));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        assertEquals("slow", leader.get(5, TimeUnit.SECONDS).getString("RequestId"));
+    }
+
+    @Test
+    void putAndDeleteWithoutActionAreNotTreatedAsReads() throws Exception {
+        RpcRequestClient client = client(model("read-only").singleFlight(true).responseCache(new ResponseCache()).build());
+        int before = server.hits("/slow");
+        CompletableFuture<LazyJsonResponse> first = client.beginRpcRequestLazyAsync(server.url("/slow"), "PUT", new HashMap<>(), new HashMap<>());
+        CompletableFuture<LazyJsonResponse> second = client.beginRpcRequestLazyAsync(server.url("/slow"), "PUT", new HashMap<>(), new HashMap<>());
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(before + 2, server.hits("/slow"));
+
+        before = server.hits("/ok");
+        client.beginRpcRequestLazy(server.url("/ok"), "GET", params(), new HashMap<>());
+        client.beginRpcRequestLazy(server.url("/ok"), "GET", params(), new HashMap<>());
+        assertEquals(before + 1, server.hits("/ok"));
+        //写操作成功后失效缓存
+        client.beginRpcRequestLazy(server.url("/ok"), "DELETE", new HashMap<>(), new HashMap<>());
+        client.beginRpcRequestLazy(server.url("/ok"), "GET", params(), new HashMap<>());
+        assertEquals(before + 3, server.hits("/ok"));
+    }
+
+    @Test
+    void serviceUnavailableIsNotRetriedForWriteActions() {
+        RpcRequestClient client = client(model("retry-write")
+                .retryPolicy(RetryPolicy.builder().baseDelayMillis(1L).retryBudget(null).build()).build());
+        Map<String, Object> write = new HashMap<>();
+        write.put("Action", "RunInstances");
+
+        int before = server.hits("/unavailable");
+        client.beginRpcRequest(server.url("/unavailable"), "GET", write);
+        assertEquals(before + 1, server.hits("/unavailable"));
+
+        before = server.hits("/unavailable");
+        client.beginRpcRequest(server.url("/unavailable"), "GET", params());
+        assertEquals(before + 3, server.hits("/unavailable"));
+    }
+
+    @Test
+    void droppedConnectionIsNotResentForWriteActions() {
+        RpcRequestClient client = client(model("drop-write").build());
+        Map<String, Object> write = new HashMap<>();
+        write.put("Action", "RunInstances");
+
+        int before = server.hits("/drop");
+        assertThrows(RuntimeException.class, () -> client.beginRpcRequestLazy(server.url("/drop"), "GET", write, new HashMap<>()));
+        assertEquals(before + 1, server.hits("/drop"));
+    }
+
+    @Test
+    void inFlightBytesCountTheRequestBody() throws Exception {
+        LoadShedder shedder = new LoadShedder(LoadShedderConfig.builder().maxInFlightBytes(1000L).build());
+        RpcRequestClient client = client(model("shed-bytes").loadShedder(shedder).build());
+        Map<String, Object> write = new HashMap<>();
+        write.put("Action", "RunInstances");
+        write.put("UserData", new String(new char[600]).replace('\0', 'x'));
+
+        CompletableFuture<LazyJsonResponse> first = client.beginRpcRequestLazyAsync(server.url("/slow"), "POST", write, new HashMap<>());
+        for (int i = 0; i < 100 && shedder.getInFlightBytes() == 0; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(shedder.getInFlightBytes() > 600, String.valueOf(shedder.getInFlightBytes()));
+        assertThrows(OverloadException.class, () -> client.beginRpcRequestLazy(server.url("/ok"), "POST", write, new HashMap<>()));
+
+        assertEquals("slow", first.get(5, TimeUnit.SECONDS).getString("RequestId"));
+        assertEquals(1, shedder.getShedCount());
+    }
+
+    @Test
+    void compressedResponsesAreRequestedByDefault() throws Exception {
+        RpcRequestClient client = client(model("gzip").build());
+        assertEquals("gzip", client.beginRpcRequestLazy(server.url("/gzip"), "GET", params(), new HashMap<>()).getString("RequestId"));
+        assertEquals("gzip", client.beginRpcRequestLazyAsync(server.url("/gzip"), "GET", params(), new HashMap<>())
+                .get(5, TimeUnit.SECONDS).getString("RequestId"));
+
+        RpcRequestClient identity = client(model("gzip").acceptCompressedResponse(false).build());
+        assertEquals("identity", identity.beginRpcRequestLazy(server.url("/gzip"), "GET", params(), new HashMap<>()).getString("RequestId"));
+    }
+
+    @Test
+    void asyncResponseIsHandledOffTheIoThread() throws Exception {
+        RpcRequestClient client = client(model("response-thread").build());
+        CompletableFuture<LazyJsonResponse> future = client.beginRpcRequestLazyAsync(server.url("/slow"), "GET", params(), new HashMap<>());
+        CompletableFuture<String> thread = future.thenApply(response -> Thread.currentThread().getName());
+
+        //先等待回调的结果，等待 future 本身的线程被唤醒后也会执行回调
+        assertTrue(thread.get(5, TimeUnit.SECONDS).startsWith("ksyun-rpc-response-"), thread.get());
+        assertEquals("slow", future.get().getString("RequestId"));
+    }
+
+    private static RateLimiterConfig onePerSecond() {
+        return RateLimiterConfig.builder().permitsPerSecond(1.0).maxBurstPermits(1).build();
+    }
+
+    private static AdaptiveRateLimiter rateLimiter(String region, RateLimiterConfig config) {
+        return RateLimiterRegistry.getDefault().rateLimiter(LatencyTracker.key("kec", region, "DescribeInstances"), "DescribeInstances", config);
+    }
+
+    @Test
+    void rateLimitTokenIsReturnedWhenDeadlineIsTooClose() throws Exception {
+        RateLimiterConfig config = onePerSecond();
+        RpcRequestClient client = client(model("rate-deadline").rateLimiterConfig(config).callTimeoutMillis(300L).build());
+        client.beginRpcRequestLazy(server.url("/ok"), "GET", params(), new HashMap<>());
+
+        assertThrows(DeadlineExceededException.class, () -> client.beginRpcRequestLazy(server.url("/ok"), "GET", params(), new HashMap<>()));
+        //令牌已归还，一秒后可再次立即发送
+        Thread.sleep(1100);
+        assertTrue(rateLimiter("rate-deadline", config).tryAcquire());
+    }
+
+    @Test
+    void rateLimitTokenIsReturnedWhenWaitIsCancelled() throws Exception {
+        RateLimiterConfig config = onePerSecond();
+        RpcRequestClient client = client(model("rate-cancel").rateLimiterConfig(config).build());
+        client.beginRpcRequestLazy(server.url("/ok"), "GET", params(), new HashMap<>());
+
+        Cancellation cancellation = new Cancellation();
+        PolicyScheduler.schedule(cancellation::cancel, 100);
+        assertThrows(CallCancelledException.class, () -> client.withCancellation(cancellation)
+                .beginRpcRequestLazy(server.url("/ok"), "GET", params(), new HashMap<>()));
+        Thread.sleep(1100);
+        assertTrue(rateLimiter("rate-cancel", config).tryAcquire());
+    }
+
+    @Test
+    void scheduledAsyncSendReturnsTokenWhenCancelled() throws Exception {
+        RateLimiterConfig config = onePerSecond();
+        RpcRequestClient client = client(model("rate-cancel-async").rateLimiterConfig(config).build());
+        client.beginRpcRequestLazy(server.url("/ok"), "GET", params(), new HashMap<>());
+
+        CompletableFuture<LazyJsonResponse> future = client.beginRpcRequestLazyAsync(server.url("/ok"), "GET", params(), new HashMap<>());
+        Thread.sleep(100);
+        future.cancel(true);
+        Thread.sleep(1000);
+        assertTrue(rateLimiter("rate-cancel-async", config).tryAcquire());
+    }
+
+    /**
+     * 记录同步与异步发送次数的传输层
+     */
+    private static class CountingTransport implements SdkHttpTransport {
+
+        private final SdkHttpTransport delegate = SdkHttpTransports.apache();
+
+        private final AtomicInteger sync = new AtomicInteger();
+
+        private final AtomicInteger async = new AtomicInteger();
+
+        @Override
+        public RpcHttpResponse execute(SdkHttpFullRequest signedRequest, HttpRequestOptions options) throws IOException {
+            sync.incrementAndGet();
+            return delegate.execute(signedRequest, options);
+        }
+
+        @Override
+        public CompletableFuture<RpcHttpResponse> executeAsync(SdkHttpFullRequest signedRequest, HttpRequestOptions options) {
+            async.incrementAndGet();
+            return delegate.executeAsync(signedRequest, options);
+        }
+    }
+
+    /**
+     * 以50ms的历史延迟触发对冲
+     */
+    private static RpcRequestContentModel.RpcRequestContentModelBuilder hedged(String region) {
+        for (int i = 0; i < 5; i++) {
+            LatencyTracker.getDefault().record(LatencyTracker.key("kec", region, "DescribeInstances"), 50);
+        }
+        return model(region).hedgePolicy(HedgePolicy.builder().minSamples(1).minDelayMillis(50L).maxDelayMillis(50L).build());
+    }
+
+    @Test
+    void hedgedSyncCallStaysOnSyncTransport() {
+        CountingTransport transport = new CountingTransport();
+        RpcRequestClient client = new RpcRequestClient(hedged("hedge-sync").build(), transport);
+
+        assertEquals("slow", client.beginRpcRequestLazy(server.url("/slow"), "GET", params(), new HashMap<>()).getString("RequestId"));
+        assertEquals(2, transport.sync.get());
+        assertEquals(0, transport.async.get());
+    }
+
+    @Test
+    void hedgeIsSkippedWhenConcurrencyLimitIsReached() throws Exception {
+        ConcurrencyLimiterConfig config = singlePermitConfig();
+        AdaptiveConcurrencyLimiter limiter = ConcurrencyLimiterRegistry.getDefault()
+                .limiter(CircuitBreakerRegistry.key("kec", "hedge-limit", "127.0.0.1"), config);
+        CountingTransport transport = new CountingTransport();
+        RpcRequestClient client = new RpcRequestClient(hedged("hedge-limit").concurrencyLimiterConfig(config).build(), transport);
+
+        assertEquals("slow", client.beginRpcRequestLazy(server.url("/slow"), "GET", params(), new HashMap<>()).getString("RequestId"));
+        assertEquals(1, transport.sync.get());
+        assertEquals("slow", client.beginRpcRequestLazyAsync(server.url("/slow"), "GET", params(), new HashMap<>())
+                .get(5, TimeUnit.SECONDS).getString("RequestId"));
+        assertEquals(1, transport.async.get());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void hedgeTakesAndReturnsItsOwnPermit() throws Exception {
+        ConcurrencyLimiterConfig config = ConcurrencyLimiterConfig.builder().initialLimit(2).minLimit(2).maxLimit(2).build();
+        AdaptiveConcurrencyLimiter limiter = ConcurrencyLimiterRegistry.getDefault()
+                .limiter(CircuitBreakerRegistry.key("kec", "hedge-permit", "127.0.0.1"), config);
+        CountingTransport transport = new CountingTransport();
+        RpcRequestClient client = new RpcRequestClient(hedged("hedge-permit").concurrencyLimiterConfig(config).build(), transport);
+
+        CompletableFuture<LazyJsonResponse> future = client.beginRpcRequestLazyAsync(server.url("/slow"), "GET", params(), new HashMap<>());
+        Thread.sleep(300);
+        assertEquals(2, limiter.getInFlight());
+        assertEquals("slow", future.get(5, TimeUnit.SECONDS).getString("RequestId"));
+        assertEquals(2, transport.async.get());
+        //落后的请求中止后归还许可
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (limiter.getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, limiter.getInFlight());
+    }
+}